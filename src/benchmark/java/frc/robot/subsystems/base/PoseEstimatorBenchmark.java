@@ -0,0 +1,317 @@
+package frc.robot.subsystems.base;
+
+import static edu.wpi.first.units.Units.Meters;
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+
+/**
+ * Replays the odometry samples & vision measurements of a recorded log through
+ * {@link WpilibSwervePoseEstimator} and {@link FastSwervePoseEstimator}, and
+ * prints how long each takes and how far apart their estimates are.
+ * <p>
+ * Odometry comes from the logged drive inputs ({@code Drive/Module#} &
+ * {@code Drive/Gyro}), vision from every camera's
+ * {@code Vision/<camera>/Filter} outputs (before the gate, so it is a superset
+ * of what the robot used). Everything is decoded up front, so only the
+ * estimators are timed.
+ * </p>
+ * <p>
+ * Run with {@code ./gradlew benchmarkPoseEstimators -Plog=<path.wpilog>}.
+ * </p>
+ */
+public class PoseEstimatorBenchmark {
+
+    // ========================= Class Level ===================================
+
+    private static final int MODULE_COUNT = 4;
+    private static final int WARMUP_RUNS = 5;
+    private static final int DEFAULT_RUNS = 20;
+    private static final double[] STATE_STD_DEVS = { 0.01, 0.01, 0.01 };
+
+    /** What the robot gave the estimator in one loop. */
+    private static class Loop {
+        int firstSample, sampleCount;
+        Pose2d[] poses;
+        double[] timestamps;
+        double[][] stdDevs;
+    }
+
+    private interface Factory {
+        SwervePoseEstimator create(Rotation2d gyroAngle, SwerveModulePosition[] positions, Pose2d pose);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args[0].isEmpty()) {
+            System.err.println("Usage: PoseEstimatorBenchmark <log.wpilog> [runs]");
+            System.exit(1);
+        }
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+        PoseEstimatorBenchmark benchmark = new PoseEstimatorBenchmark(args[0]);
+        System.out.println("Loops: " + benchmark.loops.size() + ", odometry samples: " + benchmark.sampleTimes.size()
+                + ", vision measurements: " + benchmark.visionCount);
+        if (benchmark.sampleTimes.isEmpty()) {
+            System.err.println("No odometry samples found in " + args[0]);
+            System.exit(1);
+        }
+
+        SwerveDriveKinematics kinematics = new SwerveDriveKinematics(DriveBase.getModuleTranslations());
+        Pose2d[] wpilibPoses = benchmark.run("WPILib", runs,
+                (gyroAngle, positions, pose) -> new WpilibSwervePoseEstimator(kinematics, gyroAngle, positions,
+                        pose, STATE_STD_DEVS));
+        Pose2d[] fastPoses = benchmark.run("Fast", runs,
+                (gyroAngle, positions, pose) -> new FastSwervePoseEstimator(DriveBase.getModuleTranslations(),
+                        gyroAngle, positions, pose, STATE_STD_DEVS));
+
+        double maxMeters = 0, maxRadians = 0;
+        for (int i = 0; i < wpilibPoses.length; i++) {
+            maxMeters = Math.max(maxMeters,
+                    wpilibPoses[i].getTranslation().getDistance(fastPoses[i].getTranslation()));
+            maxRadians = Math.max(maxRadians,
+                    Math.abs(wpilibPoses[i].getRotation().minus(fastPoses[i].getRotation()).getRadians()));
+        }
+        System.out.printf("Max difference: %.4f m, %.5f rad%n", maxMeters, maxRadians);
+    }
+
+    // ========================= Object Level ==================================
+
+    private final List<Loop> loops = new ArrayList<>();
+    private final List<Double> sampleTimes = new ArrayList<>();
+    private final List<Rotation2d> sampleYaws = new ArrayList<>();
+    private final List<SwerveModulePosition[]> samplePositions = new ArrayList<>();
+    private int visionCount;
+
+    // Decoding state, the latest value of each entry.
+    private final Map<Integer, String> entries = new HashMap<>();
+    private final double[][] moduleTimes = new double[MODULE_COUNT][];
+    private final double[][] moduleDrivePositions = new double[MODULE_COUNT][];
+    private final Rotation2d[][] moduleSteerPositions = new Rotation2d[MODULE_COUNT][];
+    private final Rotation2d[] cancoderOffsets = new Rotation2d[MODULE_COUNT];
+    private final Rotation2d[] steerPositions = new Rotation2d[MODULE_COUNT];
+    private final Rotation2d[] turnRelativeOffsets = new Rotation2d[MODULE_COUNT];
+    private Rotation2d[] gyroSamples = new Rotation2d[0];
+    private Rotation2d gyroYaw = new Rotation2d();
+    private boolean hasNewSamples;
+    // Per camera, this loop's filter outputs.
+    private final Map<String, Pose2d[]> cameraPoses = new TreeMap<>();
+    private final Map<String, double[]> cameraTimestamps = new TreeMap<>();
+    private final Map<String, double[]> cameraStdDevs = new TreeMap<>();
+
+    private PoseEstimatorBenchmark(String path) throws IOException {
+        DataLogReader reader = new DataLogReader(path);
+        if (!reader.isValid()) {
+            throw new IOException("Not a WPILOG file: " + path);
+        }
+        long loopTimestamp = Long.MIN_VALUE;
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                entries.put(start.entry, start.name);
+                continue;
+            }
+            if (record.isControl()) {
+                continue;
+            }
+            // Every value of a loop is logged with the loop's timestamp.
+            if (record.getTimestamp() != loopTimestamp) {
+                endLoop();
+                loopTimestamp = record.getTimestamp();
+            }
+            String name = entries.get(record.getEntry());
+            if (name != null) {
+                decode(name, record);
+            }
+        }
+        endLoop();
+    }
+
+    /**
+     * Runs the whole recording through an estimator, {@link #WARMUP_RUNS} times
+     * untimed then {@code runs} times timed.
+     *
+     * @return The estimate after each loop, from the last run.
+     */
+    private Pose2d[] run(String name, int runs, Factory factory) {
+        Pose2d[] estimates = new Pose2d[loops.size()];
+        long odometryNanos = 0, visionNanos = 0;
+        for (int run = -WARMUP_RUNS; run < runs; run++) {
+            SwervePoseEstimator estimator = factory.create(sampleYaws.get(0), samplePositions.get(0),
+                    new Pose2d(0, 0, sampleYaws.get(0)));
+            long runOdometryNanos = 0, runVisionNanos = 0;
+            for (int i = 0; i < loops.size(); i++) {
+                Loop loop = loops.get(i);
+                long start = System.nanoTime();
+                for (int sample = loop.firstSample; sample < loop.firstSample + loop.sampleCount; sample++) {
+                    estimator.updateWithTime(sampleTimes.get(sample), sampleYaws.get(sample),
+                            samplePositions.get(sample));
+                }
+                long middle = System.nanoTime();
+                if (loop.poses.length > 0) {
+                    estimator.addVisionMeasurements(loop.poses, loop.timestamps, loop.stdDevs, loop.poses.length);
+                }
+                long end = System.nanoTime();
+                runOdometryNanos += middle - start;
+                runVisionNanos += end - middle;
+                estimates[i] = estimator.getEstimatedPosition();
+            }
+            if (run >= 0) {
+                odometryNanos += runOdometryNanos;
+                visionNanos += runVisionNanos;
+            }
+        }
+        System.out.printf("%s: %.0f ns per odometry sample, %.0f ns per vision measurement, %.2f ms per run%n",
+                name,
+                (double) odometryNanos / runs / sampleTimes.size(),
+                visionCount == 0 ? 0.0 : (double) visionNanos / runs / visionCount,
+                (odometryNanos + visionNanos) / 1e6 / runs);
+        return estimates;
+    }
+
+    // ========================= Helper Methods ================================
+
+    private void decode(String name, DataLogRecord record) {
+        for (int module = 0; module < MODULE_COUNT; module++) {
+            String prefix = "Drive/Module" + module + "/";
+            if (name.endsWith(prefix + "odometryTimestamps")) {
+                moduleTimes[module] = record.getDoubleArray();
+                hasNewSamples |= module == 0;
+            } else if (name.endsWith(prefix + "odometryDrivePositionsRad")) {
+                moduleDrivePositions[module] = record.getDoubleArray();
+            } else if (name.endsWith(prefix + "odometrySteerPositions")) {
+                moduleSteerPositions[module] = getRotations(record.getRaw());
+            } else if (name.endsWith(prefix + "cancoderOffsetPosition")) {
+                cancoderOffsets[module] = getRotations(record.getRaw())[0];
+            } else if (name.endsWith(prefix + "steerMotorPosition")) {
+                steerPositions[module] = getRotations(record.getRaw())[0];
+            }
+        }
+        if (name.endsWith("Drive/Gyro/odometryYawPositions")) {
+            gyroSamples = getRotations(record.getRaw());
+        } else if (name.endsWith("Drive/Gyro/yawPosition")) {
+            gyroYaw = getRotations(record.getRaw())[0];
+        } else if (name.contains("Vision/") && name.endsWith("/Filter/Poses")) {
+            cameraPoses.put(getCamera(name), getPoses(record.getRaw()));
+        } else if (name.contains("Vision/") && name.endsWith("/Filter/Timestamps")) {
+            cameraTimestamps.put(getCamera(name), record.getDoubleArray());
+        } else if (name.contains("Vision/") && name.endsWith("/Filter/StdDevs")) {
+            cameraStdDevs.put(getCamera(name), record.getDoubleArray());
+        }
+    }
+
+    /** Turns the values decoded for a loop into what the robot gave the estimator. */
+    private void endLoop() {
+        Loop loop = new Loop();
+        loop.firstSample = sampleTimes.size();
+
+        for (int module = 0; module < MODULE_COUNT; module++) {
+            // The same as IndexedSwerveModule.
+            if (turnRelativeOffsets[module] == null && cancoderOffsets[module] != null
+                    && steerPositions[module] != null && cancoderOffsets[module].getRadians() != 0.0) {
+                turnRelativeOffsets[module] = cancoderOffsets[module].minus(steerPositions[module]);
+            }
+        }
+        if (hasNewSamples && isOdometryComplete()) {
+            double wheelRadius = CONSTANTS.getWheelRadius().in(Meters);
+            for (int sample = 0; sample < moduleTimes[0].length; sample++) {
+                SwerveModulePosition[] positions = new SwerveModulePosition[MODULE_COUNT];
+                for (int module = 0; module < MODULE_COUNT; module++) {
+                    int index = Math.min(sample, moduleDrivePositions[module].length - 1);
+                    positions[module] = new SwerveModulePosition(
+                            moduleDrivePositions[module][index] * wheelRadius,
+                            turnRelativeOffsets[module] == null ? new Rotation2d()
+                                    : moduleSteerPositions[module][Math.min(index,
+                                            moduleSteerPositions[module].length - 1)]
+                                            .plus(turnRelativeOffsets[module]));
+                }
+                sampleTimes.add(moduleTimes[0][sample]);
+                sampleYaws.add(sample < gyroSamples.length ? gyroSamples[sample] : gyroYaw);
+                samplePositions.add(positions);
+            }
+        }
+        loop.sampleCount = sampleTimes.size() - loop.firstSample;
+        hasNewSamples = false;
+
+        List<Pose2d> poses = new ArrayList<>();
+        List<double[]> stdDevs = new ArrayList<>();
+        List<Double> timestamps = new ArrayList<>();
+        for (Map.Entry<String, Pose2d[]> camera : cameraPoses.entrySet()) {
+            double[] cameraTimes = cameraTimestamps.get(camera.getKey());
+            double[] cameraDevs = cameraStdDevs.get(camera.getKey());
+            Pose2d[] cameraFrames = camera.getValue();
+            if (cameraTimes == null || cameraDevs == null) {
+                continue;
+            }
+            for (int i = 0; i < cameraFrames.length && i < cameraTimes.length && 3 * i + 2 < cameraDevs.length;
+                    i++) {
+                poses.add(cameraFrames[i]);
+                timestamps.add(cameraTimes[i]);
+                stdDevs.add(new double[] { cameraDevs[3 * i], cameraDevs[3 * i + 1], cameraDevs[3 * i + 2] });
+            }
+        }
+        // Only logged when they change, a camera without new frames logs nothing.
+        cameraPoses.clear();
+
+        // The estimators are created from the first sample, skip loops before it.
+        if (sampleTimes.isEmpty()) {
+            return;
+        }
+        loop.poses = poses.toArray(new Pose2d[0]);
+        loop.stdDevs = stdDevs.toArray(new double[0][]);
+        loop.timestamps = new double[timestamps.size()];
+        for (int i = 0; i < loop.timestamps.length; i++) {
+            loop.timestamps[i] = timestamps.get(i);
+        }
+        visionCount += loop.poses.length;
+        loops.add(loop);
+    }
+
+    private boolean isOdometryComplete() {
+        for (int module = 0; module < MODULE_COUNT; module++) {
+            if (moduleTimes[module] == null || moduleDrivePositions[module] == null
+                    || moduleSteerPositions[module] == null || moduleDrivePositions[module].length == 0
+                    || moduleSteerPositions[module].length == 0) {
+                return false;
+            }
+        }
+        return moduleTimes[0].length > 0;
+    }
+
+    private static String getCamera(String name) {
+        int start = name.indexOf("Vision/") + "Vision/".length();
+        return name.substring(start, name.indexOf('/', start));
+    }
+
+    /** Decodes a Rotation2d struct (array), one double in Radians each. */
+    private static Rotation2d[] getRotations(byte[] raw) {
+        ByteBuffer buffer = ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN);
+        Rotation2d[] rotations = new Rotation2d[raw.length / Double.BYTES];
+        for (int i = 0; i < rotations.length; i++) {
+            rotations[i] = new Rotation2d(buffer.getDouble());
+        }
+        return rotations;
+    }
+
+    /** Decodes a Pose2d struct array: X & Y in Meters, rotation in Radians. */
+    private static Pose2d[] getPoses(byte[] raw) {
+        ByteBuffer buffer = ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN);
+        Pose2d[] poses = new Pose2d[raw.length / (3 * Double.BYTES)];
+        for (int i = 0; i < poses.length; i++) {
+            poses[i] = new Pose2d(buffer.getDouble(), buffer.getDouble(), new Rotation2d(buffer.getDouble()));
+        }
+        return poses;
+    }
+}
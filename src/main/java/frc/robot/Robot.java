@@ -2,6 +2,8 @@ package frc.robot;
 
 import static frc.robot.constants.AbstractConstants.CONSTANTS;
 
+import java.lang.management.ManagementFactory;
+
 import org.littletonrobotics.junction.LogFileUtil;
 import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
@@ -9,8 +11,11 @@ import org.littletonrobotics.junction.networktables.NT4Publisher;
 import org.littletonrobotics.junction.wpilog.WPILOGReader;
 import org.littletonrobotics.junction.wpilog.WPILOGWriter;
 
+import edu.wpi.first.wpilibj.Threads;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.util.BackgroundExecutor;
+import frc.robot.util.RateScheduler;
 
 /**
  * The VM is configured to automatically run this class, and to call the
@@ -23,8 +28,17 @@ import edu.wpi.first.wpilibj2.command.CommandScheduler;
  */
 public class Robot extends LoggedRobot {
 
+    /**
+     * When set (e.g. {@code -Dfrc.robot.cdsTrainingLoops=50}), the robot exits
+     * after this many loops so the JVM can write its class data sharing archive.
+     * See the "Class Data Sharing" section of build.gradle.
+     */
+    private static final String CDS_TRAINING_LOOPS_PROPERTY = "frc.robot.cdsTrainingLoops";
+
     private Command autonomousCommand;
     private RobotContainer robotContainer;
+    private boolean isStartupTimeLogged = false;
+    private int cdsTrainingLoopsRemaining = Integer.getInteger(CDS_TRAINING_LOOPS_PROPERTY, 0);
 
     /**
      * This function is run when the robot is first started up and should be used
@@ -79,7 +93,41 @@ public class Robot extends LoggedRobot {
         // finished or interrupted commands, and running subsystem periodic() methods.
         // This must be called from the robot's periodic block in order for anything in
         // the Command-based framework to work.
+        // Controls run at real-time priority, so slower threads (logging, network
+        // tables, background work) can't delay them. Only the odometry thread is
+        // higher.
+        if (isReal()) {
+            Threads.setCurrentThreadPriority(true, CONSTANTS.getMainLoopThreadPriority());
+        }
         CommandScheduler.getInstance().run();
+        RateScheduler.run();
+        if (isReal()) {
+            Threads.setCurrentThreadPriority(false, 0);
+        }
+        BackgroundExecutor.logStatus();
+
+        if (!isStartupTimeLogged) {
+            logStartupTime();
+        }
+        if (cdsTrainingLoopsRemaining > 0 && --cdsTrainingLoopsRemaining == 0) {
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Logs the time from JVM start to the first {@link #robotPeriodic()}, which is
+     * our measure of cold start time (see the benchmarkStartupSim task in
+     * build.gradle).
+     */
+    private void logStartupTime() {
+        isStartupTimeLogged = true;
+        double seconds = ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0;
+        Logger.recordOutput("Startup/JvmStartToFirstPeriodicSeconds", seconds);
+        // The startup benchmark runs in simulation, where the log only goes to
+        // NetworkTables and the robot exits right after, so it is printed too.
+        if (System.getProperty(CDS_TRAINING_LOOPS_PROPERTY) != null) {
+            System.out.println("Startup: JVM start to first robotPeriodic = " + seconds + "s");
+        }
     }
 
     /** This function is called once when the robot is disabled. */
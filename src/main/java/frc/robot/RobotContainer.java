@@ -2,16 +2,18 @@ package frc.robot;
 
 import static frc.robot.constants.AbstractConstants.CONSTANTS;
 
+import java.util.function.Supplier;
+
 import org.littletonrobotics.junction.networktables.LoggedDashboardChooser;
 
 import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.auto.NamedCommands;
 
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.event.EventLoop;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
-import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
 import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
@@ -22,7 +24,6 @@ import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.commands.DriveCommands;
 import frc.robot.commands.LedCommands;
 import frc.robot.commands.ShooterCommands;
-import frc.robot.commands.ShooterCommands.IntakeCommand;
 import frc.robot.subsystems.base.DriveBase;
 import frc.robot.subsystems.base.DriveBase.WheelModuleIndex;
 import frc.robot.subsystems.climber.Climber;
@@ -30,19 +31,30 @@ import frc.robot.subsystems.climber.Traverser;
 import frc.robot.subsystems.gyro.GyroIoPigeon2;
 import frc.robot.subsystems.gyro.GyroIoSimAndReplay;
 import frc.robot.subsystems.led.Leds;
+import frc.robot.subsystems.led.Leds.Layer;
+import frc.robot.subsystems.power.EnergyAccountant;
+import frc.robot.subsystems.power.PowerManager;
+import frc.robot.subsystems.power.PowerManager.Consumer;
 import frc.robot.subsystems.shooter.Aimer;
 import frc.robot.subsystems.shooter.Feeder;
 import frc.robot.subsystems.shooter.Flywheel;
 import frc.robot.subsystems.shooter.Intake;
 import frc.robot.subsystems.shooter.NoteSensor;
+import frc.robot.subsystems.shooter.Superstructure;
 import frc.robot.subsystems.single_motor.SingleMotorIoNeo550Brushless;
 import frc.robot.subsystems.single_motor.SingleMotorIoReplay;
 import frc.robot.subsystems.swerve_module.SwerveModuleIoReplay;
 import frc.robot.subsystems.swerve_module.SwerveModuleIoSim;
 import frc.robot.subsystems.swerve_module.SwerveModuleIoTalonFx;
+import frc.robot.subsystems.vision.NoteDetectorIoLimelight;
+import frc.robot.subsystems.vision.NoteDetectorIoSimAndReplay;
+import frc.robot.subsystems.vision.NoteTracker;
 import frc.robot.subsystems.vision.Vision;
 import frc.robot.subsystems.vision.VisionIoLimelight;
 import frc.robot.subsystems.vision.VisionIoSimAndReplay;
+import frc.robot.util.DeviceConfigurator;
+import frc.robot.util.OdometryThread;
+import frc.robot.util.RateScheduler;
 
 /**
  * This class is where the bulk of the robot should be declared. Since
@@ -73,9 +85,13 @@ public class RobotContainer {
     private final Feeder feeder;
     private final Flywheel flywheel;
     private final Intake intake;
+    private final Superstructure superstructure;
     private final Leds leds;
     private final Vision vision;
+    private final NoteTracker noteTracker;
     private final Traverser traverser;
+    private final PowerManager powerManager;
+    private final EnergyAccountant energyAccountant;
 
     /**
      * The container for the robot. Contains subsystems, OI devices, and commands.
@@ -105,9 +121,14 @@ public class RobotContainer {
                                 1.0 / 11000)) // TODO - Constants
                         : null;
                 vision = CONSTANTS.hasVisionSubsystem()
-                        ? new Vision(driveBase.poseEstimator,
-                                new VisionIoLimelight(CONSTANTS.getCameraName(), driveBase::getSpeed),
-                                new VisionIoLimelight("limelight-back", driveBase::getSpeed))
+                        ? new Vision(driveBase.poseEstimator, driveBase.getPoseHistory(),
+                                driveBase::getOdometryStdDevScale, driveBase::isRecoveringFromCollision,
+                                new VisionIoLimelight(CONSTANTS.getCameraName()),
+                                new VisionIoLimelight("limelight-back"))
+                        : null;
+                noteTracker = CONSTANTS.hasNoteTrackerSubsystem()
+                        ? new NoteTracker(driveBase.getPoseHistory(), new NoteDetectorIoLimelight(
+                                CONSTANTS.getNoteCameraName(), CONSTANTS.getNoteDetectorPipeline()))
                         : null;
                 traverser = CONSTANTS.hasTraverserSubsystem()
                         ? new Traverser(new SingleMotorIoNeo550Brushless(CONSTANTS.getTraverserMotorId(),
@@ -135,7 +156,14 @@ public class RobotContainer {
                                 CONSTANTS.isIntakeMortorInverted(), 0, 0, 0, 1)) // TODO constants
                         : null;
                 vision = CONSTANTS.hasVisionSubsystem()
-                        ? new Vision(driveBase.poseEstimator, new VisionIoSimAndReplay())
+                        ? new Vision(driveBase.poseEstimator, driveBase.getPoseHistory(),
+                                driveBase::getOdometryStdDevScale, driveBase::isRecoveringFromCollision,
+                                new VisionIoSimAndReplay(CONSTANTS.getCameraName()),
+                                new VisionIoSimAndReplay("limelight-back"))
+                        : null;
+                noteTracker = CONSTANTS.hasNoteTrackerSubsystem()
+                        ? new NoteTracker(driveBase.getPoseHistory(),
+                                new NoteDetectorIoSimAndReplay(CONSTANTS.getNoteCameraName()))
                         : null;
                 traverser = CONSTANTS.hasTraverserSubsystem()
                         ? new Traverser(new SingleMotorIoNeo550Brushless(CONSTANTS.getTraverserMotorId(),
@@ -155,7 +183,14 @@ public class RobotContainer {
                 feeder = CONSTANTS.hasFeederSubsystem() ? new Feeder(new SingleMotorIoReplay()) : null;
                 intake = CONSTANTS.hasIntakeSubsystem() ? new Intake(new SingleMotorIoReplay()) : null;
                 vision = CONSTANTS.hasVisionSubsystem()
-                        ? new Vision(driveBase.poseEstimator, new VisionIoSimAndReplay())
+                        ? new Vision(driveBase.poseEstimator, driveBase.getPoseHistory(),
+                                driveBase::getOdometryStdDevScale, driveBase::isRecoveringFromCollision,
+                                new VisionIoSimAndReplay(CONSTANTS.getCameraName()),
+                                new VisionIoSimAndReplay("limelight-back"))
+                        : null;
+                noteTracker = CONSTANTS.hasNoteTrackerSubsystem()
+                        ? new NoteTracker(driveBase.getPoseHistory(),
+                                new NoteDetectorIoSimAndReplay(CONSTANTS.getNoteCameraName()))
                         : null;
                 traverser = CONSTANTS.hasTraverserSubsystem()
                         ? new Traverser(new SingleMotorIoReplay())
@@ -175,6 +210,10 @@ public class RobotContainer {
                 ? new NoteSensor(CONSTANTS.getLeftLimitSwitchChannel(), CONSTANTS.getRightLimitSwitchChannel())
                 : null;
         flywheel = CONSTANTS.hasFlywheelSubsystem() ? new Flywheel() : null;
+        superstructure = CONSTANTS.hasIntakeSubsystem() && CONSTANTS.hasFeederSubsystem()
+                && CONSTANTS.hasNoteSensorSubsystem()
+                        ? new Superstructure(intake, feeder, flywheel, aimer, noteSensor, driveBase)
+                        : null;
         /*
          * We can safely set LEDs even if there are no LEDs.
          * (The LED control hardware is built into the RoboRio and therfore always
@@ -182,6 +221,42 @@ public class RobotContainer {
          */
         leds = new Leds();
 
+        // Created last, so it sees every other subsystem's current for this loop.
+        powerManager = new PowerManager();
+        powerManager.register(Consumer.DRIVE, driveBase::getSupplyCurrent, driveBase::setPowerScale);
+        if (CONSTANTS.hasFlywheelSubsystem()) {
+            powerManager.register(Consumer.FLYWHEEL, flywheel::getSupplyCurrent, flywheel::setPowerScale);
+        }
+        if (CONSTANTS.hasIntakeSubsystem()) {
+            powerManager.register(Consumer.INTAKE, intake::getSupplyCurrent, intake::setPowerScale);
+        }
+        if (CONSTANTS.hasFeederSubsystem()) {
+            powerManager.register(Consumer.INTAKE, feeder::getSupplyCurrent, feeder::setPowerScale);
+        }
+        powerManager.register(Consumer.LEDS, leds::getEstimatedCurrent, leds::setPowerScale);
+
+        energyAccountant = new EnergyAccountant();
+        energyAccountant.register("Drive", driveBase::getSupplyCurrent);
+        if (CONSTANTS.hasFlywheelSubsystem()) {
+            energyAccountant.register("Shooter", flywheel::getSupplyCurrent);
+        }
+        if (CONSTANTS.hasAimerSubsystem()) {
+            energyAccountant.register("Shooter", aimer::getSupplyCurrent);
+        }
+        if (CONSTANTS.hasIntakeSubsystem()) {
+            energyAccountant.register("Intake", intake::getSupplyCurrent);
+        }
+        if (CONSTANTS.hasFeederSubsystem()) {
+            energyAccountant.register("Intake", feeder::getSupplyCurrent);
+        }
+        if (CONSTANTS.hasClimberSubsystem()) {
+            energyAccountant.register("Climber", climber::getSupplyCurrent);
+        }
+        if (CONSTANTS.hasTraverserSubsystem()) {
+            energyAccountant.register("Climber", traverser::getSupplyCurrent);
+        }
+        energyAccountant.register("Leds", leds::getEstimatedCurrent);
+
         // #endregion
 
         // #region: ==================== Default Commands & Triggers ===========
@@ -190,39 +265,54 @@ public class RobotContainer {
                 () -> -pilot.getRightX()));
         leds.setDefaultCommand(LedCommands.defaultLedCommand(leds));
         if (CONSTANTS.hasFlywheelSubsystem()) {
-            flywheel.setDefaultCommand(ShooterCommands.defaultFlywheelCommand(flywheel));
+            flywheel.setDefaultCommand(ShooterCommands.defaultFlywheelCommand(flywheel, superstructure));
         }
 
         // #endregion
 
         // #region: ---------- Configure Command Triggers ----------
+        if (CONSTANTS.hasNoteSensorSubsystem() && CONSTANTS.hasIntakeSubsystem() && CONSTANTS.hasFeederSubsystem()) {
+            // Stop from the limit switch interrupts, without waiting for the next loop.
+            noteSensor.addStopHook(intake::stopImmediately);
+            noteSensor.addStopHook(feeder::stopImmediately);
+            // Backup for the limit switches.
+            noteSensor.setContactDetection(feeder::isNoteContactDetected, feeder::isFreeRunning,
+                    feeder::isReversing);
+        }
         if (CONSTANTS.hasNoteSensorSubsystem() && CONSTANTS.hasFlywheelSubsystem() && CONSTANTS.hasAimerSubsystem()) {
-            Trigger aimed = new Trigger(aimer::atTarget).and(flywheel::atSpeed);
+            Trigger aimed = superstructure != null
+                    ? new Trigger(superstructure::isReadyToShoot)
+                    : new Trigger(aimer::atTarget).and(flywheel::atSpeed);
             new Trigger(noteSensor::isObjectDetected).and(aimed.negate())
-                    .whileTrue(leds.setColorCommand(Color.kGreen));
-            aimed.whileTrue(leds.setColorCommand(Color.kBlack));
+                    .whileTrue(leds.setColorCommand(Layer.STATUS, Color.kGreen));
+            aimed.whileTrue(leds.setColorCommand(Layer.STATUS, Color.kBlack));
         }
         // TODO: Add LED Trigger for Ready to Shoot.
         // #endregion
         // #region: ---------- Motor Overheat Triggers ----------
-        new Trigger(driveBase::isTemperatureTooHigh)
-                .whileTrue(driveBase.stopCommand()
-                        .alongWith(leds.setDynamicPatternCommand(CONSTANTS.OVERHEAT_EMERGENCY_PATTERN, false)));
+        // Hot motors derate themselves (see MotorThermalModel), these only alert the
+        // drivers. Temperatures change slowly, so are only checked a few times a
+        // second.
+        EventLoop thermalChecks = RateScheduler.createEventLoop(CONSTANTS.getThermalCheckFrequency());
+        Supplier<Command> overheatAlert = () -> leds.setDynamicPatternCommand(Layer.ALERT,
+                CONSTANTS.OVERHEAT_EMERGENCY_PATTERN, false);
+        new Trigger(thermalChecks, driveBase::isTemperatureTooHigh)
+                .whileTrue(overheatAlert.get());
         if (CONSTANTS.hasIntakeSubsystem() && CONSTANTS.hasFlywheelSubsystem()) {
-            new Trigger(flywheel::isTemperatureTooHigh).whileTrue(flywheel.stopCommand()
-                    .alongWith(leds.setDynamicPatternCommand(CONSTANTS.OVERHEAT_EMERGENCY_PATTERN, false)));
+            new Trigger(thermalChecks, flywheel::isTemperatureTooHigh)
+                    .whileTrue(overheatAlert.get());
         }
         if (CONSTANTS.hasIntakeSubsystem()) {
-            new Trigger(intake::isTemperatureTooHigh).whileTrue(intake.stopCommand()
-                    .alongWith(leds.setDynamicPatternCommand(CONSTANTS.OVERHEAT_EMERGENCY_PATTERN, false)));
+            new Trigger(thermalChecks, intake::isTemperatureTooHigh)
+                    .whileTrue(overheatAlert.get());
         }
         if (CONSTANTS.hasFeederSubsystem()) {
-            new Trigger(feeder::isTemperatureTooHigh).whileTrue(feeder.stopCommand()
-                    .alongWith(leds.setDynamicPatternCommand(CONSTANTS.OVERHEAT_EMERGENCY_PATTERN, false)));
+            new Trigger(thermalChecks, feeder::isTemperatureTooHigh)
+                    .whileTrue(overheatAlert.get());
         }
         if (CONSTANTS.hasTraverserSubsystem()) {
-            new Trigger(traverser::isTemperatureTooHigh).whileTrue(traverser.stopCommand()
-                    .alongWith(leds.setDynamicPatternCommand(CONSTANTS.OVERHEAT_EMERGENCY_PATTERN, false)));
+            new Trigger(thermalChecks, traverser::isTemperatureTooHigh)
+                    .whileTrue(overheatAlert.get());
         }
 
         // #endregion
@@ -230,25 +320,30 @@ public class RobotContainer {
         // #region: ==================== Autonomous ============================
         // ---------- Create Named Commands for use by Path Planner ----------
         NamedCommands.registerCommand("Spin 180", DriveCommands.spinCommand(driveBase, Rotation2d.fromDegrees(180), 1));
-        NamedCommands.registerCommand("StartIntake", new InstantCommand(() -> {
-            intake.start();
-            feeder.start();
-        }));
+        if (superstructure != null) {
+            // Keeps running while the path is followed, until the note is picked up.
+            NamedCommands.registerCommand("StartIntake", new InstantCommand(superstructure::startIntaking));
+        }
         if (CONSTANTS.hasFlywheelSubsystem()) {
-            NamedCommands.registerCommand("Spin Up Flywheel", ShooterCommands.spinUpFlywheelCommand(flywheel));
+            // With the superstructure the flywheels stay at speed for the following shots.
+            NamedCommands.registerCommand("Spin Up Flywheel", superstructure != null
+                    ? superstructure.spinUpCommand(flywheel)
+                    : ShooterCommands.spinUpFlywheelCommand(flywheel));
         }
 
         if (CONSTANTS.hasAimerSubsystem() && CONSTANTS.hasFlywheelSubsystem()) {
             Command aimAtSpeakerCommand = ShooterCommands.autoAimAtSpeakerCommand(driveBase, aimer);
             Command autoShootCommand;
             Command initialShootCommand;
-            if (CONSTANTS.hasFeederSubsystem() && CONSTANTS.hasNoteSensorSubsystem()) {
-                autoShootCommand = ShooterCommands.shootAutonomousCommand(feeder, noteSensor, intake);
-                initialShootCommand = ShooterCommands.shootAutonomousCommand(feeder, noteSensor, intake);
-                ShooterCommands.shootAutonomousCommand(feeder, noteSensor, intake);
+            Command delayedShootCommand;
+            if (superstructure != null) {
+                autoShootCommand = superstructure.shootCommand(true);
+                initialShootCommand = superstructure.shootCommand(false);
+                delayedShootCommand = superstructure.shootCommand(false);
             } else {
                 autoShootCommand = LedCommands.blinkCommand(leds, Color.kOrange);
                 initialShootCommand = LedCommands.blinkCommand(leds, Color.kOrange);
+                delayedShootCommand = LedCommands.blinkCommand(leds, Color.kOrange);
             }
             NamedCommands.registerCommand("Auto Shoot",
                     new SequentialCommandGroup(aimAtSpeakerCommand, autoShootCommand));
@@ -259,7 +354,7 @@ public class RobotContainer {
                     new ParallelDeadlineGroup(new WaitCommand(12),
                             aimer.setTargetAngleCommand(Rotation2d.fromDegrees(36.7))
                                     .andThen(new WaitUntilCommand(() -> aimer.atTarget()))
-                                    .andThen(ShooterCommands.shootAutonomousCommand(feeder, noteSensor, intake))));
+                                    .andThen(delayedShootCommand)));
         }
 
         // ---------- Set-up Autonomous Choices ----------
@@ -275,6 +370,13 @@ public class RobotContainer {
                 CONSTANTS::getSpeakerLocation));
         pilot.rightTrigger().whileTrue(DriveCommands.pointToAngleCommand(driveBase, pilot::getLeftY, pilot::getLeftX,
                 CONSTANTS.getSourceAngle()));
+        if (superstructure != null && CONSTANTS.hasFlywheelSubsystem()) {
+            // Fires by itself the first loop the robot, aimer & flywheels are all ready.
+            pilot.leftTrigger().and(noteSensor::isObjectDetected).whileTrue(superstructure.shootCommand(true));
+        }
+        if (superstructure != null) {
+            pilot.leftTrigger().onFalse(new InstantCommand(superstructure::cancelSpinUp));
+        }
         if (CONSTANTS.hasFlywheelSubsystem() && CONSTANTS.hasAimerSubsystem()) {
             pilot.leftTrigger().onFalse(flywheel.stopCommand().andThen(new WaitUntilCommand(1))
                     .andThen(aimer.setTargetAngleCommand(CONSTANTS.getAimerAngleRange().get_0())));
@@ -286,9 +388,9 @@ public class RobotContainer {
         if (CONSTANTS.hasIntakeSubsystem() && CONSTANTS.hasFeederSubsystem()/* && CONSTANTS.hasFlywheelSubsystem() */) {
             if (CONSTANTS.hasNoteSensorSubsystem()) {
                 coPilot.leftTrigger().and(noteSensor::isObjectNotDetected)
-                        .whileTrue(new ParallelCommandGroup(new IntakeCommand(intake, feeder)/*
-                                                                                              * , flywheel.stopCommand()
-                                                                                              */));
+                        .whileTrue(superstructure.intakeCommand());
+                // Clears a note the feeder's current sensed, but the robot does not have.
+                coPilot.x().onTrue(new InstantCommand(noteSensor::clearContact));
             }
             // coPilot.x().whileTrue(ShooterCommands.reverseShooterAndIntakeCommand(intake,
             // feeder, flywheel));
@@ -296,9 +398,9 @@ public class RobotContainer {
 
         if (CONSTANTS.hasFeederSubsystem() && CONSTANTS.hasFlywheelSubsystem()) {
 
-            if (CONSTANTS.hasNoteSensorSubsystem()) {
-                coPilot.rightTrigger()
-                        .onTrue(ShooterCommands.shootTeleopCommand(feeder, flywheel, intake, noteSensor));
+            if (superstructure != null) {
+                // Fires as soon as the flywheels & aimer are ready, for as long as it is held.
+                coPilot.rightTrigger().whileTrue(superstructure.shootCommand(false));
             }
             coPilot.a().whileTrue(ShooterCommands.reverseShooterCommand(flywheel, feeder, leds));
         }
@@ -330,6 +432,17 @@ public class RobotContainer {
         }
 
         // #endregion
+
+        // #region: ==================== Hardware Configuration ================
+        // Device configurations have been applying in the background while everything
+        // above was set up, wait for them to finish.
+        DeviceConfigurator.awaitAll();
+
+        // Start sampling odometry once the signal rates are set (does nothing without
+        // hardware).
+        OdometryThread.getInstance().start();
+
+        // #endregion
     }
 
     /**
@@ -1,7 +1,6 @@
 package frc.robot.commands;
 
 import static edu.wpi.first.units.Units.MetersPerSecond;
-import static edu.wpi.first.units.Units.RadiansPerSecond;
 import static frc.robot.constants.AbstractConstants.CONSTANTS;
 
 import java.util.function.DoubleSupplier;
@@ -10,7 +9,6 @@ import java.util.function.Supplier;
 import org.littletonrobotics.junction.Logger;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
@@ -25,11 +23,15 @@ import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import frc.robot.subsystems.base.DriveBase;
+import frc.robot.subsystems.base.HeadingController;
 import frc.robot.subsystems.shooter.Aimer;
 import frc.robot.subsystems.shooter.Flywheel;
 
 public class DriveCommands {
 
+    /** The shooter is on the back of the robot. */
+    private static final Rotation2d SHOOTER_FACING = Rotation2d.fromDegrees(180);
+
     /** Makes this class non-instantiable. */
     private DriveCommands() {
     }
@@ -55,6 +57,14 @@ public class DriveCommands {
                 : stickDirection.plus(Rotation2d.fromDegrees(180));
     }
 
+    /**
+     * @return The velocity in field relative terms, for either driving mode.
+     */
+    private static Translation2d toFieldRelative(DriveBase driveBase, double xVelocity, double yVelocity) {
+        Translation2d velocity = new Translation2d(xVelocity, yVelocity);
+        return CONSTANTS.isDrivingModeFieldRelative() ? velocity : velocity.rotateBy(driveBase.getRotation());
+    }
+
     public static class AutoAimDriveCommand extends Command {
         private final DriveBase driveBase;
         private final Flywheel flywheel;
@@ -64,8 +74,11 @@ public class DriveCommands {
         private final DoubleSupplier yVelocity;
         private final Supplier<Translation3d> target;
 
-        private final PIDController pid;
+        private final HeadingController headingController;
 
+        /**
+         * @param flywheel May be {@code null}, otherwise it is started while aiming.
+         */
         public AutoAimDriveCommand(DriveBase driveBase, Flywheel flywheel, Aimer aimer, DoubleSupplier xVelocity,
                 DoubleSupplier yVelocity,
                 Supplier<Translation3d> target) {
@@ -77,14 +90,17 @@ public class DriveCommands {
             this.yVelocity = yVelocity;
             this.target = target;
 
-            pid = new PIDController(CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond) / 90, 0, 0);
-            pid.setTolerance(1);
-            pid.enableContinuousInput(-180, 180);
+            headingController = driveBase.getHeadingController();
+
+            addRequirements(driveBase);
+            if (flywheel != null) {
+                addRequirements(flywheel);
+            }
         }
 
         @Override
         public void initialize() {
-            pid.setSetpoint(0);
+            headingController.reset(driveBase.getRotation(), driveBase.getYawVelocity());
 
             if (flywheel != null) {
                 flywheel.start();
@@ -99,27 +115,15 @@ public class DriveCommands {
             Translation2d linearVelocity = new Pose2d(new Translation2d(), linearDirection)
                     .transformBy(new Transform2d(linearMagnitude, 0.0, new Rotation2d())).getTranslation();
 
-            // Calculate omega velocity.
-            double degreesToTarget = driveBase.getRotationToTarget(target.get().toTranslation2d())
-                    .plus(Rotation2d.fromDegrees(180))
-                    .getDegrees();
-            /*
-             * Range:
-             * - If kd = 0: minimumInput * kp - ki <-> maximumInput * kp + ki.
-             * - If kd != 0: -Double.MAX_VALUE <-> Double.MAX_VALUE.
-             */
-            // We are inverting the direction because degreesToTarget is our "correction",
-            // but the PIDController wants our "position".
-            double omega = pid.calculate(-degreesToTarget);
-
-            omega = MathUtil.clamp(omega, // TODO: Use same units when calculating KP.
-                    -CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond),
-                    CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond));
-
             // Scale Velocities to between 0 and Max.
             double scaledXVelocity = linearVelocity.getX() * CONSTANTS.getMaxLinearSpeed().in(MetersPerSecond),
                     scaledYVelocity = linearVelocity.getY() * CONSTANTS.getMaxLinearSpeed().in(MetersPerSecond);
 
+            // Calculate omega velocity, turning with the target as the robot drives past it.
+            Translation2d fieldVelocity = toFieldRelative(driveBase, scaledXVelocity, scaledYVelocity);
+            double omega = headingController.calculateToTarget(driveBase.getPose(), target.get().toTranslation2d(),
+                    SHOOTER_FACING, fieldVelocity.getX(), fieldVelocity.getY());
+
             // Run Velocities.
             if (CONSTANTS.isDrivingModeFieldRelative()) {
                 driveBase.runVelocity(ChassisSpeeds.fromFieldRelativeSpeeds(scaledXVelocity, scaledYVelocity,
@@ -128,12 +132,13 @@ public class DriveCommands {
                 driveBase.runVelocity(new ChassisSpeeds(scaledXVelocity, scaledYVelocity, omega));
             }
 
-            aimer.aimAtTarget(target.get(), driveBase.getPose().getTranslation());
+            // Aim from where the robot will be when the aimer gets there.
+            aimer.aimAtTarget(target.get(),
+                    driveBase.getPredictedPose(CONSTANTS.getAimingLatency()).getTranslation());
 
             // TODO: Add Turning LEDs to Green, when close enough to shoot.
 
             // Log Calculated Values.
-            Logger.recordOutput("DriveCommands/autoAimAndManuallyDriveCommand/degreesToTarget", degreesToTarget);
             Logger.recordOutput("DriveCommands/autoAimAndManuallyDriveCommand/vxMetersPerSecond", scaledXVelocity);
             Logger.recordOutput("DriveCommands/autoAimAndManuallyDriveCommand/vyMetersPerSecond", scaledYVelocity);
             Logger.recordOutput("DriveCommands/autoAimAndManuallyDriveCommand/omegaRadiansPerSecond", omega);
@@ -141,31 +146,23 @@ public class DriveCommands {
 
         @Override
         public boolean isFinished() {
+            // Never stop, because this command will be used as a While True command.
             return false;
         }
-
-        @Override
-        public void end(boolean interrupted) {
-            pid.close();
-        }
     }
 
     public static Command pointToAngleCommand(DriveBase driveBase, DoubleSupplier xSupplier,
             DoubleSupplier ySupplier,
             double angle) {
 
-        Command aimingDrive = new Command() {
+        HeadingController headingController = driveBase.getHeadingController();
+        Rotation2d goalHeading = Rotation2d.fromDegrees(angle);
 
-            PIDController pid;
+        Command aimingDrive = new Command() {
 
             @Override
             public void initialize() {
-                // TODO: Use same units when calculating KP.
-                pid = new PIDController(CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond) /
-                        90 /* degrees */, 0, 0);
-                pid.setSetpoint(0); // Degrees from target.
-                pid.setTolerance(1/* degree(s) */);
-                pid.enableContinuousInput(-180, 180); // Degrees.
+                headingController.reset(driveBase.getRotation(), driveBase.getYawVelocity());
             }
 
             @Override
@@ -177,17 +174,7 @@ public class DriveCommands {
                         linearDirection)
                         .transformBy(new Transform2d(linearMagnitude, 0.0, new Rotation2d())).getTranslation();
 
-                // * - If kd = 0: minimumInput * kp - ki <-> maximumInput * kp + ki.
-                // * - If kd != 0: -Double.MAX_VALUE <-> Double.MAX_VALUE.
-                // */
-                // We are inverting the direction because degreesToTarget is our
-                // "correction",
-                // but the PIDController wants our "position".
-                double omega = pid.calculate(angle);
-
-                omega = MathUtil.clamp(omega,
-                        -CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond),
-                        CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond));
+                double omega = headingController.calculate(driveBase.getRotation(), goalHeading);
 
                 // Scale Velocities to between 0 and Max.
                 double scaledXVelocity = linearVelocity.getX() *
@@ -219,13 +206,7 @@ public class DriveCommands {
                 return false;
             }
 
-            @Override
-            public void end(boolean interrupted) {
-                // No need to tell the motors to stop, because the default command will kickin.
-                // if it has not been given a command for a X second(s).
-                pid.close();
-            }
-
+            // No need to tell the motors to stop, because the default command will kick in.
         };
         aimingDrive.addRequirements(driveBase);
         return aimingDrive;
@@ -237,88 +218,8 @@ public class DriveCommands {
             DoubleSupplier xSupplier,
             DoubleSupplier ySupplier,
             Supplier<Translation3d> target) {
-
-        Command aimingDrive = new Command() {
-
-            PIDController pid;
-
-            @Override
-            public void initialize() {
-                // TODO: Use same units when calculating KP.
-                pid = new PIDController(CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond) / 90 /* degrees */, 0, 0);
-                pid.setSetpoint(0); // Degrees from target.
-                pid.setTolerance(1/* degree(s) */);
-                pid.enableContinuousInput(-180, 180); // Degrees.
-                if (CONSTANTS.hasFlywheelSubsystem())
-                    flywheel.start();
-            }
-
-            @Override
-            public void execute() {
-                double linearMagnitude = calculateLinearMagnitude(xSupplier, ySupplier);
-                // Calcaulate new linear velocity.
-                Rotation2d linearDirection = calculateLinearDirection(xSupplier, ySupplier);
-                Translation2d linearVelocity = new Pose2d(new Translation2d(), linearDirection)
-                        .transformBy(new Transform2d(linearMagnitude, 0.0, new Rotation2d())).getTranslation();
-
-                // Calculate omega velocity.
-                double degreesToTarget = driveBase.getRotationToTarget(target.get().toTranslation2d())
-                        .plus(Rotation2d.fromDegrees(180))
-                        .getDegrees();
-                /*
-                 * Range:
-                 * - If kd = 0: minimumInput * kp - ki <-> maximumInput * kp + ki.
-                 * - If kd != 0: -Double.MAX_VALUE <-> Double.MAX_VALUE.
-                 */
-                // We are inverting the direction because degreesToTarget is our "correction",
-                // but the PIDController wants our "position".
-                double omega = pid.calculate(-degreesToTarget);
-
-                omega = MathUtil.clamp(omega, // TODO: Use same units when calculating KP.
-                        -CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond),
-                        CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond));
-
-                // Scale Velocities to between 0 and Max.
-                double scaledXVelocity = linearVelocity.getX() * CONSTANTS.getMaxLinearSpeed().in(MetersPerSecond),
-                        scaledYVelocity = linearVelocity.getY() * CONSTANTS.getMaxLinearSpeed().in(MetersPerSecond);
-
-                // Run Velocities.
-                if (CONSTANTS.isDrivingModeFieldRelative()) {
-                    driveBase.runVelocity(ChassisSpeeds.fromFieldRelativeSpeeds(scaledXVelocity, scaledYVelocity,
-                            omega, driveBase.getRotation()));
-                } else {
-                    driveBase.runVelocity(new ChassisSpeeds(scaledXVelocity, scaledYVelocity, omega));
-                }
-
-                aimer.aimAtTarget(target.get(), driveBase.getPose().getTranslation());
-
-                // TODO: Add Turning LEDs to Green, when close enough to shoot.
-
-                // Log Calculated Values.
-                Logger.recordOutput("DriveCommands/autoAimAndManuallyDriveCommand/degreesToTarget", degreesToTarget);
-                Logger.recordOutput("DriveCommands/autoAimAndManuallyDriveCommand/vxMetersPerSecond", scaledXVelocity);
-                Logger.recordOutput("DriveCommands/autoAimAndManuallyDriveCommand/vyMetersPerSecond", scaledYVelocity);
-                Logger.recordOutput("DriveCommands/autoAimAndManuallyDriveCommand/omegaRadiansPerSecond", omega);
-            }
-
-            @Override
-            public boolean isFinished() {
-                // Never stop, because this command will be used as a While True command.
-                return false;
-            }
-
-            @Override
-            public void end(boolean interrupted) {
-                // No need to tell the motors to stop, because the default command will kick in.
-                // if it has not been given a command for a X second(s).
-                pid.close();
-            }
-
-        };
-        aimingDrive.addRequirements(driveBase);
-        if (CONSTANTS.hasFlywheelSubsystem())
-            aimingDrive.addRequirements(flywheel);
-        return aimingDrive;
+        return new AutoAimDriveCommand(driveBase, CONSTANTS.hasFlywheelSubsystem() ? flywheel : null, aimer,
+                xSupplier, ySupplier, target);
     }
 
     public static Command manualDriveDefaultCommand(DriveBase driveBase,
@@ -372,6 +273,8 @@ public class DriveCommands {
             throw new RuntimeException("Robot cannot spin because velocity is negative or zero:  " + speed);
         }
 
+        HeadingController headingController = driveBase.getHeadingController();
+
         Command spinCommand = new Command() {
 
             private Rotation2d targetRotation;
@@ -380,29 +283,22 @@ public class DriveCommands {
             public void initialize() {
                 Rotation2d startingRotation = driveBase.getRotation();
                 targetRotation = startingRotation.plus(rotationAmount);
+                headingController.reset(startingRotation, driveBase.getYawVelocity());
             }
 
             @Override
             public void execute() {
-
-                Rotation2d current = driveBase.getRotation();
-                double delta = targetRotation.minus(current).getDegrees();
-
-                double rampOmega = Math.max(Math.min(Math.abs(delta) / 50 /* degrees */, 1.0), .01);
-                double omega = Math.copySign(speed, delta) * rampOmega;
+                double omega = MathUtil.clamp(headingController.calculate(driveBase.getRotation(), targetRotation),
+                        -speed, speed);
 
                 driveBase.runVelocity(new ChassisSpeeds(0, 0, omega));
 
-                Logger.recordOutput("DriveCommands/spinCommand/delta", delta);
-                Logger.recordOutput("DriveCommands/spinCommand/rampOmega", rampOmega);
                 Logger.recordOutput("DriveCommands/spinCommand/omega", omega);
             }
 
             @Override
             public boolean isFinished() {
-                Rotation2d current = driveBase.getRotation();
-                double delta = targetRotation.minus(current).getDegrees();
-                return Math.abs(delta) < .5 /* degrees */;
+                return headingController.atGoal();
             }
 
             @Override
@@ -429,37 +325,41 @@ public class DriveCommands {
 
     public static Command turnToTargetCommand(DriveBase driveBase, Supplier<Translation3d> target, double speed) {
 
-        Command spinCommand = new Command() {
+        if (speed <= 0) {
+            throw new RuntimeException("Robot cannot spin because velocity is negative or zero:  " + speed);
+        }
 
-            private Command spinCommand;
+        HeadingController headingController = driveBase.getHeadingController();
+
+        Command turnCommand = new Command() {
 
             @Override
             public void initialize() {
-                // Rotating plus 180 degrees to postion the back of the robot to the target.
-                Rotation2d rotation = driveBase.getRotationToTarget(target.get().toTranslation2d())
-                        .plus(Rotation2d.fromDegrees(180));
-                spinCommand = spinCommand(driveBase, rotation, speed);
-                spinCommand.initialize();
+                headingController.reset(driveBase.getRotation(), driveBase.getYawVelocity());
             }
 
             @Override
             public void execute() {
-                spinCommand.execute();
+                // Positions the back of the robot to the target.
+                double omega = MathUtil.clamp(headingController.calculateToTarget(driveBase.getPose(),
+                        target.get().toTranslation2d(), SHOOTER_FACING, 0, 0), -speed, speed);
+
+                driveBase.runVelocity(new ChassisSpeeds(0, 0, omega));
             }
 
             @Override
             public boolean isFinished() {
-                return spinCommand.isFinished();
+                return headingController.atGoal();
             }
 
             @Override
             public void end(boolean interrupted) {
-                spinCommand.end(interrupted);
+                driveBase.stop();
             }
         };
 
-        spinCommand.addRequirements(driveBase);
+        turnCommand.addRequirements(driveBase);
 
-        return spinCommand;
+        return turnCommand;
     }
-}
\ No newline at end of file
+}
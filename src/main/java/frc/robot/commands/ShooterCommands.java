@@ -7,10 +7,7 @@ import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
-import edu.wpi.first.wpilibj2.command.ParallelRaceGroup;
-import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.StartEndCommand;
-import edu.wpi.first.wpilibj2.command.WaitCommand;
 import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
 import frc.robot.subsystems.base.DriveBase;
 import frc.robot.subsystems.led.Leds;
@@ -19,58 +16,51 @@ import frc.robot.subsystems.shooter.Feeder;
 import frc.robot.subsystems.shooter.Flywheel;
 import frc.robot.subsystems.shooter.Intake;
 import frc.robot.subsystems.shooter.NoteSensor;
+import frc.robot.subsystems.shooter.Superstructure;
 
 public class ShooterCommands {
-    public static class IntakeCommand extends Command {
-        private final Intake intake;
-        private final Feeder feeder;
-
-        public IntakeCommand(Intake intake, Feeder feeder) {
-            this.intake = intake;
-            this.feeder = feeder;
-            addRequirements(intake, feeder);
-        }
-
-        @Override
-        public void initialize() {
-            intake.start();
-            feeder.start();
-        }
-
-        @Override
-        public void end(boolean interrupted) {
-            intake.stop();
-            feeder.stop();
-        }
-    }
-
     /** Makes Class non-instantiable */
     private ShooterCommands() {
     }
 
     // ========================= Default Commands =========================
     public static Command defaultIntakeCommand(Intake intake, NoteSensor sensor) {
-        return Commands.run(() -> {
+        return Commands.runEnd(() -> {
             if (sensor.isObjectDetected()) {
                 intake.stop();
             } else {
                 intake.start();
+                sensor.armStop();
             }
-        }, intake);
+        }, sensor::disarmStop, intake);
     }
 
     public static Command defaultFeederCommand(Feeder feeder, NoteSensor sensor) {
-        return Commands.run(() -> {
+        return Commands.runEnd(() -> {
             if (sensor.isObjectDetected()) {
                 feeder.stop();
             } else {
                 feeder.start();
+                sensor.armStop();
             }
-        }, feeder);
+        }, sensor::disarmStop, feeder);
     }
 
-    public static Command defaultFlywheelCommand(Flywheel flywheel) {
-        return new SequentialCommandGroup(new WaitCommand(.25), flywheel.stopCommand());
+    /**
+     * Keeps the flywheels spinning while the superstructure is shooting or a spin
+     * up was requested, and stopped otherwise.
+     *
+     * @param superstructure May be {@code null}, the flywheels are then only
+     *                       stopped.
+     */
+    public static Command defaultFlywheelCommand(Flywheel flywheel, Superstructure superstructure) {
+        return Commands.run(() -> {
+            if (superstructure != null && superstructure.isFlywheelRequested()) {
+                flywheel.start();
+            } else {
+                flywheel.stop();
+            }
+        }, flywheel);
     }
 
     // ========================= Other Commands =========================
@@ -95,37 +85,8 @@ public class ShooterCommands {
         return reverseShooterCommand;
     }
 
-    public static Command shootAutonomousCommand(Feeder feeder, NoteSensor noteSensor, Intake intake) {
-
-        ParallelRaceGroup group = new ParallelRaceGroup(
-                new StartEndCommand(feeder::start, feeder::stop, feeder),
-                new StartEndCommand(intake::start, intake::stop, intake),
-                // TODO: May want to wait a little after the note is no longer sensed.
-                noteSensor.waitForNoObjectCommandSwitch(),
-                new WaitCommand(5));
-
-        return group;
-    }
-
-    public static Command shootTeleopCommand(Feeder feeder, Flywheel flywheel, Intake intake, NoteSensor noteSensor) {
-
-        // TODO: Have this run until the Co-Pilot stops pushing the button.
-        ParallelRaceGroup group = new ParallelRaceGroup(
-                new StartEndCommand(intake::start, intake::stop, intake),
-                new StartEndCommand(() -> feeder.setVelocity(11000), feeder::stop,
-                        feeder),
-                noteSensor.waitForNoObjectCommandSwitch(),
-                new WaitCommand(5));
-
-        // TODO: Spin up flywheelsm if not already spinning.
-        return group;
-    }
-
     public static Command spinUpFlywheelCommand(Flywheel flywheel) {
-        return new SequentialCommandGroup(
-                flywheel.startCommand(),
-                new WaitCommand(1) // TODO: Tune.
-        );
+        return flywheel.startCommand().andThen(new WaitUntilCommand(flywheel::atSpeed));
     }
 
     public static Command stopIntakeFeederCommand(Intake intake, Feeder feeder, Leds leds) {
@@ -145,7 +106,8 @@ public class ShooterCommands {
     public static Command autoAimAtSpeakerCommand(DriveBase driveBase, Aimer aimer) {
         return new ParallelCommandGroup(
                 DriveCommands.turnToTargetCommand(driveBase, CONSTANTS::getSpeakerLocation, 4.5), new InstantCommand(
-                        () -> aimer.aimAtTarget(CONSTANTS.getSpeakerLocation(), driveBase.getPose().getTranslation())))
+                        () -> aimer.aimAtTarget(CONSTANTS.getSpeakerLocation(),
+                                driveBase.getPredictedPose(CONSTANTS.getAimingLatency()).getTranslation())))
                 .andThen(new WaitUntilCommand(aimer::atTarget));
     }
 }
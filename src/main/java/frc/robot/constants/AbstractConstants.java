@@ -2,6 +2,7 @@ package frc.robot.constants;
 
 import static edu.wpi.first.units.Units.Celsius;
 import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.RadiansPerSecond;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -13,6 +14,8 @@ import org.opencv.core.Mat.Tuple2;
 
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.Angle;
@@ -24,6 +27,7 @@ import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.util.Color;
 import frc.robot.subsystems.base.DriveBase.WheelModuleIndex;
+import frc.robot.util.MotorThermalModel;
 
 public abstract class AbstractConstants {
 
@@ -187,6 +191,8 @@ public abstract class AbstractConstants {
 
     public abstract boolean hasVisionSubsystem();
 
+    public abstract boolean hasNoteTrackerSubsystem();
+
     // #endregion
 
     // #region: --------------- Driving Configurations -------------------------
@@ -197,6 +203,132 @@ public abstract class AbstractConstants {
     public abstract Measure<Velocity<Angle>> getMaxAngularSpeed();
 
     public abstract Measure<Velocity<Distance>> getMaxLinearSpeed();
+
+    // #region: ----- Pose Estimation -----
+    /**
+     * @return {@code true} to use the
+     *         {@link frc.robot.subsystems.base.FastSwervePoseEstimator
+     *         FastSwervePoseEstimator}, {@code false} for WPILib's.
+     */
+    public boolean useFastPoseEstimator() {
+        return false;
+    }
+
+    /**
+     * Runs the other estimator too, logging both's cost and how far apart they
+     * are. This is more work than either alone, so only turn it on to check the
+     * estimators on the robot; recorded logs can be compared off the robot with
+     * the benchmarkPoseEstimators Gradle task.
+     *
+     * @return {@code true} to run both estimators.
+     */
+    public boolean shouldShadowPoseEstimator() {
+        return false;
+    }
+
+    /**
+     * @return How far back vision measurements can be applied, and poses are
+     *         kept in the {@link frc.robot.subsystems.base.PoseHistory
+     *         PoseHistory}. Value in Seconds.
+     */
+    public double getPoseHistoryTime() {
+        return 1.5;
+    }
+
+    /**
+     * @return How long velocities from the pose history are averaged over. Value
+     *         in Seconds.
+     */
+    public double getPoseHistoryVelocityWindow() {
+        return 0.1;
+    }
+
+    // #endregion
+
+    // #region: ----- Slip Detection -----
+    /**
+     * A module moving this much faster or slower than the rest of the robot is
+     * slipping, and is left out of the odometry.
+     *
+     * @return Value in Meters per Second.
+     */
+    public double getSlipVelocityThreshold() {
+        return 0.5;
+    }
+
+    // #endregion
+
+    // #region: ----- Collision Detection -----
+    /**
+     * TODO: Tune from logged impacts.
+     *
+     * @return Change in acceleration that is an impact. Value in Meters per
+     *         Second³.
+     */
+    public double getCollisionJerkThreshold() {
+        return 300;
+    }
+
+    /**
+     * @return Disagreement of a module with the others that is an impact. Value
+     *         in Meters per Second.
+     */
+    public double getCollisionModuleResidualThreshold() {
+        return 1.5;
+    }
+
+    /**
+     * Well past what driving over the stage's edges or a note tilts the robot.
+     *
+     * @return Tilt from level that is tipping. Value in Radians.
+     */
+    public double getCollisionTiltThreshold() {
+        return Units.degreesToRadians(15);
+    }
+
+    /**
+     * Long enough for a few camera frames.
+     *
+     * @return How long the odometry is distrusted after an impact. Value in
+     *         Seconds.
+     */
+    public double getCollisionRecoveryTime() {
+        return 0.5;
+    }
+
+    /**
+     * @return How many times more uncertain the odometry is after an impact.
+     */
+    public double getCollisionOdometryStdDevScale() {
+        return 10;
+    }
+
+    // #endregion
+
+    // #region: ----- Heading Controller -----
+    /**
+     * @return Gains in Radians per Second, per Radian of error.
+     */
+    public PID getHeadingPid() {
+        // Same as the old gain of getMaxAngularSpeed() / 90 degrees.
+        return new PID(getMaxAngularSpeed().in(RadiansPerSecond) / Math.toRadians(90), 0, 0);
+    }
+
+    /**
+     * @return Value in Radians per Second per Second.
+     */
+    public double getHeadingMaxAcceleration() {
+        return 4 * Math.PI;
+    }
+
+    /**
+     * @return Value in Radians.
+     */
+    public double getHeadingTolerance() {
+        return Math.toRadians(1);
+    }
+
+    // #endregion
     // #endregion
 
     // #region: --------------- Game Objects -----------------------------------
@@ -224,6 +356,85 @@ public abstract class AbstractConstants {
         }
     }
 
+    // #region: ----- Note Contact Detection -----
+    /**
+     * @return Value as Amps above the free running current.
+     */
+    public double getNoteContactCurrentRiseAmps() {
+        return 6;
+    }
+
+    /**
+     * @return Fraction of the commanded velocity the roller must drop below.
+     */
+    public double getNoteContactVelocityRatio() {
+        return 0.85;
+    }
+
+    /**
+     * @return Number of loops in a row a contact must be seen.
+     */
+    public int getNoteContactDebounceLoops() {
+        return 2;
+    }
+
+    /**
+     * @return Number of loops ignored after the commanded velocity changes.
+     */
+    public int getNoteContactSettleLoops() {
+        return 10;
+    }
+
+    // #endregion
+
+    // #region: ----- Shot Readiness -----
+    /**
+     * @return Value in Degrees.
+     */
+    public double getShotAimerAngleTolerance() {
+        return 2;
+    }
+
+    /**
+     * @return Value in Degrees per Second.
+     */
+    public double getShotAimerVelocityTolerance() {
+        return 10;
+    }
+
+    /**
+     * @return Slowest each flywheel may spin for a shot. Value in Rotations per
+     *         Second.
+     */
+    public double getShotFlywheelVelocity() {
+        return 75;
+    }
+
+    /**
+     * @return How far the back of the robot may point away from the target. Value
+     *         in Degrees.
+     */
+    public double getShotHeadingTolerance() {
+        return 3;
+    }
+
+    /**
+     * @return Value in Radians per Second.
+     */
+    public double getShotAngularVelocityTolerance() {
+        return 0.2;
+    }
+
+    /**
+     * @return Number of extra loops every tolerance must be met for before
+     *         firing (0 fires on the first loop they are).
+     */
+    public int getShotHoldOffLoops() {
+        return 0;
+    }
+
+    // #endregion
+
     // #endregion
 
     // #region: --------------- Hardware ---------------------------------------
@@ -261,6 +472,15 @@ public abstract class AbstractConstants {
 
     public abstract PID getAimerPid();
 
+    /**
+     * TODO: Tune, from how long the aimer & heading take to respond.
+     *
+     * @return How far ahead of the latest pose to aim from. Value in Seconds.
+     */
+    public double getAimingLatency() {
+        return 0.1;
+    }
+
     // #endregion
 
     // #region: ----- Canivore -----
@@ -268,6 +488,13 @@ public abstract class AbstractConstants {
         return "1559Canivore";
     }
 
+    /**
+     * @return The name Phoenix uses for the roboRIO's built-in CAN Bus.
+     */
+    public static String getRioCanBusId() {
+        return "rio";
+    }
+
     // #endregion
 
     // #region: ----- Limit Switch -----
@@ -278,6 +505,14 @@ public abstract class AbstractConstants {
     public static int getRightLimitSwitchChannel() {
         return 5;
     }
+
+    /**
+     * @return {@code true} to react to the limit switches from interrupts, as soon
+     *         as they are pressed, instead of once per loop.
+     */
+    public boolean isNoteSensorInterruptDriven() {
+        return true;
+    }
     // #endregion
 
     // #region: ----- Feeder -----
@@ -291,6 +526,13 @@ public abstract class AbstractConstants {
 
     public abstract double getFeederReverseVelocity();
 
+    /**
+     * @return Feeder velocity used to push a note into the flywheels.
+     */
+    public double getFeederShootVelocity() {
+        return 11000;
+    }
+
     // #endregion
 
     // #region: ----- Flywheel -----
@@ -308,6 +550,22 @@ public abstract class AbstractConstants {
 
     public abstract double flywheelSpinOffset();
 
+    /**
+     * @return Longest a shot may take (from the feeder starting until the note has
+     *         left), before it is given up as jammed. Value in Seconds.
+     */
+    public double getShotTimeout() {
+        return 1.0;
+    }
+
+    /**
+     * @return Longest a spin up waits for the flywheels to reach speed (they may
+     *         not when derated or power limited), value in Seconds.
+     */
+    public double getFlywheelSpinUpTimeout() {
+        return 1.0;
+    }
+
     // #endregion
 
     // #region: ----- Gyro -----
@@ -315,6 +573,16 @@ public abstract class AbstractConstants {
         return uniqueCanBusId(12, getCanivoreId());
     }
 
+    /**
+     * Of the pitch, roll & acceleration. The yaw is sampled at
+     * {@link #getOdometryFrequency()}.
+     *
+     * @return Value in Times per Second.
+     */
+    public double getGyroFrequency() {
+        return 200;
+    }
+
     // #endregion
 
     // #region: ----- Intake -----
@@ -337,6 +605,21 @@ public abstract class AbstractConstants {
 
     public abstract int getLedLenth();
 
+    /**
+     * @return How fast scrolling patterns move, in LEDs per Second.
+     */
+    public double getLedFramesPerSecond() {
+        return 50.0 / 3.0;
+    }
+
+    /**
+     * @return Current drawn from the battery with every LED at full brightness.
+     *         Value in Amps.
+     */
+    public double getLedMaxCurrent() {
+        return 5;
+    }
+
     // #endregion
 
     // #region: ----- roboRIO -----
@@ -368,6 +651,38 @@ public abstract class AbstractConstants {
         return swerveModuleHardwareIds;
     }
 
+    /**
+     * @return Fastest a wheel's velocity may change, below where it slips. Value
+     *         in Meters per Second per Second.
+     */
+    public double getSwerveMaxAcceleration() {
+        return 8;
+    }
+
+    /**
+     * @return Fastest a module's setpoint may turn. Value in Radians per Second.
+     */
+    public double getSwerveMaxSteerVelocity() {
+        return 3 * Math.PI;
+    }
+
+    /**
+     * @return Drive motor current needed to accelerate one module's share of the
+     *         robot. Value in Amps per Meter per Second per Second.
+     */
+    public double getSwerveCurrentPerAcceleration() {
+        // ~55 kg robot, 2 inch wheels, 6.75:1 gearing, Falcon 500 Kt.
+        return 5.4;
+    }
+
+    /**
+     * @return Most current all the drive motors may draw to accelerate. Value in
+     *         Amps.
+     */
+    public double getSwerveAccelerationCurrentBudget() {
+        return 160;
+    }
+
     // #endregion
 
     // #region: ----- Traverser -----
@@ -387,12 +702,154 @@ public abstract class AbstractConstants {
     // #region: ----- Vision -----
     public abstract String getCameraName();
 
+    /**
+     * MegaTag2 solves with the robot's heading, so it is only as right as the
+     * heading is.
+     *
+     * @return {@code true} to use the Limelights' MegaTag2 poses, {@code false}
+     *         for MegaTag1's.
+     */
+    public boolean useMegaTag2() {
+        return true;
+    }
+
+    /**
+     * Chi-squared with as many degrees of freedom as the measurement has measured
+     * axes (2 for MegaTag2, which has no heading), 95% of consistent measurements
+     * are closer.
+     *
+     * @param degreesOfFreedom 1 to 3.
+     * @return Squared Mahalanobis distance up to which vision is used as is.
+     */
+    public double getVisionGateAcceptThreshold(int degreesOfFreedom) {
+        switch (degreesOfFreedom) {
+            case 1:
+                return 3.84;
+            case 2:
+                return 5.99;
+            default:
+                return 7.81;
+        }
+    }
+
+    /**
+     * Chi-squared with as many degrees of freedom as the measurement has measured
+     * axes, 99.9% of consistent measurements are closer.
+     *
+     * @param degreesOfFreedom 1 to 3.
+     * @return Squared Mahalanobis distance beyond which vision is rejected.
+     */
+    public double getVisionGateRejectThreshold(int degreesOfFreedom) {
+        switch (degreesOfFreedom) {
+            case 1:
+                return 10.83;
+            case 2:
+                return 13.82;
+            default:
+                return 16.27;
+        }
+    }
+
+    /**
+     * @return Rejections in a row after which the pose estimate, not the
+     *         cameras, is assumed to be wrong.
+     */
+    public int getVisionGateMaxConsecutiveRejections() {
+        return 25;
+    }
+
+    /**
+     * @return Fraction each measurement moves a camera's std dev scale & logged
+     *         acceptance rate.
+     */
+    public double getVisionStdDevAdaptationRate() {
+        return 0.05;
+    }
+
+    /**
+     * TODO: Tune from logged drift between vision measurements.
+     *
+     * @return Growth of the odometry's X & Y variance. Value in Meters² per
+     *         Meter driven.
+     */
+    public double getOdometryLinearVariancePerMeter() {
+        return 0.0025;
+    }
+
+    /**
+     * @return Growth of the odometry's rotation variance. Value in Radians² per
+     *         Meter driven.
+     */
+    public double getOdometryAngularVariancePerMeter() {
+        return 0.0001;
+    }
+
+    // #endregion
+
+    // #region: ----- Note Tracker -----
+    /**
+     * A separate camera, so the detector doesn't take the AprilTag cameras off
+     * their pipeline.
+     */
+    public String getNoteCameraName() {
+        return "limelight-note";
+    }
+
+    public int getNoteDetectorPipeline() {
+        return 1;
+    }
+
+    /**
+     * TODO: Measure on the robot.
+     *
+     * @return The note camera's position (Meters) and rotation from the center of
+     *         the robot on the floor, X forward, Y left, Z up, pitched down.
+     */
+    public Transform3d getNoteCameraTransform() {
+        return new Transform3d(new Translation3d(0.3, 0, 0.5), new Rotation3d(0, Math.toRadians(25), 0));
+    }
+
+    /**
+     * @return Number of loops a note is kept without being seen.
+     */
+    public int getNoteTrackTimeToLive() {
+        return 25;
+    }
+
+    /**
+     * @return Number of detections before a note is reported.
+     */
+    public int getNoteTrackConfirmHits() {
+        return 3;
+    }
+
+    /**
+     * Chi-squared with 2 degrees of freedom, 99% of detections of the same note
+     * are closer.
+     *
+     * @return Squared Mahalanobis distance up to which a detection can be a
+     *         tracked note.
+     */
+    public double getNoteTrackGate() {
+        return 9.21;
+    }
+
     // #endregion
 
     // #region: --------------- Motor / Motor Controller Settings --------------
 
     public final double SAFE_MOTOR_TEMPERATURE_BUFFER = 0.9;
 
+    /**
+     * Motors start being derated at {@link #SAFE_MOTOR_TEMPERATURE_BUFFER} of
+     * their max temperature, and are limited to this at their max temperature.
+     *
+     * @return Fraction of the motor's output.
+     */
+    public double getThermalMinDerating() {
+        return 0.3;
+    }
+
     // #region: ----- Falcon 500 Motor -----
 
     /**
@@ -406,6 +863,17 @@ public abstract class AbstractConstants {
         return Celsius.of(109);
     }
 
+    /**
+     * Winding resistance from the motor's datasheet, thermal resistance &
+     * capacitance estimated from its temperature tests. TODO: Fit to logged
+     * temperatures.
+     *
+     * @return Parameters of the Falcon 500's thermal model.
+     */
+    public MotorThermalModel.Parameters getFalcon500ThermalParameters() {
+        return new MotorThermalModel.Parameters(0.0467, 0.6, 75);
+    }
+
     // #endregion
 
     // #region: ----- NEO 550 Brushless Motor -----
@@ -424,6 +892,63 @@ public abstract class AbstractConstants {
         return 80;
     }
 
+    /**
+     * See: <a href=
+     * "https://www.revrobotics.com/neo-550-brushless-motor-locked-rotor-testing">NEO
+     * 550 locked rotor testing</a>
+     *
+     * @return 40 degrees C
+     */
+    public Measure<Temperature> getNeo550MaxTemperature() {
+        return Celsius.of(40);
+    }
+
+    /**
+     * Winding resistance from the motor's datasheet, thermal resistance &
+     * capacitance estimated from its locked rotor tests. TODO: Fit to logged
+     * temperatures.
+     *
+     * @return Parameters of the NEO 550's thermal model.
+     */
+    public MotorThermalModel.Parameters getNeo550ThermalParameters() {
+        return new MotorThermalModel.Parameters(0.12, 1.5, 20);
+    }
+
+    /**
+     * Period of the SparkMax status frame with velocity & current (kStatus1).
+     * Faster than the default of 20 ms, so note contact is seen sooner.
+     *
+     * @return Value in Milliseconds.
+     */
+    public int getNeo550StatusFramePeriodMs() {
+        return 10;
+    }
+
+    // #endregion
+
+    // #region: --------------- Device Configuration ---------------------------
+    /**
+     * @return How many times a device configuration is applied before giving up.
+     */
+    public int getDeviceConfigAttempts() {
+        return 3;
+    }
+
+    /**
+     * @return Number of devices that are configured at the same time on each CAN
+     *         Bus.
+     */
+    public int getDeviceConfigThreadsPerBus() {
+        return 2;
+    }
+
+    /**
+     * @return Value in Seconds.
+     */
+    public double getDeviceConfigTimeoutSeconds() {
+        return 10;
+    }
+
     // #endregion
 
     // #region: --------------- Operation Modes --------------------------------
@@ -454,6 +979,135 @@ public abstract class AbstractConstants {
 
     // #endregion
 
+    // #region: --------------- Power Management -----------------------------
+    /**
+     * @return Battery and wiring resistance. Value in Ohms.
+     */
+    public double getBatteryResistance() {
+        return 0.02;
+    }
+
+    /**
+     * @return Lowest the battery should sag to, well above the roboRIO's 6.8 V
+     *         brownout. Value in Volts.
+     */
+    public double getPowerMinBatteryVoltage() {
+        return 8.0;
+    }
+
+    /**
+     * @return Current drawn by everything that is not managed (roboRIO, radio,
+     *         etc.). Value in Amps.
+     */
+    public double getPowerBaseLoad() {
+        return 5;
+    }
+
+    /**
+     * @return Lowest output a managed mechanism is cut to, except the LEDs.
+     */
+    public double getPowerMinScale() {
+        return 0.25;
+    }
+
+    /**
+     * @return How fast a cut mechanism is given its output back. Value in
+     *         Fraction per Second.
+     */
+    public double getPowerScaleRecoveryRate() {
+        return 1;
+    }
+
+    /**
+     * @return Where the per match energy summaries are written, next to the logs.
+     */
+    public String getEnergySummaryDirectory() {
+        return "/U/logs";
+    }
+
+    // #endregion
+
+    // #region: --------------- Loop Rates -----------------------------------
+    /**
+     * Must match the period of the robot's main loop (the default
+     * {@link org.littletonrobotics.junction.LoggedRobot} period).
+     *
+     * @return Value in Times per Second.
+     */
+    public double getLoopFrequency() {
+        return 50;
+    }
+
+    /**
+     * @return Value in Times per Second.
+     */
+    public double getClimberLogFrequency() {
+        return 10;
+    }
+
+    /**
+     * @return Value in Times per Second.
+     */
+    public double getLedFrequency() {
+        return 20;
+    }
+
+    /**
+     * Motor temperatures change slowly, and are reported at a low rate.
+     *
+     * @return Value in Times per Second.
+     */
+    public double getThermalCheckFrequency() {
+        return 2;
+    }
+
+    // #endregion
+
+    // #region: --------------- Threads --------------------------------------
+    /**
+     * @return Number of background tasks that may be waiting to run before new
+     *         ones are dropped.
+     */
+    public int getBackgroundQueueSize() {
+        return 16;
+    }
+
+    /**
+     * The main thread works too, so with the roboRIO's 2 cores 1 is enough.
+     *
+     * @return Number of threads that share work with the main loop, see
+     *         {@link frc.robot.util.WorkerPool WorkerPool}.
+     */
+    public int getWorkerThreadCount() {
+        return 1;
+    }
+
+    /**
+     * Real-time priority of the main robot loop, while commands and subsystems
+     * run. Must be lower than {@link #getOdometryThreadPriority()}.
+     *
+     * @return Value from 1 to 99.
+     */
+    public int getMainLoopThreadPriority() {
+        return 10;
+    }
+
+    /**
+     * @return Value in Times per Second.
+     */
+    public double getOdometryFrequency() {
+        return 250;
+    }
+
+    /**
+     * @return Value from 1 to 99.
+     */
+    public int getOdometryThreadPriority() {
+        return 15;
+    }
+
+    // #endregion
+
     // #region: --------------- Physical Measurements --------------------------
     public Measure<Distance> getDriveBaseWheelRadius() {
         return Meters.of(Math.hypot(getWheelDistanceFrontToBack().divide(2).in(Meters),
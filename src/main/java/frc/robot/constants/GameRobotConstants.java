@@ -62,6 +62,12 @@ public class GameRobotConstants extends AbstractConstants {
         return true;
     }
 
+    @Override
+    public boolean hasNoteTrackerSubsystem() {
+        // TODO: Enable once the note camera is mounted, and its transform measured.
+        return false;
+    }
+
     @Override
     public boolean hasTraverserSubsystem() {
         return false;
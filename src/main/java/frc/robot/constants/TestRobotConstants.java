@@ -68,6 +68,11 @@ public class TestRobotConstants extends AbstractConstants {
         return true;
     }
 
+    @Override
+    public boolean hasNoteTrackerSubsystem() {
+        return false;
+    }
+
     // #endregion
 
     // #region: --------------- Driving Configurations -------------------------
@@ -0,0 +1,116 @@
+package frc.robot.subsystems.base;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Notices when the robot is hit (or hits something), so the odometry, which is
+ * wrong after an impact, can be corrected by vision straight away.
+ * <p>
+ * An impact is a jump in the gyro's horizontal acceleration (jerk), or modules
+ * suddenly disagreeing about how the robot is moving (see
+ * {@link SlipDetector}). The robot tipping, pitch or roll past
+ * {@link frc.robot.constants.AbstractConstants#getCollisionTiltThreshold()},
+ * lifts wheels off the carpet, so it's treated the same. For
+ * {@link frc.robot.constants.AbstractConstants#getCollisionRecoveryTime()}
+ * afterwards the robot is recovering: the pose estimator trusts vision more
+ * than odometry, and vision poses that jump further than the robot could drive
+ * are accepted.
+ * </p>
+ * <p>
+ * Counts loops instead of time, so log replay gives the same results.
+ * </p>
+ */
+public class CollisionDetector {
+
+    // ========================= Object Level ==================================
+
+    private double lastAccelerationX, lastAccelerationY;
+    private double lastTimestamp = Double.NaN;
+    private double jerk;
+    private int loopsRemaining;
+    private int eventCount;
+    private int tipEventCount;
+    private boolean wasTipping;
+
+    CollisionDetector() {
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Called once per loop.
+     *
+     * @param accelerationX  Robot relative, in Meters per Second².
+     * @param accelerationY  Robot relative, in Meters per Second².
+     * @param timestamp      When the acceleration was measured, in Seconds.
+     * @param moduleResidual Largest disagreement of a module with the others
+     *                       this loop, in Meters per Second.
+     * @param pitch          About the robot's Y axis, in Radians.
+     * @param roll           About the robot's X axis, in Radians.
+     */
+    public void update(double accelerationX, double accelerationY, double timestamp, double moduleResidual,
+            double pitch, double roll) {
+        // Only a new measurement can show a change.
+        if (!Double.isNaN(lastTimestamp) && timestamp > lastTimestamp) {
+            jerk = Math.hypot(accelerationX - lastAccelerationX, accelerationY - lastAccelerationY)
+                    / (timestamp - lastTimestamp);
+        } else {
+            jerk = 0;
+        }
+        if (Double.isNaN(lastTimestamp) || timestamp > lastTimestamp) {
+            lastAccelerationX = accelerationX;
+            lastAccelerationY = accelerationY;
+            lastTimestamp = timestamp;
+        }
+
+        // Angle between the robot's Z axis and vertical.
+        double tilt = Math.acos(Math.cos(pitch) * Math.cos(roll));
+        boolean isTipping = tilt > CONSTANTS.getCollisionTiltThreshold();
+        if (isTipping && !wasTipping) {
+            tipEventCount++;
+        }
+        wasTipping = isTipping;
+
+        boolean isImpact = jerk > CONSTANTS.getCollisionJerkThreshold()
+                || moduleResidual > CONSTANTS.getCollisionModuleResidualThreshold();
+        if (isImpact || isTipping) {
+            if (loopsRemaining == 0) {
+                eventCount++;
+            }
+            loopsRemaining = getRecoveryLoops();
+        } else if (loopsRemaining > 0) {
+            loopsRemaining--;
+        }
+
+        Logger.recordOutput("Drive/Collision/Jerk", jerk);
+        Logger.recordOutput("Drive/Collision/IsImpact", isImpact);
+        Logger.recordOutput("Drive/Collision/Tilt", tilt);
+        Logger.recordOutput("Drive/Collision/IsTipping", isTipping);
+        Logger.recordOutput("Drive/Collision/TipEvents", tipEventCount);
+        Logger.recordOutput("Drive/Collision/IsRecovering", isRecovering());
+        Logger.recordOutput("Drive/Collision/Events", eventCount);
+    }
+
+    /**
+     * @return {@code true} while tipping, and for a short time after an impact
+     *         or tipping.
+     */
+    public boolean isRecovering() {
+        return loopsRemaining > 0;
+    }
+
+    /**
+     * @return How many times more uncertain the odometry is than usual.
+     */
+    public double getOdometryStdDevScale() {
+        return isRecovering() ? CONSTANTS.getCollisionOdometryStdDevScale() : 1;
+    }
+
+    // ========================= Helper Methods ================================
+
+    private static int getRecoveryLoops() {
+        return (int) Math.ceil(CONSTANTS.getCollisionRecoveryTime() * CONSTANTS.getLoopFrequency());
+    }
+}
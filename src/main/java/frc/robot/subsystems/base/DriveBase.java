@@ -13,13 +13,12 @@ import com.pathplanner.lib.util.HolonomicPathFollowerConfig;
 import com.pathplanner.lib.util.PathPlannerLogging;
 import com.pathplanner.lib.util.ReplanningConfig;
 
-import edu.wpi.first.math.VecBuilder;
-import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.wpilibj.DriverStation;
@@ -34,6 +33,7 @@ import frc.robot.subsystems.gyro.GyroIoInputsAutoLogged;
 import frc.robot.subsystems.swerve_module.IndexedSwerveModule;
 import frc.robot.subsystems.swerve_module.SwerveModuleIo;
 import frc.robot.util.LocalAdStarAk;
+import frc.robot.util.OdometryThread;
 
 public class DriveBase extends SubsystemBase {
 
@@ -79,9 +79,17 @@ public class DriveBase extends SubsystemBase {
     private final IndexedSwerveModule[] modules = new IndexedSwerveModule[4];
 
     private final SwerveDriveKinematics kinematics = new SwerveDriveKinematics(getModuleTranslations());
-    public final SwerveDrivePoseEstimator poseEstimator;
+    public final SwervePoseEstimator poseEstimator;
+    private final SwerveDriveOdometry odometry; // Without vision, for velocities.
     private final SwerveModulePosition[] modulePositions;
-    private Translation2d lastPosition;
+    private Rotation2d odometryYaw = new Rotation2d(); // Yaw matching modulePositions.
+    private final HeadingController headingController = new HeadingController();
+    private final SwerveSetpointGenerator setpointGenerator = new SwerveSetpointGenerator(modules.length);
+    private final SlipDetector slipDetector = new SlipDetector(getModuleTranslations());
+    private final CollisionDetector collisionDetector = new CollisionDetector();
+    private final PoseHistory poseHistory = new PoseHistory();
+    private final double[] predictedPose = new double[3];
+    private double lastSampleTimestamp = Double.NaN;
 
     public DriveBase(GyroIo gyroIo,
             SwerveModuleIo flModuleI,
@@ -102,11 +110,19 @@ public class DriveBase extends SubsystemBase {
         modulePositions = new SwerveModulePosition[4];
         updateModulePositions();
 
-        poseEstimator = new SwerveDrivePoseEstimator(
-                kinematics, gyroInputs.yawPosition, modulePositions,
-                new Pose2d(0, 0, gyroInputs.yawPosition),
-                VecBuilder.fill(ENCODER_STDDEV, ENCODER_STDDEV, ENCODER_STDDEV),
-                VecBuilder.fill(1, 1, 1)); // placeholder, will be filled in by vision
+        double[] stateStdDevs = { ENCODER_STDDEV, ENCODER_STDDEV, ENCODER_STDDEV };
+        Pose2d initialPose = new Pose2d(0, 0, gyroInputs.yawPosition);
+        SwervePoseEstimator wpilibEstimator = new WpilibSwervePoseEstimator(kinematics, gyroInputs.yawPosition,
+                modulePositions, initialPose, stateStdDevs);
+        SwervePoseEstimator fastEstimator = new FastSwervePoseEstimator(getModuleTranslations(),
+                gyroInputs.yawPosition, modulePositions, initialPose, stateStdDevs);
+        SwervePoseEstimator estimator = CONSTANTS.useFastPoseEstimator() ? fastEstimator : wpilibEstimator;
+        if (CONSTANTS.shouldShadowPoseEstimator()) {
+            estimator = new ShadowSwervePoseEstimator(estimator,
+                    estimator == fastEstimator ? wpilibEstimator : fastEstimator);
+        }
+        poseEstimator = estimator;
+        odometry = new SwerveDriveOdometry(kinematics, gyroInputs.yawPosition, modulePositions, initialPose);
 
         // Configure AutoBuilder for PathPlanner
         AutoBuilder.configureHolonomic(
@@ -134,6 +150,7 @@ public class DriveBase extends SubsystemBase {
 
     @Override
     public void periodic() {
+        OdometryThread.getInstance().poll();
         gyroIO.updateInputs(gyroInputs);
         getPose(); // Logs Robot Estimated Position; (TODO: Is this needed?)
         getSpeed(); // same, revisit later
@@ -148,6 +165,7 @@ public class DriveBase extends SubsystemBase {
             for (IndexedSwerveModule module : modules) {
                 module.stop();
             }
+            setpointGenerator.reset();
         }
 
         // Log empty setpoint states when disabled
@@ -156,9 +174,44 @@ public class DriveBase extends SubsystemBase {
             Logger.recordOutput("SwerveStates/SetpointsOptimized []");
         }
 
-        // Update odometry
-        updateModulePositions();
-        poseEstimator.update(gyroInputs.yawPosition, modulePositions);
+        // Update odometry, with every sample taken since the last loop.
+        double[] sampleTimestamps = modules[0].getOdometryTimestamps();
+        // A slipping module's motion is replaced by the other modules' (see
+        // SlipDetector), before the positions are used.
+        if (sampleTimestamps.length == 0) {
+            updateModulePositions();
+            odometryYaw = gyroInputs.yawPosition;
+            updateSlipDetector(1.0 / CONSTANTS.getLoopFrequency());
+            double timestamp = Timer.getFPGATimestamp();
+            poseEstimator.updateWithTime(timestamp, odometryYaw, modulePositions);
+            poseHistory.add(timestamp, poseEstimator.getEstimatedPosition(),
+                    odometry.update(odometryYaw, modulePositions));
+        } else {
+            SwerveModulePosition[][] samplePositions = new SwerveModulePosition[modules.length][];
+            for (int i = 0; i < modules.length; i++) {
+                samplePositions[i] = modules[i].getOdometryPositions();
+            }
+            for (int sample = 0; sample < sampleTimestamps.length; sample++) {
+                for (int i = 0; i < modules.length; i++) {
+                    modulePositions[i] = samplePositions[i][Math.min(sample, samplePositions[i].length - 1)];
+                }
+                // The gyro has no samples in simulation.
+                odometryYaw = sample < gyroInputs.odometryYawPositions.length
+                        ? gyroInputs.odometryYawPositions[sample]
+                        : gyroInputs.yawPosition;
+                double dt = Double.isNaN(lastSampleTimestamp) ? 1.0 / CONSTANTS.getOdometryFrequency()
+                        : sampleTimestamps[sample] - lastSampleTimestamp;
+                lastSampleTimestamp = sampleTimestamps[sample];
+                updateSlipDetector(dt);
+                poseEstimator.updateWithTime(sampleTimestamps[sample], odometryYaw, modulePositions);
+                poseHistory.add(sampleTimestamps[sample], poseEstimator.getEstimatedPosition(),
+                        odometry.update(odometryYaw, modulePositions));
+            }
+        }
+        collisionDetector.update(gyroInputs.accelerationX, gyroInputs.accelerationY,
+                gyroInputs.accelerationTimestamp, slipDetector.getMaxResidual(),
+                gyroInputs.pitchPosition.getRadians(), gyroInputs.rollPosition.getRadians());
+        slipDetector.log();
         getPose(); // Logs Robot Estimated Positio;
     }
 
@@ -170,15 +223,42 @@ public class DriveBase extends SubsystemBase {
         return poseEstimator.getEstimatedPosition();
     }
 
+    /**
+     * @return Speed over the ground, from the odometry alone. Value in Meters per
+     *         Second.
+     */
     @AutoLogOutput(key = "EstimatedSpeed")
     public double getSpeed() {
-        if (lastPosition == null) {
-            lastPosition = getPose().getTranslation();
+        return poseHistory.getLatestSpeed();
+    }
+
+    /**
+     * @return Where the robot has been, for latency compensation.
+     */
+    public PoseHistory getPoseHistory() {
+        return poseHistory;
+    }
+
+    /**
+     * @param latency How long after the latest odometry sample, in Seconds.
+     * @return Where the robot will be if it keeps its velocity, e.g. when a shot
+     *         aimed now is taken.
+     */
+    public Pose2d getPredictedPose(double latency) {
+        if (!poseHistory.predict(poseHistory.getLatestTimestamp() + latency, predictedPose)) {
+            return getPose();
         }
-        Translation2d current = getPose().getTranslation();
-        Translation2d delta = current.minus(lastPosition);
-        lastPosition = current;
-        return delta.getNorm() / 0.02;
+        Pose2d pose = new Pose2d(predictedPose[0], predictedPose[1], new Rotation2d(predictedPose[2]));
+        Logger.recordOutput("Drive/PredictedPose", pose);
+        return pose;
+    }
+
+    /**
+     * @return The controller shared by every command that turns the robot to a
+     *         heading.
+     */
+    public HeadingController getHeadingController() {
+        return headingController;
     }
 
     /** Returns the current odometry rotation. */
@@ -186,6 +266,67 @@ public class DriveBase extends SubsystemBase {
         return poseEstimator.getEstimatedPosition().getRotation();
     }
 
+    /**
+     * @return Value in Radians per Second, counter-clockwise positive.
+     */
+    public double getYawVelocity() {
+        return gyroInputs.yawVelocityRadPerSec;
+    }
+
+    /**
+     * @return {@code true} while the robot is tipping, and for a short time after
+     *         it is hit or tips, while vision should correct the odometry.
+     */
+    public boolean isRecoveringFromCollision() {
+        return collisionDetector.isRecovering();
+    }
+
+    /**
+     * @return How many times more uncertain the odometry is than usual, e.g.
+     *         after a collision.
+     */
+    public double getOdometryStdDevScale() {
+        return collisionDetector.getOdometryStdDevScale();
+    }
+
+    /**
+     * @return Tilt about the robot's Y axis, e.g. for leveling or tipping.
+     */
+    public Rotation2d getPitch() {
+        return gyroInputs.pitchPosition;
+    }
+
+    /**
+     * @return Tilt about the robot's X axis, e.g. for leveling or tipping.
+     */
+    public Rotation2d getRoll() {
+        return gyroInputs.rollPosition;
+    }
+
+    /**
+     * @return Current drawn from the battery by every module, in Amps.
+     */
+    public double getSupplyCurrent() {
+        double current = 0;
+        for (IndexedSwerveModule module : modules) {
+            current += module.getSupplyCurrent();
+        }
+        return current;
+    }
+
+    /**
+     * Lowers the drive voltages to save power, see
+     * {@link frc.robot.subsystems.power.PowerManager PowerManager}. Steering is
+     * not limited.
+     *
+     * @param scale Fraction of the drive voltage to apply.
+     */
+    public void setPowerScale(double scale) {
+        for (IndexedSwerveModule module : modules) {
+            module.setPowerScale(scale);
+        }
+    }
+
     public boolean isTemperatureTooHigh() {
         for (IndexedSwerveModule module : modules) {
             if (module.isTemperatureTooHigh()) {
@@ -203,9 +344,10 @@ public class DriveBase extends SubsystemBase {
     }
 
     public void resetFieldOrientation() {
+        poseHistory.clear();
         poseEstimator.addVisionMeasurement(
                 new Pose2d(poseEstimator.getEstimatedPosition().getTranslation(), new Rotation2d()),
-                Timer.getFPGATimestamp(), VecBuilder.fill(0, 0, 0));
+                Timer.getFPGATimestamp(), new double[] { 0, 0, 0 });
     }
 
     /**
@@ -220,21 +362,24 @@ public class DriveBase extends SubsystemBase {
         SwerveModuleState[] setpointStates = kinematics.toSwerveModuleStates(discreteSpeeds);
         SwerveDriveKinematics.desaturateWheelSpeeds(setpointStates, CONSTANTS.getMaxLinearSpeed());
 
-        // Send setpoints to modules
-        SwerveModuleState[] optimizedSetpointStates = new SwerveModuleState[4];
+        // Limit acceleration & steering, then send setpoints to modules
+        SwerveModuleState[] limitedSetpointStates = setpointGenerator.generate(setpointStates, getModuleStates(),
+                1.0 / CONSTANTS.getLoopFrequency());
         for (int i = 0; i < 4; i++) {
-            // The module returns the optimized state, useful for logging
-            optimizedSetpointStates[i] = modules[i].runSetpoint(setpointStates[i]);
+            modules[i].runLimitedSetpoint(limitedSetpointStates[i]);
         }
 
         // Log setpoint states
         Logger.recordOutput("SwerveStates/Setpoints", setpointStates);
-        Logger.recordOutput("SwerveStates/SetpointsOptimized", optimizedSetpointStates);
+        Logger.recordOutput("SwerveStates/SetpointsOptimized", limitedSetpointStates);
+        Logger.recordOutput("Drive/SetpointGenerator/Scale", setpointGenerator.getScale());
     }
 
     /** Resets the current odometry pose. */
     public void setPose(Pose2d pose) {
-        poseEstimator.resetPosition(gyroInputs.yawPosition, modulePositions, pose);
+        poseEstimator.resetPosition(odometryYaw, modulePositions, pose);
+        odometry.resetPosition(odometryYaw, modulePositions, pose);
+        poseHistory.clear();
     }
 
     /** Stops the drive. */
@@ -281,6 +426,13 @@ public class DriveBase extends SubsystemBase {
         return states;
     }
 
+    /** Replaces the measured modulePositions with the ones to give the odometry. */
+    private void updateSlipDetector(double dt) {
+        SwerveModulePosition[] positions = slipDetector.update(modulePositions, odometryYaw, gyroInputs.connected,
+                dt);
+        System.arraycopy(positions, 0, modulePositions, 0, modulePositions.length);
+    }
+
     private void updateModulePositions() {
         for (int i = 0; i < modules.length; i++) {
             modulePositions[i] = modules[i].getPosition();
@@ -0,0 +1,416 @@
+package frc.robot.subsystems.base;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.Arrays;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+/**
+ * A pose estimator that fuses odometry & vision the way WPILib's does, but
+ * with cheaper vision updates.
+ * <p>
+ * WPILib's estimator rewinds to each vision measurement's timestamp and replays
+ * every odometry sample since, using generic matrices. Instead this one keeps
+ * the odometry on its own, in a circular history of primitive arrays, and keeps
+ * each vision correction as a pair of poses: the corrected pose at the
+ * measurement's time, and the odometry pose at that time. The estimate is the
+ * latest correction plus whatever the odometry has done since, so a vision
+ * measurement costs a binary search and a few trig calls, whatever the latency.
+ * </p>
+ * <p>
+ * Like WPILib's, the odometry and vision standard deviations are only used
+ * through their diagonal, so the 3×3 Kalman gain is three scalars.
+ * </p>
+ */
+public class FastSwervePoseEstimator implements SwervePoseEstimator {
+
+    // ========================= Class Level ===================================
+
+    private static final int HISTORY_CAPACITY = 1024; // Power of 2.
+    private static final int VISION_CAPACITY = 32;
+
+    // ========================= Object Level ==================================
+
+    // Kinematics, the pseudo-inverse's rows for X & Y, over [dx0, dy0, dx1, ...].
+    private final double[] forwardX, forwardY;
+    private final double[] moduleDeltas;
+    private final double[] lastDistances;
+    private final double[] stateVariances = new double[3];
+
+    // Odometry.
+    private double gyroOffset; // Radians, pose = gyro + offset.
+    private double lastAngle; // Radians.
+    private double odometryX, odometryY, odometryTheta;
+
+    // Odometry history, oldest at historyStart.
+    private final double[] historyTimes = new double[HISTORY_CAPACITY];
+    private final double[] historyX = new double[HISTORY_CAPACITY];
+    private final double[] historyY = new double[HISTORY_CAPACITY];
+    private final double[] historyTheta = new double[HISTORY_CAPACITY];
+    private int historyStart, historySize;
+
+    // Vision corrections, in order of time.
+    private final double[] visionTimes = new double[VISION_CAPACITY];
+    private final double[] visionX = new double[VISION_CAPACITY];
+    private final double[] visionY = new double[VISION_CAPACITY];
+    private final double[] visionTheta = new double[VISION_CAPACITY];
+    private final double[] visionOdometryX = new double[VISION_CAPACITY];
+    private final double[] visionOdometryY = new double[VISION_CAPACITY];
+    private final double[] visionOdometryTheta = new double[VISION_CAPACITY];
+    private int visionCount;
+
+    private final double[] scratch = new double[3];
+    private final double[] sample = new double[3];
+    private Pose2d estimate;
+    private final Integer[] order = new Integer[VISION_CAPACITY];
+
+    /**
+     * @param stateStdDevs Odometry's, X & Y in Meters, rotation in Radians.
+     */
+    FastSwervePoseEstimator(Translation2d[] moduleTranslations, Rotation2d gyroAngle,
+            SwerveModulePosition[] positions, Pose2d pose, double[] stateStdDevs) {
+        int count = moduleTranslations.length;
+        forwardX = new double[2 * count];
+        forwardY = new double[2 * count];
+        moduleDeltas = new double[2 * count];
+        lastDistances = new double[count];
+        for (int i = 0; i < 3; i++) {
+            stateVariances[i] = stateStdDevs[i] * stateStdDevs[i];
+        }
+
+        // Inverse kinematics rows are [1, 0, -y] & [0, 1, x] for each module, the
+        // forward kinematics are their pseudo-inverse, inv(AᵀA) Aᵀ.
+        double sumX = 0, sumY = 0, sumSquares = 0;
+        for (Translation2d translation : moduleTranslations) {
+            sumX += translation.getX();
+            sumY += translation.getY();
+            sumSquares += translation.getX() * translation.getX() + translation.getY() * translation.getY();
+        }
+        double[] inverse = invert3x3(count, 0, -sumY, 0, count, sumX, -sumY, sumX, sumSquares);
+        for (int i = 0; i < count; i++) {
+            double x = moduleTranslations[i].getX();
+            double y = moduleTranslations[i].getY();
+            // Columns of Aᵀ for module i: [1, 0, -y] & [0, 1, x].
+            forwardX[2 * i] = inverse[0] - inverse[2] * y;
+            forwardX[2 * i + 1] = inverse[1] + inverse[2] * x;
+            forwardY[2 * i] = inverse[3] - inverse[5] * y;
+            forwardY[2 * i + 1] = inverse[4] + inverse[5] * x;
+        }
+
+        resetPosition(gyroAngle, positions, pose);
+    }
+
+    // ========================= Functions =====================================
+
+    @Override
+    public void resetPosition(Rotation2d gyroAngle, SwerveModulePosition[] positions, Pose2d pose) {
+        gyroOffset = pose.getRotation().getRadians() - gyroAngle.getRadians();
+        lastAngle = pose.getRotation().getRadians();
+        odometryX = pose.getX();
+        odometryY = pose.getY();
+        odometryTheta = lastAngle;
+        for (int i = 0; i < lastDistances.length; i++) {
+            lastDistances[i] = positions[i].distanceMeters;
+        }
+        historySize = 0;
+        visionCount = 0;
+        estimate = pose;
+    }
+
+    @Override
+    public void updateWithTime(double timestamp, Rotation2d gyroAngle, SwerveModulePosition[] positions) {
+        // Twist from the module deltas, with the rotation from the gyro.
+        for (int i = 0; i < lastDistances.length; i++) {
+            double delta = positions[i].distanceMeters - lastDistances[i];
+            lastDistances[i] = positions[i].distanceMeters;
+            moduleDeltas[2 * i] = delta * positions[i].angle.getCos();
+            moduleDeltas[2 * i + 1] = delta * positions[i].angle.getSin();
+        }
+        double dx = 0, dy = 0;
+        for (int i = 0; i < moduleDeltas.length; i++) {
+            dx += forwardX[i] * moduleDeltas[i];
+            dy += forwardY[i] * moduleDeltas[i];
+        }
+        double angle = gyroAngle.getRadians() + gyroOffset;
+        double dtheta = MathUtil.angleModulus(angle - lastAngle);
+        lastAngle = angle;
+
+        exp(odometryX, odometryY, odometryTheta, dx, dy, dtheta, scratch);
+        odometryX = scratch[0];
+        odometryY = scratch[1];
+        odometryTheta = MathUtil.angleModulus(angle);
+
+        addToHistory(timestamp);
+        removeOldVisionCorrections();
+        updateEstimate();
+    }
+
+    @Override
+    public void addVisionMeasurement(Pose2d pose, double timestamp, double[] stdDevs) {
+        if (applyVisionMeasurement(pose, timestamp, stdDevs)) {
+            updateEstimate();
+        }
+    }
+
+    /** Applies the measurements oldest first, then updates the estimate once. */
+    @Override
+    public void addVisionMeasurements(Pose2d[] poses, double[] timestamps, double[][] stdDevs, int count) {
+        if (count > order.length) {
+            SwervePoseEstimator.super.addVisionMeasurements(poses, timestamps, stdDevs, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, 0, count, (a, b) -> Double.compare(timestamps[a], timestamps[b]));
+        boolean isApplied = false;
+        for (int i = 0; i < count; i++) {
+            isApplied |= applyVisionMeasurement(poses[order[i]], timestamps[order[i]], stdDevs[order[i]]);
+        }
+        if (isApplied) {
+            updateEstimate();
+        }
+    }
+
+    @Override
+    public Pose2d getEstimatedPosition() {
+        return estimate;
+    }
+
+    // ========================= Helper Methods ================================
+
+    /**
+     * @return {@code false} if the measurement is too old to use.
+     */
+    private boolean applyVisionMeasurement(Pose2d pose, double timestamp, double[] stdDevs) {
+        if (historySize == 0 || timestamp < newestTime() - CONSTANTS.getPoseHistoryTime()) {
+            return false;
+        }
+
+        // What the estimate was when the image was taken.
+        sampleOdometry(timestamp);
+        double odometryAtX = sample[0], odometryAtY = sample[1], odometryAtTheta = sample[2];
+        int previous = findVisionCorrection(timestamp);
+        if (previous >= 0) {
+            compensate(previous, odometryAtX, odometryAtY, odometryAtTheta, sample);
+        }
+
+        // Move towards the measurement by the Kalman gain, in each axis.
+        log(sample[0], sample[1], sample[2], pose.getX(), pose.getY(), pose.getRotation().getRadians(), scratch);
+        for (int i = 0; i < 3; i++) {
+            double variance = stdDevs[i] * stdDevs[i];
+            double gain = stateVariances[i] == 0 ? 0
+                    : stateVariances[i] / (stateVariances[i] + Math.sqrt(stateVariances[i] * variance));
+            scratch[i] *= gain;
+        }
+        exp(sample[0], sample[1], sample[2], scratch[0], scratch[1], scratch[2], scratch);
+
+        // Corrections after this one were relative to the old estimate.
+        int index = previous + 1;
+        if (index == VISION_CAPACITY) {
+            removeVisionCorrection();
+            index--;
+        }
+        visionTimes[index] = timestamp;
+        visionX[index] = scratch[0];
+        visionY[index] = scratch[1];
+        visionTheta[index] = scratch[2];
+        visionOdometryX[index] = odometryAtX;
+        visionOdometryY[index] = odometryAtY;
+        visionOdometryTheta[index] = odometryAtTheta;
+        visionCount = index + 1;
+        return true;
+    }
+
+    private void updateEstimate() {
+        if (visionCount == 0) {
+            estimate = new Pose2d(odometryX, odometryY, new Rotation2d(odometryTheta));
+        } else {
+            compensate(visionCount - 1, odometryX, odometryY, odometryTheta, scratch);
+            estimate = new Pose2d(scratch[0], scratch[1], new Rotation2d(scratch[2]));
+        }
+    }
+
+    /**
+     * Moves an odometry pose by a vision correction: the corrected pose plus the
+     * odometry's motion since the correction.
+     */
+    private void compensate(int correction, double x, double y, double theta, double[] result) {
+        double cos = Math.cos(visionOdometryTheta[correction]);
+        double sin = Math.sin(visionOdometryTheta[correction]);
+        double dx = x - visionOdometryX[correction];
+        double dy = y - visionOdometryY[correction];
+        double relativeX = dx * cos + dy * sin;
+        double relativeY = -dx * sin + dy * cos;
+        double relativeTheta = theta - visionOdometryTheta[correction];
+
+        cos = Math.cos(visionTheta[correction]);
+        sin = Math.sin(visionTheta[correction]);
+        result[0] = visionX[correction] + relativeX * cos - relativeY * sin;
+        result[1] = visionY[correction] + relativeX * sin + relativeY * cos;
+        result[2] = MathUtil.angleModulus(visionTheta[correction] + relativeTheta);
+    }
+
+    private void addToHistory(double timestamp) {
+        if (historySize > 0 && timestamp <= newestTime()) {
+            if (timestamp < newestTime()) {
+                return; // Out of order, the history must stay sorted.
+            }
+            historySize--; // Same time, replace it.
+        }
+        if (historySize == HISTORY_CAPACITY) {
+            historyStart = (historyStart + 1) & (HISTORY_CAPACITY - 1);
+            historySize--;
+        }
+        int index = (historyStart + historySize) & (HISTORY_CAPACITY - 1);
+        historyTimes[index] = timestamp;
+        historyX[index] = odometryX;
+        historyY[index] = odometryY;
+        historyTheta[index] = odometryTheta;
+        historySize++;
+
+        double oldest = timestamp - CONSTANTS.getPoseHistoryTime();
+        while (historySize > 1 && historyTimes[historyStart] < oldest) {
+            historyStart = (historyStart + 1) & (HISTORY_CAPACITY - 1);
+            historySize--;
+        }
+    }
+
+    /** Interpolates the odometry history, into {@link #sample}. */
+    private void sampleOdometry(double timestamp) {
+        // First sample after the timestamp, by binary search.
+        int low = 0, high = historySize;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (historyTimes[(historyStart + middle) & (HISTORY_CAPACITY - 1)] <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int before = (historyStart + Math.max(low - 1, 0)) & (HISTORY_CAPACITY - 1);
+        int after = (historyStart + Math.min(low, historySize - 1)) & (HISTORY_CAPACITY - 1);
+        if (before == after || historyTimes[after] <= historyTimes[before]) {
+            sample[0] = historyX[before];
+            sample[1] = historyY[before];
+            sample[2] = historyTheta[before];
+            return;
+        }
+
+        // Along the twist between the samples, as Pose2d.interpolate() does.
+        double fraction = MathUtil.clamp(
+                (timestamp - historyTimes[before]) / (historyTimes[after] - historyTimes[before]), 0, 1);
+        log(historyX[before], historyY[before], historyTheta[before],
+                historyX[after], historyY[after], historyTheta[after], sample);
+        exp(historyX[before], historyY[before], historyTheta[before],
+                sample[0] * fraction, sample[1] * fraction, sample[2] * fraction, sample);
+    }
+
+    /**
+     * @return The last vision correction at or before the timestamp, or -1.
+     */
+    private int findVisionCorrection(double timestamp) {
+        int low = 0, high = visionCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (visionTimes[middle] <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    /** Keeps one correction from before the history, as the base for the rest. */
+    private void removeOldVisionCorrections() {
+        if (historySize == 0) {
+            return;
+        }
+        double oldest = historyTimes[historyStart];
+        while (visionCount > 1 && visionTimes[1] <= oldest) {
+            removeVisionCorrection();
+        }
+    }
+
+    /** Removes the oldest vision correction. */
+    private void removeVisionCorrection() {
+        System.arraycopy(visionTimes, 1, visionTimes, 0, visionCount - 1);
+        System.arraycopy(visionX, 1, visionX, 0, visionCount - 1);
+        System.arraycopy(visionY, 1, visionY, 0, visionCount - 1);
+        System.arraycopy(visionTheta, 1, visionTheta, 0, visionCount - 1);
+        System.arraycopy(visionOdometryX, 1, visionOdometryX, 0, visionCount - 1);
+        System.arraycopy(visionOdometryY, 1, visionOdometryY, 0, visionCount - 1);
+        System.arraycopy(visionOdometryTheta, 1, visionOdometryTheta, 0, visionCount - 1);
+        visionCount--;
+    }
+
+    private double newestTime() {
+        return historyTimes[(historyStart + historySize - 1) & (HISTORY_CAPACITY - 1)];
+    }
+
+    /** The pose reached by following a twist from a pose, as Pose2d.exp(). */
+    private static void exp(double x, double y, double theta, double dx, double dy, double dtheta,
+            double[] result) {
+        double sin = Math.sin(dtheta);
+        double cos = Math.cos(dtheta);
+        double s, c;
+        if (Math.abs(dtheta) < 1e-9) {
+            s = 1.0 - dtheta * dtheta / 6.0;
+            c = 0.5 * dtheta;
+        } else {
+            s = sin / dtheta;
+            c = (1 - cos) / dtheta;
+        }
+        double relativeX = dx * s - dy * c;
+        double relativeY = dx * c + dy * s;
+
+        double poseCos = Math.cos(theta);
+        double poseSin = Math.sin(theta);
+        result[0] = x + relativeX * poseCos - relativeY * poseSin;
+        result[1] = y + relativeX * poseSin + relativeY * poseCos;
+        result[2] = MathUtil.angleModulus(theta + dtheta);
+    }
+
+    /** The twist from one pose to another, as Pose2d.log(). */
+    private static void log(double x, double y, double theta, double endX, double endY, double endTheta,
+            double[] result) {
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        double dx = endX - x;
+        double dy = endY - y;
+        double relativeX = dx * cos + dy * sin;
+        double relativeY = -dx * sin + dy * cos;
+        double dtheta = MathUtil.angleModulus(endTheta - theta);
+
+        double halfDtheta = dtheta / 2.0;
+        double cosMinusOne = Math.cos(dtheta) - 1;
+        double halfThetaByTanOfHalfDtheta = Math.abs(cosMinusOne) < 1e-9
+                ? 1.0 - dtheta * dtheta / 12.0
+                : -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+        result[0] = relativeX * halfThetaByTanOfHalfDtheta + relativeY * halfDtheta;
+        result[1] = -relativeX * halfDtheta + relativeY * halfThetaByTanOfHalfDtheta;
+        result[2] = dtheta;
+    }
+
+    /**
+     * @return The inverse of the row major 3×3 matrix, row major.
+     */
+    private static double[] invert3x3(double a, double b, double c, double d, double e, double f, double g,
+            double h, double i) {
+        double cofactorA = e * i - f * h;
+        double cofactorB = -(d * i - f * g);
+        double cofactorC = d * h - e * g;
+        double determinant = a * cofactorA + b * cofactorB + c * cofactorC;
+        return new double[] {
+                cofactorA / determinant, -(b * i - c * h) / determinant, (b * f - c * e) / determinant,
+                cofactorB / determinant, (a * i - c * g) / determinant, -(a * f - c * d) / determinant,
+                cofactorC / determinant, -(a * h - b * g) / determinant, (a * e - b * d) / determinant
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package frc.robot.subsystems.base;
+
+import static edu.wpi.first.units.Units.RadiansPerSecond;
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.constants.AbstractConstants.PID;
+
+/**
+ * Turns the robot to a heading, for every command that aims the drive base.
+ * <p>
+ * Follows a trapezoidal profile in radians, and adds the goal's own rate of
+ * turn as feedforward, so a heading that moves (e.g. towards a target while
+ * strafing past it) is tracked without lagging behind.
+ * </p>
+ * <p>
+ * There is one controller, owned by the {@link DriveBase}. Commands that use it
+ * require the drive base, so only one uses it at a time, and must call
+ * {@link #reset(Rotation2d, double)} when they start.
+ * </p>
+ */
+public class HeadingController {
+
+    // ========================= Object Level ==================================
+
+    private final ProfiledPIDController controller;
+    private final TrapezoidProfile.State goal = new TrapezoidProfile.State();
+    private final double maxVelocity;
+    private double errorRadians;
+
+    HeadingController() {
+        maxVelocity = CONSTANTS.getMaxAngularSpeed().in(RadiansPerSecond);
+        PID pid = CONSTANTS.getHeadingPid();
+        controller = new ProfiledPIDController(pid.P, pid.I, pid.D,
+                new TrapezoidProfile.Constraints(maxVelocity, CONSTANTS.getHeadingMaxAcceleration()));
+        controller.enableContinuousInput(-Math.PI, Math.PI);
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Starts the profile from where the robot is, called when a command starts.
+     *
+     * @param yawVelocity Value in Radians per Second.
+     */
+    public void reset(Rotation2d heading, double yawVelocity) {
+        controller.reset(heading.getRadians(), yawVelocity);
+        errorRadians = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Turns to a fixed heading.
+     *
+     * @return Angular velocity, in Radians per Second.
+     */
+    public double calculate(Rotation2d heading, Rotation2d goalHeading) {
+        return calculate(heading, goalHeading, 0);
+    }
+
+    /**
+     * Turns to a heading that is moving.
+     *
+     * @param goalVelocity How fast the goal heading is turning, in Radians per
+     *                     Second.
+     * @return Angular velocity, in Radians per Second.
+     */
+    public double calculate(Rotation2d heading, Rotation2d goalHeading, double goalVelocity) {
+        goal.position = goalHeading.getRadians();
+        goal.velocity = MathUtil.clamp(goalVelocity, -maxVelocity, maxVelocity);
+
+        double feedback = controller.calculate(heading.getRadians(), goal);
+        double omega = MathUtil.clamp(feedback + controller.getSetpoint().velocity, -maxVelocity, maxVelocity);
+        errorRadians = MathUtil.angleModulus(goalHeading.getRadians() - heading.getRadians());
+
+        Logger.recordOutput("Drive/HeadingController/ErrorRadians", errorRadians);
+        Logger.recordOutput("Drive/HeadingController/GoalVelocity", goal.velocity);
+        Logger.recordOutput("Drive/HeadingController/SetpointVelocity", controller.getSetpoint().velocity);
+        Logger.recordOutput("Drive/HeadingController/OmegaRadiansPerSecond", omega);
+        return omega;
+    }
+
+    /**
+     * Keeps one side of the robot pointed at a target while it drives.
+     *
+     * @param facing Side of the robot that should face the target, e.g. 180
+     *               degrees for the back.
+     * @param vx     Field relative velocity, in Meters per Second.
+     * @param vy     Field relative velocity, in Meters per Second.
+     * @return Angular velocity, in Radians per Second.
+     */
+    public double calculateToTarget(Pose2d pose, Translation2d target, Rotation2d facing, double vx, double vy) {
+        double dx = target.getX() - pose.getX();
+        double dy = target.getY() - pose.getY();
+        double distanceSquared = dx * dx + dy * dy;
+
+        // The bearing to the target turns as the robot drives past it.
+        double bearingVelocity = distanceSquared > 1e-6 ? (dy * vx - dx * vy) / distanceSquared : 0;
+        Rotation2d goalHeading = new Rotation2d(dx, dy).plus(facing);
+
+        return calculate(pose.getRotation(), goalHeading, bearingVelocity);
+    }
+
+    /**
+     * @return {@code true} when the last heading was within tolerance of its
+     *         goal.
+     */
+    public boolean atGoal() {
+        return Math.abs(errorRadians) <= CONSTANTS.getHeadingTolerance();
+    }
+}
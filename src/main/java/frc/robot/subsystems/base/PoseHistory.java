@@ -0,0 +1,252 @@
+package frc.robot.subsystems.base;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.Optional;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Where the robot was, from every odometry sample (with the vision corrections
+ * made so far), for code that needs the pose at a given time: latency
+ * compensated aiming, and checking vision against the pose when the image was
+ * taken.
+ * <p>
+ * Velocities come from the odometry alone, recorded alongside, so a vision
+ * correction doesn't show up as the robot moving.
+ * </p>
+ * <p>
+ * Kept in a circular buffer of primitive arrays, sized for
+ * {@link frc.robot.constants.AbstractConstants#getPoseHistoryTime()} at the
+ * odometry frequency. Queries are a binary search, and the ones filling a
+ * {@code double[]} allocate nothing.
+ * </p>
+ */
+public class PoseHistory {
+
+    // ========================= Object Level ==================================
+
+    private final int capacity; // Power of 2.
+    private final double[] times, x, y, theta;
+    private final double[] odometryX, odometryY, odometryTheta; // Without vision.
+    private int start, size; // Oldest at start.
+
+    private final double[] scratch = new double[3];
+    private final double[] velocity = new double[3];
+
+    PoseHistory() {
+        int samples = (int) Math.ceil(CONSTANTS.getPoseHistoryTime() * CONSTANTS.getOdometryFrequency());
+        capacity = Integer.highestOneBit(Math.max(samples, 1)) << 1;
+        times = new double[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        theta = new double[capacity];
+        odometryX = new double[capacity];
+        odometryY = new double[capacity];
+        odometryTheta = new double[capacity];
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Adds the pose at the timestamp, which must be after the last one added.
+     *
+     * @param timestamp    Value in Seconds.
+     * @param pose         With the vision corrections.
+     * @param odometryPose From the odometry alone, for velocities.
+     */
+    void add(double timestamp, Pose2d pose, Pose2d odometryPose) {
+        if (size > 0 && timestamp <= getLatestTimestamp()) {
+            if (timestamp < getLatestTimestamp()) {
+                return; // Out of order, the history must stay sorted.
+            }
+            size--; // Same time, replace it.
+        }
+        if (size == capacity) {
+            start = (start + 1) & (capacity - 1);
+            size--;
+        }
+        int index = (start + size) & (capacity - 1);
+        times[index] = timestamp;
+        x[index] = pose.getX();
+        y[index] = pose.getY();
+        theta[index] = pose.getRotation().getRadians();
+        odometryX[index] = odometryPose.getX();
+        odometryY[index] = odometryPose.getY();
+        odometryTheta[index] = odometryPose.getRotation().getRadians();
+        size++;
+    }
+
+    /** Forgets every pose, e.g. when the pose is set. */
+    void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return When the newest pose was measured, or {@link Double#NaN} if there
+     *         are none. Value in Seconds.
+     */
+    public double getLatestTimestamp() {
+        return size == 0 ? Double.NaN : times[(start + size - 1) & (capacity - 1)];
+    }
+
+    /**
+     * Interpolates the pose at the timestamp. Times outside the history get the
+     * oldest or newest pose.
+     *
+     * @param timestamp Value in Seconds.
+     * @param pose      Filled with X & Y in Meters, and rotation in Radians.
+     * @return {@code false}, leaving {@code pose} unchanged, if the history is
+     *         empty.
+     */
+    public boolean getPoseAt(double timestamp, double[] pose) {
+        return interpolate(timestamp, x, y, theta, pose);
+    }
+
+    /**
+     * @param timestamp Value in Seconds.
+     * @return The interpolated pose, see {@link #getPoseAt(double, double[])}.
+     */
+    public Optional<Pose2d> getPoseAt(double timestamp) {
+        if (!getPoseAt(timestamp, scratch)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Pose2d(scratch[0], scratch[1], new Rotation2d(scratch[2])));
+    }
+
+    /**
+     * Field relative velocity over the
+     * {@link frc.robot.constants.AbstractConstants#getPoseHistoryVelocityWindow()}
+     * before the timestamp, which smooths out the noise of single samples.
+     * <p>
+     * From the odometry alone, turned by however far vision has turned the pose
+     * at the timestamp, so it is in the same frame as the poses.
+     * </p>
+     *
+     * @param timestamp Value in Seconds.
+     * @param velocity  Filled with X & Y in Meters per Second, and rotation in
+     *                  Radians per Second.
+     * @return {@code false}, leaving {@code velocity} unchanged, if there are
+     *         fewer than two poses.
+     */
+    public boolean getVelocityAt(double timestamp, double[] velocity) {
+        if (size < 2) {
+            return false;
+        }
+        double oldest = times[start];
+        double end = Math.max(Math.min(timestamp, getLatestTimestamp()), oldest);
+        double begin = Math.max(end - CONSTANTS.getPoseHistoryVelocityWindow(), oldest);
+        if (end <= begin) {
+            // At the oldest pose, use the first two.
+            end = times[(start + 1) & (capacity - 1)];
+        }
+        double beginX, beginY, beginTheta;
+        interpolate(begin, odometryX, odometryY, odometryTheta, scratch);
+        beginX = scratch[0];
+        beginY = scratch[1];
+        beginTheta = scratch[2];
+        interpolate(end, odometryX, odometryY, odometryTheta, scratch);
+        double dt = end - begin;
+        double odometryVelocityX = (scratch[0] - beginX) / dt;
+        double odometryVelocityY = (scratch[1] - beginY) / dt;
+        velocity[2] = MathUtil.angleModulus(scratch[2] - beginTheta) / dt;
+
+        double endOdometryTheta = scratch[2];
+        interpolate(end, x, y, theta, scratch);
+        double offset = scratch[2] - endOdometryTheta;
+        double cos = Math.cos(offset), sin = Math.sin(offset);
+        velocity[0] = odometryVelocityX * cos - odometryVelocityY * sin;
+        velocity[1] = odometryVelocityX * sin + odometryVelocityY * cos;
+        return true;
+    }
+
+    /**
+     * @return Speed over the ground at the newest pose, or 0 if unknown. Value in
+     *         Meters per Second.
+     */
+    public double getLatestSpeed() {
+        if (!getVelocityAt(getLatestTimestamp(), velocity)) {
+            return 0;
+        }
+        return Math.hypot(velocity[0], velocity[1]);
+    }
+
+    /**
+     * Predicts the pose at a time after the newest pose, e.g. when a command
+     * will take effect, assuming the robot keeps its current velocity. Times
+     * within the history are interpolated instead.
+     *
+     * @param timestamp Value in Seconds.
+     * @param pose      Filled with X & Y in Meters, and rotation in Radians.
+     * @return {@code false}, leaving {@code pose} unchanged, if the history is
+     *         empty.
+     */
+    public boolean predict(double timestamp, double[] pose) {
+        double latest = getLatestTimestamp();
+        if (size < 2 || timestamp <= latest) {
+            return getPoseAt(timestamp, pose);
+        }
+        getVelocityAt(latest, velocity);
+        getPoseAt(latest, pose);
+        double dt = timestamp - latest;
+        pose[0] += velocity[0] * dt;
+        pose[1] += velocity[1] * dt;
+        pose[2] = MathUtil.angleModulus(pose[2] + velocity[2] * dt);
+        return true;
+    }
+
+    /**
+     * @param timestamp Value in Seconds.
+     * @return The predicted pose, see {@link #predict(double, double[])}.
+     */
+    public Optional<Pose2d> predict(double timestamp) {
+        if (!predict(timestamp, scratch)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Pose2d(scratch[0], scratch[1], new Rotation2d(scratch[2])));
+    }
+
+    // ========================= Helper Methods ================================
+
+    /**
+     * Interpolates one of the recorded tracks, see
+     * {@link #getPoseAt(double, double[])}.
+     */
+    private boolean interpolate(double timestamp, double[] xs, double[] ys, double[] thetas, double[] out) {
+        if (size == 0) {
+            return false;
+        }
+        // First sample after the timestamp, by binary search.
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[(start + middle) & (capacity - 1)] <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int before = (start + Math.max(low - 1, 0)) & (capacity - 1);
+        int after = (start + Math.min(low, size - 1)) & (capacity - 1);
+        if (before == after || times[after] <= times[before]) {
+            out[0] = xs[before];
+            out[1] = ys[before];
+            out[2] = thetas[before];
+            return true;
+        }
+
+        double fraction = MathUtil.clamp((timestamp - times[before]) / (times[after] - times[before]), 0, 1);
+        out[0] = xs[before] + (xs[after] - xs[before]) * fraction;
+        out[1] = ys[before] + (ys[after] - ys[before]) * fraction;
+        out[2] = MathUtil.angleModulus(
+                thetas[before] + MathUtil.angleModulus(thetas[after] - thetas[before]) * fraction);
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package frc.robot.subsystems.base;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+/**
+ * Runs a second estimator alongside the one in use, on the same inputs, to
+ * compare their cost & results on the robot (or on a replayed log).
+ * <p>
+ * The time spent in each is added up and logged, along with how far apart
+ * their estimates are. Only the primary estimator's pose is used.
+ * </p>
+ */
+public class ShadowSwervePoseEstimator implements SwervePoseEstimator {
+
+    private final SwervePoseEstimator primary, shadow;
+    private long primaryNanos, shadowNanos;
+
+    ShadowSwervePoseEstimator(SwervePoseEstimator primary, SwervePoseEstimator shadow) {
+        this.primary = primary;
+        this.shadow = shadow;
+    }
+
+    @Override
+    public void resetPosition(Rotation2d gyroAngle, SwerveModulePosition[] positions, Pose2d pose) {
+        primary.resetPosition(gyroAngle, positions, pose);
+        shadow.resetPosition(gyroAngle, positions, pose);
+    }
+
+    @Override
+    public void updateWithTime(double timestamp, Rotation2d gyroAngle, SwerveModulePosition[] positions) {
+        long start = System.nanoTime();
+        primary.updateWithTime(timestamp, gyroAngle, positions);
+        long middle = System.nanoTime();
+        shadow.updateWithTime(timestamp, gyroAngle, positions);
+        record(start, middle, System.nanoTime());
+    }
+
+    @Override
+    public void addVisionMeasurement(Pose2d pose, double timestamp, double[] stdDevs) {
+        long start = System.nanoTime();
+        primary.addVisionMeasurement(pose, timestamp, stdDevs);
+        long middle = System.nanoTime();
+        shadow.addVisionMeasurement(pose, timestamp, stdDevs);
+        record(start, middle, System.nanoTime());
+    }
+
+    @Override
+    public void addVisionMeasurements(Pose2d[] poses, double[] timestamps, double[][] stdDevs, int count) {
+        long start = System.nanoTime();
+        primary.addVisionMeasurements(poses, timestamps, stdDevs, count);
+        long middle = System.nanoTime();
+        shadow.addVisionMeasurements(poses, timestamps, stdDevs, count);
+        record(start, middle, System.nanoTime());
+    }
+
+    @Override
+    public Pose2d getEstimatedPosition() {
+        return primary.getEstimatedPosition();
+    }
+
+    // ========================= Helper Methods ================================
+
+    private void record(long start, long middle, long end) {
+        primaryNanos += middle - start;
+        shadowNanos += end - middle;
+        Pose2d primaryPose = primary.getEstimatedPosition();
+        Pose2d shadowPose = shadow.getEstimatedPosition();
+        Logger.recordOutput("Drive/PoseEstimator/PrimaryNanos", primaryNanos);
+        Logger.recordOutput("Drive/PoseEstimator/ShadowNanos", shadowNanos);
+        Logger.recordOutput("Drive/PoseEstimator/ShadowPose", shadowPose);
+        Logger.recordOutput("Drive/PoseEstimator/DifferenceMeters",
+                primaryPose.getTranslation().getDistance(shadowPose.getTranslation()));
+        Logger.recordOutput("Drive/PoseEstimator/DifferenceRadians",
+                primaryPose.getRotation().minus(shadowPose.getRotation()).getRadians());
+    }
+}
@@ -0,0 +1,214 @@
+package frc.robot.subsystems.base;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.Arrays;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+/**
+ * Finds a wheel that is slipping (e.g. while pushing or accelerating hard), and
+ * keeps its motion out of the odometry.
+ * <p>
+ * For each odometry sample, every module's motion is compared with the rigid
+ * body motion fit from the other modules and the gyro's change in yaw (or, if
+ * there is no gyro, the rotation fit from those modules too). The module that
+ * disagrees the most, if it disagrees by more than
+ * {@link frc.robot.constants.AbstractConstants#getSlipVelocityThreshold()}, is
+ * slipping. Its position is replaced by where the rigid body fit says it went,
+ * so the pose estimator only sees the other modules' motion.
+ * </p>
+ * <p>
+ * Only one module is excluded per sample, the fit can't tell which is wrong if
+ * more slip at once.
+ * </p>
+ */
+public class SlipDetector {
+
+    // ========================= Object Level ==================================
+
+    private final double[] moduleX, moduleY; // Meters, robot relative.
+    private final double[] lastDistances; // Measured, Meters.
+    private final double[] distances; // Given to the odometry, Meters.
+    private final double[] rawDeltas; // This sample's, Meters.
+    private final double[] deltaX, deltaY; // This sample's motion, Meters.
+    private final double[] residuals; // Meters per Second.
+    private double fitX, fitY; // Result of fitWithout(), Meters.
+    private final SwerveModulePosition[] positions;
+    private Rotation2d lastYaw;
+    private boolean isReset = true;
+
+    private int slippingModule = -1;
+    private final double[] maxResiduals; // Since the last loop, Meters per Second.
+    private final boolean[] wasSlipping;
+    private final int[] slipEvents;
+
+    SlipDetector(Translation2d[] moduleTranslations) {
+        int count = moduleTranslations.length;
+        moduleX = new double[count];
+        moduleY = new double[count];
+        for (int i = 0; i < count; i++) {
+            moduleX[i] = moduleTranslations[i].getX();
+            moduleY[i] = moduleTranslations[i].getY();
+        }
+        lastDistances = new double[count];
+        distances = new double[count];
+        rawDeltas = new double[count];
+        deltaX = new double[count];
+        deltaY = new double[count];
+        residuals = new double[count];
+        positions = new SwerveModulePosition[count];
+        maxResiduals = new double[count];
+        wasSlipping = new boolean[count];
+        slipEvents = new int[count];
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Checks one odometry sample.
+     *
+     * @param measured      Module positions of this sample.
+     * @param yaw           Gyro yaw of this sample.
+     * @param isYawMeasured {@code false} if there is no gyro.
+     * @param dt            Time since the previous sample, in Seconds.
+     * @return Module positions to give the pose estimator. The array is reused by
+     *         the next call.
+     */
+    public SwerveModulePosition[] update(SwerveModulePosition[] measured, Rotation2d yaw, boolean isYawMeasured,
+            double dt) {
+        if (isReset) {
+            for (int i = 0; i < measured.length; i++) {
+                lastDistances[i] = measured[i].distanceMeters;
+                distances[i] = measured[i].distanceMeters;
+                positions[i] = measured[i];
+            }
+            lastYaw = yaw;
+            isReset = false;
+            return positions;
+        }
+
+        // Robot relative motion of each module.
+        for (int i = 0; i < measured.length; i++) {
+            rawDeltas[i] = measured[i].distanceMeters - lastDistances[i];
+            lastDistances[i] = measured[i].distanceMeters;
+            deltaX[i] = rawDeltas[i] * measured[i].angle.getCos();
+            deltaY[i] = rawDeltas[i] * measured[i].angle.getSin();
+        }
+        double yawDelta = yaw.minus(lastYaw).getRadians();
+        lastYaw = yaw;
+
+        // Compare each module with the others' fit.
+        int worst = -1;
+        for (int i = 0; i < measured.length; i++) {
+            fitWithout(i, isYawMeasured, yawDelta);
+            residuals[i] = Math.hypot(deltaX[i] - fitX, deltaY[i] - fitY) / Math.max(dt, 1e-3);
+            maxResiduals[i] = Math.max(maxResiduals[i], residuals[i]);
+            if (worst < 0 || residuals[i] > residuals[worst]) {
+                worst = i;
+            }
+        }
+        slippingModule = worst >= 0 && residuals[worst] > CONSTANTS.getSlipVelocityThreshold() ? worst : -1;
+
+        for (int i = 0; i < measured.length; i++) {
+            if (i == slippingModule) {
+                // Move it where the other modules say it went instead.
+                fitWithout(i, isYawMeasured, yawDelta);
+                double distance = Math.hypot(fitX, fitY);
+                distances[i] += distance;
+                positions[i] = new SwerveModulePosition(distances[i],
+                        distance > 1e-6 ? new Rotation2d(fitX, fitY) : measured[i].angle);
+                if (!wasSlipping[i]) {
+                    slipEvents[i]++;
+                }
+            } else {
+                distances[i] += rawDeltas[i];
+                positions[i] = new SwerveModulePosition(distances[i], measured[i].angle);
+            }
+            wasSlipping[i] = i == slippingModule;
+        }
+        return positions;
+    }
+
+    /** Starts again from the next sample, e.g. after the odometry is reset. */
+    public void reset() {
+        isReset = true;
+    }
+
+    /**
+     * @return The module slipping in the last sample, or -1 if none is.
+     */
+    public int getSlippingModule() {
+        return slippingModule;
+    }
+
+    /**
+     * @return The largest disagreement of any module with the others since the
+     *         last {@link #log()}, in Meters per Second.
+     */
+    public double getMaxResidual() {
+        double max = 0;
+        for (double residual : maxResiduals) {
+            max = Math.max(max, residual);
+        }
+        return max;
+    }
+
+    /**
+     * Logs the largest disagreement of each module with the others since the
+     * last call, and how many times each has started slipping. Called once per
+     * loop.
+     */
+    public void log() {
+        Logger.recordOutput("Drive/Slip/MaxResidualsMetersPerSecond", maxResiduals);
+        Logger.recordOutput("Drive/Slip/Events", slipEvents);
+        Logger.recordOutput("Drive/Slip/SlippingModule", slippingModule);
+        Arrays.fill(maxResiduals, 0);
+    }
+
+    // ========================= Helper Methods ================================
+
+    /**
+     * Fits the rigid body motion of every module but one, and finds where that
+     * motion puts the left out module.
+     */
+    private void fitWithout(int excluded, boolean isYawMeasured, double yawDelta) {
+        int count = 0;
+        double meanX = 0, meanY = 0, meanDx = 0, meanDy = 0;
+        for (int j = 0; j < moduleX.length; j++) {
+            if (j != excluded) {
+                meanX += moduleX[j];
+                meanY += moduleY[j];
+                meanDx += deltaX[j];
+                meanDy += deltaY[j];
+                count++;
+            }
+        }
+        meanX /= count;
+        meanY /= count;
+        meanDx /= count;
+        meanDy /= count;
+
+        double rotation = yawDelta;
+        if (!isYawMeasured) {
+            // Least squares rotation about the modules' center.
+            double cross = 0, lengthSquared = 0;
+            for (int j = 0; j < moduleX.length; j++) {
+                if (j != excluded) {
+                    double x = moduleX[j] - meanX, y = moduleY[j] - meanY;
+                    cross += x * (deltaY[j] - meanDy) - y * (deltaX[j] - meanDx);
+                    lengthSquared += x * x + y * y;
+                }
+            }
+            rotation = lengthSquared > 0 ? cross / lengthSquared : 0;
+        }
+
+        // Motion of a point is the center's motion plus the rotation about it.
+        fitX = meanDx - rotation * (moduleY[excluded] - meanY);
+        fitY = meanDy + rotation * (moduleX[excluded] - meanX);
+    }
+}
@@ -0,0 +1,48 @@
+package frc.robot.subsystems.base;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Fuses swerve odometry with vision, behind one API so the implementation can
+ * be swapped (see
+ * {@link frc.robot.constants.AbstractConstants#useFastPoseEstimator()}).
+ */
+public interface SwervePoseEstimator {
+
+    /** Sets the pose, e.g. at the start of autonomous. */
+    public void resetPosition(Rotation2d gyroAngle, SwerveModulePosition[] positions, Pose2d pose);
+
+    /**
+     * Adds an odometry sample.
+     *
+     * @param timestamp When the sample was taken, in Seconds.
+     */
+    public void updateWithTime(double timestamp, Rotation2d gyroAngle, SwerveModulePosition[] positions);
+
+    /** Adds an odometry sample taken now. */
+    public default void update(Rotation2d gyroAngle, SwerveModulePosition[] positions) {
+        updateWithTime(Timer.getFPGATimestamp(), gyroAngle, positions);
+    }
+
+    /**
+     * @param timestamp When the image was taken, in Seconds.
+     * @param stdDevs   X & Y in Meters, rotation in Radians.
+     */
+    public void addVisionMeasurement(Pose2d pose, double timestamp, double[] stdDevs);
+
+    /**
+     * Adds several vision measurements at once, e.g. one per camera.
+     *
+     * @param count How many of the arrays' elements to use.
+     */
+    public default void addVisionMeasurements(Pose2d[] poses, double[] timestamps, double[][] stdDevs, int count) {
+        for (int i = 0; i < count; i++) {
+            addVisionMeasurement(poses[i], timestamps[i], stdDevs[i]);
+        }
+    }
+
+    public Pose2d getEstimatedPosition();
+}
@@ -0,0 +1,134 @@
+package frc.robot.subsystems.base;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Limits how fast the module setpoints can change from one loop to the next, so
+ * sudden stick inputs don't slip the wheels or spike the current.
+ * <p>
+ * Each module's velocity is treated as a vector, so speeding up, slowing down
+ * and changing direction all count as acceleration. All modules are slowed by
+ * the same fraction, which keeps the robot moving in the requested direction
+ * while it catches up. Steering is then limited per module, and each module
+ * turns whichever way (forwards or flipped) is closer to its previous setpoint
+ * rather than its measured angle.
+ * </p>
+ * <p>
+ * The math runs on arrays kept between loops, nothing is allocated except the
+ * setpoint angles.
+ * </p>
+ */
+public class SwerveSetpointGenerator {
+
+    // ========================= Class Level ===================================
+
+    /** Below this speed a module keeps its angle instead of steering. */
+    private static final double STOPPED_SPEED = 1e-3; // Meters per Second.
+
+    // ========================= Object Level ==================================
+
+    private final double[] speeds; // Previous setpoint, Meters per Second.
+    private final double[] angles; // Previous setpoint, Radians.
+    private final double[] deltaX, deltaY;
+    private final SwerveModuleState[] setpoints;
+    private boolean isReset = true;
+    private double scale = 1;
+
+    SwerveSetpointGenerator(int moduleCount) {
+        speeds = new double[moduleCount];
+        angles = new double[moduleCount];
+        deltaX = new double[moduleCount];
+        deltaY = new double[moduleCount];
+        setpoints = new SwerveModuleState[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            setpoints[i] = new SwerveModuleState();
+        }
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Starts the next setpoint from stopped modules at their measured angles, e.g.
+     * after the modules have been stopped.
+     */
+    public void reset() {
+        isReset = true;
+    }
+
+    /**
+     * @param desired  Desaturated module states from the kinematics.
+     * @param measured Current module states, only their angles are used after a
+     *                 {@link #reset()}.
+     * @param dt       Time until the next setpoint, in Seconds.
+     * @return The limited setpoints. The array & states are reused by the next
+     *         call.
+     */
+    public SwerveModuleState[] generate(SwerveModuleState[] desired, SwerveModuleState[] measured, double dt) {
+        if (isReset) {
+            for (int i = 0; i < speeds.length; i++) {
+                speeds[i] = 0;
+                angles[i] = measured[i].angle.getRadians();
+            }
+            isReset = false;
+        }
+
+        // Find how much of the change every module can make this loop.
+        double maxDelta = CONSTANTS.getSwerveMaxAcceleration() * dt;
+        double totalDelta = 0;
+        scale = 1;
+        for (int i = 0; i < speeds.length; i++) {
+            deltaX[i] = desired[i].speedMetersPerSecond * desired[i].angle.getCos()
+                    - speeds[i] * Math.cos(angles[i]);
+            deltaY[i] = desired[i].speedMetersPerSecond * desired[i].angle.getSin()
+                    - speeds[i] * Math.sin(angles[i]);
+            double delta = Math.hypot(deltaX[i], deltaY[i]);
+            totalDelta += delta;
+            if (delta > maxDelta) {
+                scale = Math.min(scale, maxDelta / delta);
+            }
+        }
+        double currentLimitedDelta = CONSTANTS.getSwerveAccelerationCurrentBudget() * dt
+                / CONSTANTS.getSwerveCurrentPerAcceleration();
+        if (totalDelta > currentLimitedDelta) {
+            scale = Math.min(scale, currentLimitedDelta / totalDelta);
+        }
+
+        double maxSteer = CONSTANTS.getSwerveMaxSteerVelocity() * dt;
+        for (int i = 0; i < speeds.length; i++) {
+            double x = speeds[i] * Math.cos(angles[i]) + scale * deltaX[i];
+            double y = speeds[i] * Math.sin(angles[i]) + scale * deltaY[i];
+            double speed = Math.hypot(x, y);
+            if (speed < STOPPED_SPEED) {
+                speeds[i] = 0;
+            } else {
+                // Drive forwards or flipped, whichever is closer to the previous setpoint.
+                double error = MathUtil.angleModulus(Math.atan2(y, x) - angles[i]);
+                if (Math.abs(error) > Math.PI / 2) {
+                    error = MathUtil.angleModulus(error + Math.PI);
+                    speed = -speed;
+                }
+
+                // Only push in the direction the module can point this loop.
+                double steer = MathUtil.clamp(error, -maxSteer, maxSteer);
+                angles[i] = MathUtil.angleModulus(angles[i] + steer);
+                speeds[i] = speed * Math.cos(error - steer);
+            }
+
+            setpoints[i].speedMetersPerSecond = speeds[i];
+            setpoints[i].angle = Rotation2d.fromRadians(angles[i]);
+        }
+        return setpoints;
+    }
+
+    /**
+     * @return Fraction of the requested change the last setpoint made, 1 when
+     *         nothing was limited.
+     */
+    public double getScale() {
+        return scale;
+    }
+}
@@ -0,0 +1,44 @@
+package frc.robot.subsystems.base;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+/** WPILib's {@link SwerveDrivePoseEstimator}. */
+public class WpilibSwervePoseEstimator implements SwervePoseEstimator {
+
+    private final SwerveDrivePoseEstimator estimator;
+
+    /**
+     * @param stateStdDevs Odometry's, X & Y in Meters, rotation in Radians.
+     */
+    WpilibSwervePoseEstimator(SwerveDriveKinematics kinematics, Rotation2d gyroAngle,
+            SwerveModulePosition[] positions, Pose2d pose, double[] stateStdDevs) {
+        estimator = new SwerveDrivePoseEstimator(kinematics, gyroAngle, positions, pose,
+                VecBuilder.fill(stateStdDevs[0], stateStdDevs[1], stateStdDevs[2]),
+                VecBuilder.fill(1, 1, 1)); // Replaced by each measurement's.
+    }
+
+    @Override
+    public void resetPosition(Rotation2d gyroAngle, SwerveModulePosition[] positions, Pose2d pose) {
+        estimator.resetPosition(gyroAngle, positions, pose);
+    }
+
+    @Override
+    public void updateWithTime(double timestamp, Rotation2d gyroAngle, SwerveModulePosition[] positions) {
+        estimator.updateWithTime(timestamp, gyroAngle, positions);
+    }
+
+    @Override
+    public void addVisionMeasurement(Pose2d pose, double timestamp, double[] stdDevs) {
+        estimator.addVisionMeasurement(pose, timestamp, VecBuilder.fill(stdDevs[0], stdDevs[1], stdDevs[2]));
+    }
+
+    @Override
+    public Pose2d getEstimatedPosition() {
+        return estimator.getEstimatedPosition();
+    }
+}
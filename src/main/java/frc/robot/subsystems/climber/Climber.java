@@ -5,13 +5,15 @@ import static frc.robot.constants.AbstractConstants.CONSTANTS;
 import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
 
-import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 import com.revrobotics.CANSparkMax;
 
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.StartEndCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.constants.AbstractConstants;
+import frc.robot.util.DeviceConfigurator;
+import frc.robot.util.RateScheduler;
 
 public class Climber extends SubsystemBase {
 
@@ -20,6 +22,9 @@ public class Climber extends SubsystemBase {
         public double currentLeftPositionRotations;
         public double currentRightPositionRotations;
         public double currentAveragePositionRotations;
+
+        public double lAppliedOutput, rAppliedOutput;
+        public double lOutputCurrent, rOutputCurrent;
     }
 
     private final CANSparkMax motorL = new CANSparkMax(CONSTANTS.getClimberMotorIdLeft(), MotorType.kBrushless);
@@ -28,21 +33,18 @@ public class Climber extends SubsystemBase {
     private final ClimberInputsAutoLogged inputs = new ClimberInputsAutoLogged();
 
     public Climber() {
-        motorL.setInverted(true);
-        motorR.setInverted(false);
-        motorL.setIdleMode(IdleMode.kBrake);
-        motorR.setIdleMode(IdleMode.kBrake);
-        motorL.setSmartCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentLimit());
-        motorR.setSmartCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentLimit());
-        motorL.setSecondaryCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentSecondaryLimit());
-        motorR.setSecondaryCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentSecondaryLimit());
-    }
-
-    @Override
-    public void periodic() {
-        // Log Inputs.
-        updateInputs();
-        Logger.processInputs("Climber/Climber", inputs);
+        DeviceConfigurator.submit(AbstractConstants.getRioCanBusId(), "Climber/Left",
+                () -> DeviceConfigurator.applySparkMaxDefaults(motorL, true),
+                () -> DeviceConfigurator.verifySparkMaxDefaults(motorL, true));
+        DeviceConfigurator.submit(AbstractConstants.getRioCanBusId(), "Climber/Right",
+                () -> DeviceConfigurator.applySparkMaxDefaults(motorR, false),
+                () -> DeviceConfigurator.verifySparkMaxDefaults(motorR, false));
+
+        // Only used for logging, so it does not need to run every loop.
+        RateScheduler.schedule(CONSTANTS.getClimberLogFrequency(), () -> {
+            updateInputs();
+            Logger.processInputs("Climber/Climber", inputs);
+        });
     }
 
     private void updateInputs() {
@@ -51,6 +53,21 @@ public class Climber extends SubsystemBase {
         inputs.currentRightPositionRotations = motorR.getEncoder().getPosition();
         inputs.currentAveragePositionRotations = (inputs.currentLeftPositionRotations
                 + inputs.currentRightPositionRotations) / 2;
+
+        inputs.lAppliedOutput = motorL.getAppliedOutput();
+        inputs.lOutputCurrent = motorL.getOutputCurrent();
+        inputs.rAppliedOutput = motorR.getAppliedOutput();
+        inputs.rOutputCurrent = motorR.getOutputCurrent();
+    }
+
+    /**
+     * @return Current drawn from the battery by both motors, their currents
+     *         scaled by their duty cycles. Only as recent as the last logged
+     *         inputs. Value in Amps.
+     */
+    public double getSupplyCurrent() {
+        return Math.abs(inputs.lOutputCurrent * inputs.lAppliedOutput)
+                + Math.abs(inputs.rOutputCurrent * inputs.rAppliedOutput);
     }
 
     public void setVoltage(double volts) {
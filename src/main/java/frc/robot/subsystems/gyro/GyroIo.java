@@ -11,6 +11,27 @@ public interface GyroIo {
         public boolean connected = false;
         public Rotation2d yawPosition = new Rotation2d();
         public double yawVelocityRadPerSec = 0.0;
+        /** Yaw extrapolated by its velocity to when the inputs were read. */
+        public Rotation2d yawLatencyCompensated = new Rotation2d();
+        /** When the yaw was measured, in Seconds (FPGA time). */
+        public double yawTimestamp = 0.0;
+
+        /** About the robot's Y axis. */
+        public Rotation2d pitchPosition = new Rotation2d();
+        public double pitchVelocityRadPerSec = 0.0;
+        /** About the robot's X axis. */
+        public Rotation2d rollPosition = new Rotation2d();
+        public double rollVelocityRadPerSec = 0.0;
+
+        /** Robot relative, including gravity. Values in Meters per Second². */
+        public double accelerationX = 0.0;
+        public double accelerationY = 0.0;
+        public double accelerationZ = 0.0;
+        /** When the acceleration was measured, in Seconds (FPGA time). */
+        public double accelerationTimestamp = 0.0;
+
+        // Samples taken since the last loop, see OdometryThread.
+        public Rotation2d[] odometryYawPositions = new Rotation2d[] {};
     }
 
     public void updateInputs(GyroIoInputs inputs);
@@ -1,21 +1,35 @@
 package frc.robot.subsystems.gyro;
 
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import org.littletonrobotics.junction.Logger;
+
 import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusCode;
 import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.Utils;
 import com.ctre.phoenix6.configs.Pigeon2Configuration;
 import com.ctre.phoenix6.hardware.Pigeon2;
 
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.util.Units;
+import frc.robot.constants.AbstractConstants;
+import frc.robot.util.DeviceConfigurator;
+import frc.robot.util.OdometryThread;
 
 /** IO implementation for Pigeon2 */
 public class GyroIoPigeon2 implements GyroIo {
 
+    private static final double STANDARD_GRAVITY = 9.80665; // Meters per Second².
+
     private final Pigeon2 pigeon;
 
     private final StatusSignal<Double> yaw;
     private final StatusSignal<Double> yawVelocity;
+    private final StatusSignal<Double> pitch, pitchVelocity;
+    private final StatusSignal<Double> roll, rollVelocity;
+    private final StatusSignal<Double> accelerationX, accelerationY, accelerationZ;
+    private final int odometryYawIndex;
 
     public GyroIoPigeon2(int deviceId, String canbus) {
 
@@ -27,18 +41,74 @@ public class GyroIoPigeon2 implements GyroIo {
 
         yaw = pigeon.getYaw();
         yawVelocity = pigeon.getAngularVelocityZWorld();
+        pitch = pigeon.getPitch();
+        pitchVelocity = pigeon.getAngularVelocityYWorld();
+        roll = pigeon.getRoll();
+        rollVelocity = pigeon.getAngularVelocityXWorld();
+        accelerationX = pigeon.getAccelerationX();
+        accelerationY = pigeon.getAccelerationY();
+        accelerationZ = pigeon.getAccelerationZ();
+        odometryYawIndex = OdometryThread.getInstance().register(yaw.clone(),
+                canbus == null ? AbstractConstants.getRioCanBusId() : canbus);
 
-        pigeon.getConfigurator().apply(new Pigeon2Configuration());
-        pigeon.getConfigurator().setYaw(0.0);
-        yaw.setUpdateFrequency(100.0);
-        yawVelocity.setUpdateFrequency(100.0);
-        pigeon.optimizeBusUtilization();
+        Pigeon2Configuration configuration = new Pigeon2Configuration();
+        DeviceConfigurator.submit(canbus == null ? AbstractConstants.getRioCanBusId() : canbus, "Gyro",
+                () -> DeviceConfigurator.isOk(pigeon.getConfigurator().apply(configuration))
+                        && DeviceConfigurator.isOk(pigeon.getConfigurator().setYaw(0.0))
+                        && DeviceConfigurator.isOk(yaw.setUpdateFrequency(CONSTANTS.getOdometryFrequency()))
+                        // In step with the yaw, so it can be latency compensated.
+                        && DeviceConfigurator.isOk(yawVelocity.setUpdateFrequency(CONSTANTS.getOdometryFrequency()))
+                        && DeviceConfigurator.isOk(BaseStatusSignal.setUpdateFrequencyForAll(
+                                CONSTANTS.getGyroFrequency(), pitch, pitchVelocity, roll, rollVelocity,
+                                accelerationX, accelerationY, accelerationZ))
+                        && DeviceConfigurator.isOk(pigeon.optimizeBusUtilization()),
+                () -> {
+                    Pigeon2Configuration actual = new Pigeon2Configuration();
+                    return DeviceConfigurator.isOk(pigeon.getConfigurator().refresh(actual))
+                            && actual.MountPose.MountPoseYaw == configuration.MountPose.MountPoseYaw
+                            && actual.MountPose.MountPosePitch == configuration.MountPose.MountPosePitch
+                            && actual.MountPose.MountPoseRoll == configuration.MountPose.MountPoseRoll;
+                });
     }
 
     @Override
     public void updateInputs(GyroIoInputs inputs) {
-        inputs.connected = BaseStatusSignal.refreshAll(yaw, yawVelocity).equals(StatusCode.OK);
+        inputs.connected = BaseStatusSignal.refreshAll(yaw, yawVelocity, pitch, pitchVelocity, roll, rollVelocity,
+                accelerationX, accelerationY, accelerationZ).equals(StatusCode.OK);
         inputs.yawPosition = Rotation2d.fromDegrees(yaw.getValueAsDouble()).plus(Rotation2d.fromDegrees(0));
         inputs.yawVelocityRadPerSec = Units.degreesToRadians(yawVelocity.getValueAsDouble());
+        inputs.yawLatencyCompensated = Rotation2d
+                .fromDegrees(BaseStatusSignal.getLatencyCompensatedValue(yaw, yawVelocity));
+        inputs.yawTimestamp = toFpgaTime(yaw.getTimestamp().getTime());
+
+        inputs.pitchPosition = Rotation2d.fromDegrees(pitch.getValueAsDouble());
+        inputs.pitchVelocityRadPerSec = Units.degreesToRadians(pitchVelocity.getValueAsDouble());
+        inputs.rollPosition = Rotation2d.fromDegrees(roll.getValueAsDouble());
+        inputs.rollVelocityRadPerSec = Units.degreesToRadians(rollVelocity.getValueAsDouble());
+
+        // Reported in g.
+        inputs.accelerationX = accelerationX.getValueAsDouble() * STANDARD_GRAVITY;
+        inputs.accelerationY = accelerationY.getValueAsDouble() * STANDARD_GRAVITY;
+        inputs.accelerationZ = accelerationZ.getValueAsDouble() * STANDARD_GRAVITY;
+        inputs.accelerationTimestamp = toFpgaTime(accelerationX.getTimestamp().getTime());
+
+        OdometryThread odometry = OdometryThread.getInstance();
+        double[] yawSamples = odometry.getValues(odometryYawIndex);
+        inputs.odometryYawPositions = new Rotation2d[odometry.getSampleCount()];
+        for (int i = 0; i < inputs.odometryYawPositions.length; i++) {
+            inputs.odometryYawPositions[i] = Rotation2d.fromDegrees(yawSamples[i]);
+        }
+    }
+
+    /**
+     * Phoenix timestamps are in its own timebase, see
+     * {@link Utils#getCurrentTimeSeconds()}, the inverse of
+     * {@link Utils#fpgaToCurrentTime(double)}.
+     *
+     * @param phoenixTime In Seconds.
+     * @return The same instant in FPGA time, in Seconds.
+     */
+    private static double toFpgaTime(double phoenixTime) {
+        return phoenixTime - Utils.getCurrentTimeSeconds() + Logger.getRealTimestamp() / 1e6;
     }
 }
\ No newline at end of file
@@ -1,16 +1,26 @@
 package frc.robot.subsystems.gyro;
 
+import edu.wpi.first.wpilibj.Timer;
+
 /**
  * Provides no finction.
+ * <p>
+ * In simulation the robot sits level, with only gravity on the accelerometer.
+ * In log replay the inputs are overwritten by the logged ones.
+ * </p>
  */
 public class GyroIoSimAndReplay implements GyroIo  {
 
+  private static final double STANDARD_GRAVITY = 9.80665; // Meters per Second².
+
   public GyroIoSimAndReplay() {
     // Nothing to define.
   }
 
   @Override
   public void updateInputs(GyroIoInputs inputs) {
-    // Does Nothing.
+    inputs.accelerationZ = STANDARD_GRAVITY;
+    inputs.yawTimestamp = Timer.getFPGATimestamp();
+    inputs.accelerationTimestamp = inputs.yawTimestamp;
   }
-}
\ No newline at end of file
+}
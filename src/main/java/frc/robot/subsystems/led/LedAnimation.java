@@ -0,0 +1,125 @@
+package frc.robot.subsystems.led;
+
+import java.util.Arrays;
+
+import edu.wpi.first.wpilibj.util.Color;
+
+/**
+ * A precomputed LED animation.
+ * <p>
+ * All frames are calculated once, when the animation is created, and stored in
+ * a ring that {@link Leds} steps through. Each frame holds one packed
+ * {@code 0xRRGGBB} value per LED.
+ * </p>
+ */
+public class LedAnimation {
+
+    // ========================= Class Level =========================
+
+    /**
+     * @param color  {@link Color} for every LED.
+     * @param length Number of LEDs.
+     * @return An animation with a single frame.
+     */
+    public static LedAnimation solid(Color color, int length) {
+        return new LedAnimation(new Color[] { color }, false, true, length);
+    }
+
+    /**
+     * Repeats a pattern across the LEDs. If the pattern does not fit evenly into
+     * the LEDs, it will be truncated.
+     *
+     * @param pattern Array of {@link Color}s.
+     * @param length  Number of LEDs.
+     * @return An animation with a single frame.
+     */
+    public static LedAnimation staticPattern(Color[] pattern, int length) {
+        return new LedAnimation(pattern, false, true, length);
+    }
+
+    /**
+     * Repeats a pattern across the LEDs and scrolls it by one LED every frame.
+     *
+     * @param pattern         Array of {@link Color}s.
+     * @param isScrollFowards Scroll fowards when {@code true}, backwards when
+     *                        {@code false}.
+     * @param length          Number of LEDs.
+     * @return An animation with one frame per color in the pattern.
+     */
+    public static LedAnimation scrollingPattern(Color[] pattern, boolean isScrollFowards, int length) {
+        return new LedAnimation(pattern, true, isScrollFowards, length);
+    }
+
+    private static int pack(Color color) {
+        return ((int) (color.red * 255) << 16) | ((int) (color.green * 255) << 8) | (int) (color.blue * 255);
+    }
+
+    // ========================= Object Level =========================
+
+    private final Color[] pattern;
+    private final boolean isScrolling;
+    private final boolean isScrollFowards;
+    private final int[][] frames;
+
+    private LedAnimation(Color[] pattern, boolean isScrolling, boolean isScrollFowards, int length) {
+
+        if (pattern.length == 0) {
+            throw new RuntimeException("Pattern size may not be 0");
+        }
+
+        this.pattern = pattern.clone();
+        this.isScrolling = isScrolling;
+        this.isScrollFowards = isScrollFowards;
+
+        int[] packedPattern = new int[pattern.length];
+        for (int i = 0; i < pattern.length; i++) {
+            packedPattern[i] = pack(pattern[i]);
+        }
+
+        // A scrolling pattern repeats after it has moved by its own length.
+        frames = new int[isScrolling ? pattern.length : 1][length];
+        for (int frame = 0; frame < frames.length; frame++) {
+            int shift = isScrollFowards ? pattern.length - frame : frame;
+            for (int led = 0; led < length; led++) {
+                frames[frame][led] = packedPattern[(led + shift) % pattern.length];
+            }
+        }
+    }
+
+    // ========================= Functions =========================
+
+    /**
+     * @return The frame at the given position in the ring (wraps around).
+     */
+    public int[] getFrame(int index) {
+        return frames[Math.floorMod(index, frames.length)];
+    }
+
+    public int getFrameCount() {
+        return frames.length;
+    }
+
+    /**
+     * @return The same pattern, without scrolling.
+     */
+    public LedAnimation toStatic() {
+        return isScrolling ? staticPattern(pattern, frames[0].length) : this;
+    }
+
+    /**
+     * @return {@code true} if this animation shows a single color on every LED.
+     */
+    public boolean isSolid(Color color) {
+        return !isScrolling && pattern.length == 1 && pattern[0].equals(color);
+    }
+
+    /**
+     * @return {@code true} if this animation was created with the same arguments,
+     *         so it does not need to be recomputed.
+     */
+    public boolean isSameAs(Color[] pattern, boolean isScrolling, boolean isScrollFowards) {
+        return this.isScrolling == isScrolling
+                && (!isScrolling || this.isScrollFowards == isScrollFowards)
+                && Arrays.equals(this.pattern, pattern);
+    }
+}
@@ -2,60 +2,71 @@ package frc.robot.subsystems.led;
 
 import static frc.robot.constants.AbstractConstants.CONSTANTS;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.wpilibj.AddressableLED;
 import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.RateScheduler;
 
 public class Leds extends SubsystemBase {
 
     // ========================= Class Level =========================
-    private static int dynamicColorCounter = 0;
-
-    /**
-     * Takes dynamic pattern and scrolls colors by 1.
-     * 
-     * @param pattern         An Array of {@link Color}s to be shifted.
-     * @param isScrollFowards Shifts colors fowads w.hen {@code true} backwards when
-     *                        {@code false}
-     * @param updateDelay     decreases the number of updates based on update delay,
-     *                        updates every nth attempt.
-     * @return Shifted array of colors.
-     */
-    public static Color[] scrollPattern(Color[] pattern, boolean isScrollFowards, int updateDelay) {
-        Color[] tempArray = pattern;
-        if (dynamicColorCounter % updateDelay == 0) {
-            tempArray = new Color[pattern.length];
-            if (isScrollFowards) {
-                for (int i = 0; i < pattern.length; i++) {
-                    if (i == pattern.length - 1) {
-                        tempArray[0] = pattern[pattern.length - 1];
-                    } else {
-                        tempArray[i + 1] = pattern[i];
-                    }
-                }
-            } else {
-                for (int i = 0; i < pattern.length; i++) {
-                    if (i == 0) {
-                        tempArray[tempArray.length - 1] = pattern[0];
-                    } else {
-                        tempArray[i - 1] = pattern[i];
-                    }
-                }
-            }
+
+    /**
+     * Each layer holds its own {@link LedAnimation}. The highest layer that has an
+     * animation is the one shown on the LEDs.
+     */
+    public enum Layer {
+        /** Alliance color & patterns set by commands that require the LEDs. */
+        BASE,
+        /** Robot state, e.g. note in the system. */
+        STATUS,
+        /** Problems the drive team needs to see, e.g. overheating motors. */
+        ALERT
+    }
+
+    /**
+     * A command showing an animation on a layer. Several commands may show the
+     * same animation, each holds its own owner, so one ending does not clear the
+     * others.
+     */
+    private static class Owner {
+        private final LedAnimation animation;
+
+        private Owner(LedAnimation animation) {
+            this.animation = animation;
         }
-        return tempArray;
     }
 
     // ========================= Object Level =========================
-    private boolean isDynamicPatternFowards;
-    private AddressableLED addressableLED;
-    private AddressableLEDBuffer ledBuffer;
-    private Color[] dynamicPattern;
+    private final AddressableLED addressableLED;
+    private final AddressableLEDBuffer ledBuffer;
+
+    private final LedAnimation[] layers = new LedAnimation[Layer.values().length];
+    private final double[] layerStartTimes = new double[Layer.values().length];
+    /** Commands showing an animation on each layer, the most recent first. */
+    private final List<Deque<Owner>> layerOwners = new ArrayList<>();
+    private final LedAnimation off;
+    private double brightness = 1.0;
+    private double powerScale = 1.0;
+
+    // What is currently written to the LEDs, used to skip writing unchanged frames.
+    private int[] writtenFrame;
+    private double writtenBrightness;
 
     /**
      * Initialize the {@link AddressableLED}, {@link AddresableLEDBuffer}, and
@@ -65,45 +76,135 @@ public class Leds extends SubsystemBase {
         addressableLED = new AddressableLED(CONSTANTS.getLedPort());
         addressableLED.setLength(CONSTANTS.getLedLenth());
         ledBuffer = new AddressableLEDBuffer(CONSTANTS.getLedLenth());
+        for (int i = 0; i < layers.length; i++) {
+            layerOwners.add(new ArrayDeque<>());
+        }
+        off = LedAnimation.solid(Color.kBlack, CONSTANTS.getLedLenth());
         addressableLED.start();
+        RateScheduler.schedule(CONSTANTS.getLedFrequency(), this::render);
     }
 
-    @Override
-    public void periodic() {
-        if (dynamicPattern != null) {
-            setStaticPatternHelper(dynamicPattern);
-            dynamicColorCounter++;
-            dynamicPattern = scrollPattern(dynamicPattern, isDynamicPatternFowards, 3);
+    /**
+     * Shows the top layer's current frame. Runs at
+     * {@link frc.robot.constants.AbstractConstants#getLedFrequency()}, see
+     * {@link RateScheduler}.
+     */
+    private void render() {
+
+        // Find the top layer.
+        int layer = layers.length - 1;
+        while (layer >= 0 && layers[layer] == null) {
+            layer--;
+        }
+        LedAnimation animation = layer < 0 ? off : layers[layer];
+
+        // Step through the frames based on time, not on the number of robot loops.
+        int frameIndex = 0;
+        if (animation.getFrameCount() > 1) {
+            frameIndex = (int) ((Timer.getFPGATimestamp() - layerStartTimes[layer])
+                    * CONSTANTS.getLedFramesPerSecond());
         }
+        int[] frame = animation.getFrame(frameIndex);
+        Logger.recordOutput("Leds/Layer", layer < 0 ? "NONE" : Layer.values()[layer].name());
+
+        // Only write to the LEDs when something changed.
+        double scaledBrightness = brightness * powerScale;
+        if (frame == writtenFrame && scaledBrightness == writtenBrightness) {
+            return;
+        }
+        for (int i = 0; i < frame.length; i++) {
+            ledBuffer.setRGB(i,
+                    (int) (((frame[i] >> 16) & 0xFF) * scaledBrightness),
+                    (int) (((frame[i] >> 8) & 0xFF) * scaledBrightness),
+                    (int) ((frame[i] & 0xFF) * scaledBrightness));
+        }
+        addressableLED.setData(ledBuffer);
+        writtenFrame = frame;
+        writtenBrightness = scaledBrightness;
     }
 
     // ========================= Functions =========================
     /**
-     * Increase or decreases the brightness of the colors currently set to the
-     * {@link AddressableLEDBuffer} by 15%.
-     * 
+     * Increase or decreases the brightness of the LEDs by 15%.
+     *
      * @param isDimming Decreases brightness when {@code true} and increases when
      *                  {@code false}.
      */
     public void changeBrightness(boolean isDimming) {
-        double factor = isDimming ? .85 : 1.15;
-        for (int i = 0; i < ledBuffer.getLength(); i++) {
-            Color currentColor = ledBuffer.getLED(i);
-            ledBuffer.setLED(i, new Color(currentColor.red * factor, currentColor.green * factor,
-                    currentColor.blue * factor));
+        // Brightness is applied when a frame is written, so the colors themselves
+        // never lose precision. Never reaches 0, so the LEDs can be brightened again.
+        brightness = MathUtil.clamp(brightness * (isDimming ? .85 : 1.15), 0.01, 1);
+    }
+
+    /**
+     * @return Estimated current at the current brightness (the LEDs have no
+     *         sensor), in Amps.
+     */
+    public double getEstimatedCurrent() {
+        return CONSTANTS.getLedMaxCurrent() * brightness * powerScale;
+    }
+
+    /**
+     * Dims the LEDs to save power, see
+     * {@link frc.robot.subsystems.power.PowerManager PowerManager}.
+     *
+     * @param scale Fraction of the set brightness to show.
+     */
+    public void setPowerScale(double scale) {
+        powerScale = scale;
+    }
+
+    /**
+     * Removes the animation from a layer, showing the layer below it.
+     */
+    public void clear(Layer layer) {
+        layers[layer.ordinal()] = null;
+    }
+
+    /**
+     * Records that a command is showing an animation on a layer.
+     *
+     * @return The owner to {@link #release(Layer, Owner) release} when the command
+     *         ends.
+     */
+    private Owner acquire(Layer layer, LedAnimation animation) {
+        Owner owner = new Owner(animation);
+        layerOwners.get(layer.ordinal()).push(owner);
+        return owner;
+    }
+
+    /**
+     * Removes a command's animation from a layer. If other commands are still
+     * showing an animation on the layer, the most recent one is shown again,
+     * otherwise the layer is cleared if it still shows this command's animation.
+     */
+    private void release(Layer layer, Owner owner) {
+        Deque<Owner> owners = layerOwners.get(layer.ordinal());
+        owners.remove(owner);
+        Owner top = owners.peek();
+        if (top != null) {
+            if (layers[layer.ordinal()] != top.animation) {
+                setAnimation(layer, top.animation);
+            }
+        } else if (layers[layer.ordinal()] == owner.animation) {
+            clear(layer);
         }
-        addressableLED.setData(ledBuffer);
     }
 
     /**
-     * Disables dynamic pattern, does not change lights.
+     * Stops a scrolling pattern on the {@link Layer#BASE BASE} layer, does not
+     * change lights.
      */
     private void disableDynamicPattern() {
-        dynamicPattern = null;
+        LedAnimation base = layers[Layer.BASE.ordinal()];
+        if (base != null) {
+            layers[Layer.BASE.ordinal()] = base.toStatic();
+        }
     }
 
     /**
-     * Sets a pattern that scrolls either fowards or backwards.
+     * Sets a pattern that scrolls either fowards or backwards, on the
+     * {@link Layer#BASE BASE} layer.
      * <i>Notes:</i>
      * </p>
      * <ul>
@@ -111,32 +212,53 @@ public class Leds extends SubsystemBase {
      * truncated.</li>
      * <li>{@link Color#kblack} can be used to sparate the poattern.</li>
      * </ul>
-     * 
+     *
      * @param pattern                 Array of {@link Color}s to be set and scrolled
      *                                through.
      * @param isDynamicPatternFowards Scroll fowards when {@code true}, backwards
      *                                when {@code false}.
      */
     public void setDynamicPattern(Color[] pattern, boolean isDynamicPatternFowards) {
-        dynamicPattern = pattern;
-        this.isDynamicPatternFowards = isDynamicPatternFowards;
+        setDynamicPattern(Layer.BASE, pattern, isDynamicPatternFowards);
     }
 
     /**
-     * Sets all lights to a static monocolor.
-     * 
+     * Sets a pattern that scrolls either fowards or backwards, on the given layer.
+     *
+     * @return The animation now on the layer.
+     */
+    public LedAnimation setDynamicPattern(Layer layer, Color[] pattern, boolean isDynamicPatternFowards) {
+        LedAnimation current = layers[layer.ordinal()];
+        if (current != null && current.isSameAs(pattern, true, isDynamicPatternFowards)) {
+            return current;
+        }
+        return setAnimation(layer,
+                LedAnimation.scrollingPattern(pattern, isDynamicPatternFowards, CONSTANTS.getLedLenth()));
+    }
+
+    /**
+     * Sets all lights to a static monocolor, on the {@link Layer#BASE BASE} layer.
+     *
      * @param color {@link Color} the lights are being set to.
      */
     public void setColor(Color color) {
-        disableDynamicPattern();
-        for (int i = 0; i < ledBuffer.getLength(); i++) {
-            ledBuffer.setLED(i, color);
+        setColor(Layer.BASE, color);
+    }
+
+    /**
+     * Sets all lights to a static monocolor, on the given layer.
+     *
+     * @return The animation now on the layer.
+     */
+    public LedAnimation setColor(Layer layer, Color color) {
+        LedAnimation current = layers[layer.ordinal()];
+        if (current != null && current.isSolid(color)) {
+            return current;
         }
-        addressableLED.setData(ledBuffer);
+        return setAnimation(layer, LedAnimation.solid(color, CONSTANTS.getLedLenth()));
     }
 
     public void setAllianceColor() {
-        disableDynamicPattern();
         if (CONSTANTS.getAlliance() == Alliance.Blue) {
             setColor(Color.kBlue);
         } else {
@@ -145,8 +267,8 @@ public class Leds extends SubsystemBase {
     }
 
     /**
-     * Sets all lights to a static multicolor pattern. This pattern will be repeated
-     * arross the LEDs.
+     * Sets all lights to a static multicolor pattern, on the {@link Layer#BASE
+     * BASE} layer. This pattern will be repeated arross the LEDs.
      * <p>
      * <i>Notes:</i>
      * </p>
@@ -155,36 +277,36 @@ public class Leds extends SubsystemBase {
      * truncated.</li>
      * <li>{@link Color#kblack} can be used to sparate the poattern.</li>
      * </ul>
-     * 
+     *
      * @param pattern Array of {@link Color}s the lights are being set to.
      */
     public void setStaticPattern(Color[] pattern) {
-        disableDynamicPattern();
-        setStaticPatternHelper(pattern);
-    }
-
-    private void setStaticPatternHelper(Color[] pattern) {
-        if (pattern.length == 0) {
-            throw new RuntimeException("Pattern size may not be 0");
-        }
-        for (int i = 0; i < ledBuffer.getLength(); i++) {
-            ledBuffer.setLED(i, pattern[i % pattern.length]);
+        LedAnimation current = layers[Layer.BASE.ordinal()];
+        if (current == null || !current.isSameAs(pattern, false, true)) {
+            setAnimation(Layer.BASE, LedAnimation.staticPattern(pattern, CONSTANTS.getLedLenth()));
         }
-        addressableLED.setData(ledBuffer);
     }
 
     /**
-     * Disables dynamic patterns, turns off lights.
+     * Turns off lights, clearing every layer.
      */
     public void turnOff() {
-        disableDynamicPattern();
+        for (Layer layer : Layer.values()) {
+            clear(layer);
+        }
         setColor(Color.kBlack);
     }
 
+    private LedAnimation setAnimation(Layer layer, LedAnimation animation) {
+        layers[layer.ordinal()] = animation;
+        layerStartTimes[layer.ordinal()] = Timer.getFPGATimestamp();
+        return animation;
+    }
+
     // ========================= Commands =========================
     /**
      * Dims/Brightens the lights
-     * 
+     *
      * @param isDimming are lights being dimmed or brightened
      * @return
      */
@@ -194,7 +316,7 @@ public class Leds extends SubsystemBase {
 
     /**
      * Set the lights to a scrolling pattern
-     * 
+     *
      * @param pattern                 Pattern the LEDs are being set to
      * @param isDynamicPatternFowards is the pattern scrolling fowards or backwards
      * @return
@@ -203,9 +325,23 @@ public class Leds extends SubsystemBase {
         return new InstantCommand(() -> setDynamicPattern(pattern, isDynamicPatternFowards), this);
     }
 
+    /**
+     * Shows a scrolling pattern on the given layer until the command ends.
+     * <p>
+     * Does not require the LEDs, so it can run alongside the commands that use the
+     * other layers.
+     * </p>
+     */
+    public Command setDynamicPatternCommand(Layer layer, Color[] pattern, boolean isDynamicPatternFowards) {
+        Owner[] owner = new Owner[1];
+        return Commands.startEnd(
+                () -> owner[0] = acquire(layer, setDynamicPattern(layer, pattern, isDynamicPatternFowards)),
+                () -> release(layer, owner[0]));
+    }
+
     /**
      * Set color of the LEDs
-     * 
+     *
      * @param color Color LEDs are being set to
      * @return
      */
@@ -213,9 +349,23 @@ public class Leds extends SubsystemBase {
         return new RunCommand(() -> setColor(color), this);
     }
 
+    /**
+     * Shows a color on the given layer until the command ends.
+     * <p>
+     * Does not require the LEDs, so it can run alongside the commands that use the
+     * other layers.
+     * </p>
+     */
+    public Command setColorCommand(Layer layer, Color color) {
+        Owner[] owner = new Owner[1];
+        return Commands.startEnd(
+                () -> owner[0] = acquire(layer, setColor(layer, color)),
+                () -> release(layer, owner[0]));
+    }
+
     /**
      * Sets a static patttern to the LEDs
-     * 
+     *
      * @param subsystem LEDs being set
      * @param pattern   Pattern being set to the LEDs
      * @return
@@ -0,0 +1,205 @@
+package frc.robot.subsystems.power;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import org.littletonrobotics.junction.AutoLog;
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.PowerDistribution;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.constants.AbstractConstants.OperatingMode;
+import frc.robot.util.BackgroundExecutor;
+
+/**
+ * Adds up the energy each subsystem draws from the battery over a match, to
+ * show where current limits & gear ratios are costing us.
+ * <p>
+ * Each loop every registered current is multiplied by the battery voltage and
+ * integrated. The Power Distribution Hub's total is integrated the same way, so
+ * the difference shows how much is drawn by devices that aren't registered. The
+ * totals are logged continuously, and written to a summary file (next to the
+ * logs) whenever the robot is disabled.
+ * </p>
+ */
+public class EnergyAccountant extends SubsystemBase {
+
+    @AutoLog
+    static class PowerDistributionInputs {
+        public double voltage = 12;
+        public double totalCurrent;
+        public double[] channelCurrents = new double[] {};
+    }
+
+    // ========================= Class Level ===================================
+
+    private static class Account {
+        final String name;
+        final String logKey;
+        final List<DoubleSupplier> currents = new ArrayList<>();
+        double joules, peakAmps, peakWatts;
+
+        Account(String name) {
+            this.name = name;
+            logKey = "Energy/" + name;
+        }
+
+        void add(double current, double voltage, double dt) {
+            double watts = current * voltage;
+            joules += watts * dt;
+            peakAmps = Math.max(peakAmps, current);
+            peakWatts = Math.max(peakWatts, watts);
+            Logger.recordOutput(logKey + "/Joules", joules);
+            Logger.recordOutput(logKey + "/PeakAmps", peakAmps);
+            Logger.recordOutput(logKey + "/PeakWatts", peakWatts);
+        }
+
+        void reset() {
+            joules = 0;
+            peakAmps = 0;
+            peakWatts = 0;
+        }
+    }
+
+    // ========================= Object Level ==================================
+
+    private final PowerDistributionInputsAutoLogged inputs = new PowerDistributionInputsAutoLogged();
+    private final PowerDistribution powerDistribution;
+    private final List<Account> accounts = new ArrayList<>();
+    private final Account total = new Account("Total");
+    private final Account unaccounted = new Account("Unaccounted");
+    private boolean wasEnabled;
+    private String match = "";
+
+    public EnergyAccountant() {
+        // Only the real robot has one, in replay the inputs come from the log.
+        powerDistribution = CONSTANTS.getCurrentOperatingMode() == OperatingMode.REAL_WORLD
+                ? new PowerDistribution()
+                : null;
+    }
+
+    @Override
+    public void periodic() {
+        updateInputs();
+        Logger.processInputs("Energy/PowerDistribution", inputs);
+
+        double dt = 1.0 / CONSTANTS.getLoopFrequency();
+        double accountedCurrent = 0;
+        for (Account account : accounts) {
+            double current = 0;
+            for (DoubleSupplier supplier : account.currents) {
+                current += Math.abs(supplier.getAsDouble());
+            }
+            account.add(current, inputs.voltage, dt);
+            accountedCurrent += current;
+        }
+
+        // Without a hub (e.g. in simulation) only the registered devices are known.
+        double totalCurrent = inputs.channelCurrents.length > 0 ? inputs.totalCurrent : accountedCurrent;
+        total.add(totalCurrent, inputs.voltage, dt);
+        unaccounted.add(Math.max(0, totalCurrent - accountedCurrent), inputs.voltage, dt);
+
+        // Start counting again for a new match, and write the summary at the end of
+        // each part of a match.
+        boolean isEnabled = DriverStation.isEnabled();
+        if (!wasEnabled && isEnabled) {
+            String enabledMatch = String.format("%s_%s_%d", DriverStation.getEventName(),
+                    DriverStation.getMatchType(), DriverStation.getMatchNumber());
+            if (!enabledMatch.equals(match)) {
+                match = enabledMatch;
+                reset();
+            }
+        } else if (wasEnabled && !isEnabled) {
+            writeSummary();
+        }
+        wasEnabled = isEnabled;
+    }
+
+    private void updateInputs() {
+        if (powerDistribution != null) {
+            inputs.voltage = powerDistribution.getVoltage();
+            inputs.totalCurrent = powerDistribution.getTotalCurrent();
+            if (inputs.channelCurrents.length != powerDistribution.getNumChannels()) {
+                inputs.channelCurrents = new double[powerDistribution.getNumChannels()];
+            }
+            for (int i = 0; i < inputs.channelCurrents.length; i++) {
+                inputs.channelCurrents[i] = powerDistribution.getCurrent(i);
+            }
+        } else if (CONSTANTS.getCurrentOperatingMode() == OperatingMode.SIMULATION) {
+            inputs.voltage = RobotController.getBatteryVoltage();
+        }
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Adds a device to a subsystem's account. A subsystem may have several.
+     *
+     * @param current Current the device draws from the battery, in Amps.
+     */
+    public void register(String subsystem, DoubleSupplier current) {
+        for (Account account : accounts) {
+            if (account.name.equals(subsystem)) {
+                account.currents.add(current);
+                return;
+            }
+        }
+        Account account = new Account(subsystem);
+        account.currents.add(current);
+        accounts.add(account);
+    }
+
+    /** Starts counting from zero, done when a new match is enabled. */
+    public void reset() {
+        for (Account account : accounts) {
+            account.reset();
+        }
+        total.reset();
+        unaccounted.reset();
+    }
+
+    // ========================= Helper Methods ================================
+
+    /**
+     * Writes the totals so far, on the {@link BackgroundExecutor}. Each match has
+     * one file, rewritten at the end of autonomous & teleop.
+     */
+    private void writeSummary() {
+        if (CONSTANTS.getCurrentOperatingMode() != OperatingMode.REAL_WORLD) {
+            return;
+        }
+
+        StringBuilder summary = new StringBuilder("Subsystem,Joules,PeakAmps,PeakWatts\n");
+        for (Account account : accounts) {
+            appendSummary(summary, account);
+        }
+        appendSummary(summary, unaccounted);
+        appendSummary(summary, total);
+
+        Path path = Paths.get(CONSTANTS.getEnergySummaryDirectory(), "energy_" + match + ".csv");
+        String contents = summary.toString();
+        BackgroundExecutor.submit(() -> {
+            try {
+                Files.createDirectories(path.getParent());
+                Files.writeString(path, contents);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void appendSummary(StringBuilder summary, Account account) {
+        summary.append(String.format("%s,%.0f,%.1f,%.0f%n", account.name, account.joules, account.peakAmps,
+                account.peakWatts));
+    }
+}
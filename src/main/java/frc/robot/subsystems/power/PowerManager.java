@@ -0,0 +1,145 @@
+package frc.robot.subsystems.power;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import org.littletonrobotics.junction.AutoLog;
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+/**
+ * Shares the current the battery can give, without browning out, between the
+ * mechanisms by priority.
+ * <p>
+ * Each loop the battery's open circuit voltage is estimated from its measured
+ * voltage & the total current drawn. That gives how much current can be drawn
+ * before the battery sags to
+ * {@link frc.robot.constants.AbstractConstants#getPowerMinBatteryVoltage()}.
+ * The current is handed out in {@link Consumer} order. A mechanism that doesn't
+ * fit has its output scaled down (voltage or velocity) until it does, and is
+ * given its output back gradually once there is room again.
+ * </p>
+ * <p>
+ * Must be created after the subsystems it manages, so it sees this loop's
+ * currents.
+ * </p>
+ */
+public class PowerManager extends SubsystemBase {
+
+    @AutoLog
+    static class PowerManagerInputs {
+        public double batteryVoltage = 12;
+    }
+
+    // ========================= Class Level ===================================
+
+    /** Managed mechanisms, highest priority first. */
+    public enum Consumer {
+        DRIVE,
+        FLYWHEEL,
+        INTAKE,
+        LEDS
+    }
+
+    private static final Consumer[] CONSUMERS = Consumer.values();
+
+    private static class Device {
+        final DoubleSupplier current;
+        final DoubleConsumer setScale;
+
+        Device(DoubleSupplier current, DoubleConsumer setScale) {
+            this.current = current;
+            this.setScale = setScale;
+        }
+    }
+
+    // ========================= Object Level ==================================
+
+    private final PowerManagerInputsAutoLogged inputs = new PowerManagerInputsAutoLogged();
+    private final List<List<Device>> devices = new ArrayList<>();
+    private final double[] currents = new double[CONSUMERS.length];
+    private final double[] scales = new double[CONSUMERS.length];
+    private final String[] logKeys = new String[CONSUMERS.length];
+
+    public PowerManager() {
+        for (Consumer consumer : CONSUMERS) {
+            devices.add(new ArrayList<>());
+            scales[consumer.ordinal()] = 1;
+            logKeys[consumer.ordinal()] = "Power/" + consumer.name();
+        }
+    }
+
+    @Override
+    public void periodic() {
+        inputs.batteryVoltage = RobotController.getBatteryVoltage();
+        Logger.processInputs("Power", inputs);
+
+        double totalCurrent = CONSTANTS.getPowerBaseLoad();
+        for (Consumer consumer : CONSUMERS) {
+            int i = consumer.ordinal();
+            currents[i] = 0;
+            for (Device device : devices.get(i)) {
+                currents[i] += Math.abs(device.current.getAsDouble());
+            }
+            totalCurrent += currents[i];
+        }
+
+        // Battery modeled as an open circuit voltage behind a resistance.
+        double openCircuitVoltage = inputs.batteryVoltage + totalCurrent * CONSTANTS.getBatteryResistance();
+        double budget = Math.max(0, (openCircuitVoltage - CONSTANTS.getPowerMinBatteryVoltage())
+                / CONSTANTS.getBatteryResistance());
+        double remaining = budget - CONSTANTS.getPowerBaseLoad();
+
+        double recovery = CONSTANTS.getPowerScaleRecoveryRate() / CONSTANTS.getLoopFrequency();
+        for (Consumer consumer : CONSUMERS) {
+            int i = consumer.ordinal();
+
+            // What it would draw if it were not cut, assuming current follows output.
+            double demand = currents[i] / scales[i];
+            double minScale = consumer == Consumer.LEDS ? 0 : CONSTANTS.getPowerMinScale();
+            double allowed = demand > 0 ? MathUtil.clamp(remaining / demand, minScale, 1) : 1;
+
+            // Cut right away, give back gradually.
+            scales[i] = allowed < scales[i] ? allowed : Math.min(allowed, scales[i] + recovery);
+            // Keep a little output, so the demand can still be measured.
+            scales[i] = Math.max(scales[i], 0.01);
+            remaining -= demand * scales[i];
+
+            for (Device device : devices.get(i)) {
+                device.setScale.accept(scales[i]);
+            }
+            Logger.recordOutput(logKeys[i] + "/DemandAmps", demand);
+            Logger.recordOutput(logKeys[i] + "/Scale", scales[i]);
+        }
+
+        Logger.recordOutput("Power/TotalAmps", totalCurrent);
+        Logger.recordOutput("Power/BudgetAmps", budget);
+        Logger.recordOutput("Power/OpenCircuitVoltage", openCircuitVoltage);
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Adds a device to manage.
+     *
+     * @param current  Current the device draws from the battery, in Amps.
+     * @param setScale Scales the device's output, from 0 to 1.
+     */
+    public void register(Consumer consumer, DoubleSupplier current, DoubleConsumer setScale) {
+        devices.get(consumer.ordinal()).add(new Device(current, setScale));
+    }
+
+    /**
+     * @return Fraction of its output the consumer is allowed.
+     */
+    public double getScale(Consumer consumer) {
+        return scales[consumer.ordinal()];
+    }
+}
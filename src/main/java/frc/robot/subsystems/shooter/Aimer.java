@@ -7,7 +7,6 @@ import static frc.robot.constants.AbstractConstants.CONSTANTS;
 import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
 
-import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 import com.revrobotics.CANSparkMax;
 
@@ -20,6 +19,8 @@ import edu.wpi.first.wpilibj.DutyCycleEncoder;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.constants.AbstractConstants;
+import frc.robot.util.DeviceConfigurator;
 
 public class Aimer extends SubsystemBase {
 
@@ -42,19 +43,19 @@ public class Aimer extends SubsystemBase {
     private final DutyCycleEncoder encoder = new DutyCycleEncoder(CONSTANTS.getAimerEncoderPort());
     private final PIDController controller = CONSTANTS.getAimerPid().createController();
     private final AimerInputsAutoLogged inputs = new AimerInputsAutoLogged();
+    private double lastAngleDegrees = Double.NaN;
+    private double velocityDegreesPerSecond;
 
     /**
      * Create a new subsystem for two motors controlled by CANspark Controller
      **/
     public Aimer() {
-        motorL.setInverted(false);
-        motorR.setInverted(true);
-        motorL.setIdleMode(IdleMode.kBrake);
-        motorR.setIdleMode(IdleMode.kBrake);
-        motorL.setSmartCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentLimit());
-        motorR.setSmartCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentLimit());
-        motorL.setSecondaryCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentSecondaryLimit());
-        motorR.setSecondaryCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentSecondaryLimit());
+        DeviceConfigurator.submit(AbstractConstants.getRioCanBusId(), "Shooter/Aimer/Left",
+                () -> DeviceConfigurator.applySparkMaxDefaults(motorL, false),
+                () -> DeviceConfigurator.verifySparkMaxDefaults(motorL, false));
+        DeviceConfigurator.submit(AbstractConstants.getRioCanBusId(), "Shooter/Aimer/Right",
+                () -> DeviceConfigurator.applySparkMaxDefaults(motorR, true),
+                () -> DeviceConfigurator.verifySparkMaxDefaults(motorR, true));
         setTargetAngle(Rotation2d.fromDegrees(12));
     }
 
@@ -63,6 +64,13 @@ public class Aimer extends SubsystemBase {
         updateInputs();
         Logger.processInputs("Shooter/Aimer", inputs);
 
+        // From the logged angle, so log replay gets the same velocity.
+        if (!Double.isNaN(lastAngleDegrees)) {
+            velocityDegreesPerSecond = (inputs.currentAngleDegrees - lastAngleDegrees) * CONSTANTS.getLoopFrequency();
+        }
+        lastAngleDegrees = inputs.currentAngleDegrees;
+        Logger.recordOutput("Shooter/Aimer/VelocityDegreesPerSecond", velocityDegreesPerSecond);
+
         // Set Voltages
         if (controller.getSetpoint() != 0) {
             double kF = 0.7;
@@ -94,6 +102,16 @@ public class Aimer extends SubsystemBase {
     }
 
     // ========================= Functions =====================================
+
+    /**
+     * @return Current drawn from the battery by both motors, their currents
+     *         scaled by their duty cycles. Value in Amps.
+     */
+    public double getSupplyCurrent() {
+        return Math.abs(inputs.lOutputCurrent * inputs.lAppliedOutput)
+                + Math.abs(inputs.rOutputCurrent * inputs.rAppliedOutput);
+    }
+
     public void aimAtTarget(Translation3d target, Translation2d currentPosition) {
         double distanceMeters = currentPosition.getDistance(target.toTranslation2d());
         if (Double.isFinite(distanceMeters)) {
@@ -125,6 +143,20 @@ public class Aimer extends SubsystemBase {
         return Rotation2d.fromRotations(-encoder.getAbsolutePosition()).plus(CONSTANTS.getAimerEncoderOffset());
     }
 
+    /**
+     * @return Target minus current angle, in Degrees.
+     */
+    public double getAngleErrorDegrees() {
+        return inputs.currentVsTargetAngleDegrees;
+    }
+
+    /**
+     * @return How fast the aimer is moving, in Degrees per Second.
+     */
+    public double getVelocityDegreesPerSecond() {
+        return velocityDegreesPerSecond;
+    }
+
     public boolean atTarget() {
         return Math.abs(inputs.currentAngleDegrees - inputs.targetAngleDegrees) < 2;
     }
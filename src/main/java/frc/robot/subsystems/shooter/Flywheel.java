@@ -21,6 +21,9 @@ import edu.wpi.first.units.Temperature;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.constants.AbstractConstants;
+import frc.robot.util.DeviceConfigurator;
+import frc.robot.util.MotorThermalModel;
 
 public class Flywheel extends SubsystemBase {
     @AutoLog
@@ -54,12 +57,18 @@ public class Flywheel extends SubsystemBase {
     private final StatusSignal<Double> flywheelLMotorTemp, flywheelRMotorTemp;
     private final StatusSignal<Integer> flywheelLFaults, flywheelRFaults;
 
+    private final MotorThermalModel leftThermalModel = new MotorThermalModel("Shooter/Flywheel/Left",
+            CONSTANTS.getFalcon500ThermalParameters(), CONSTANTS.getFalcon500MaxTemperature());
+    private final MotorThermalModel rightThermalModel = new MotorThermalModel("Shooter/Flywheel/Right",
+            CONSTANTS.getFalcon500ThermalParameters(), CONSTANTS.getFalcon500MaxTemperature());
+
     private final TalonFX flywheelMotorL = new TalonFX(CONSTANTS.getFlywheelMotorIdLeft());
     private final TalonFX flywheelMotorR = new TalonFX(CONSTANTS.getFlywheelMotorIdRight());
 
     private final FlywheelInputsAutoLogged inputs = new FlywheelInputsAutoLogged();
 
     private double currentVoltage;
+    private double powerScale = 1;
     /**
      * Null when both wheels run, true when right wheel runs, false when left wheel
      * runs.
@@ -89,14 +98,6 @@ public class Flywheel extends SubsystemBase {
 
     public Flywheel() {
 
-        // ---------- Configure Motors ----------
-        // Only set the Motor Configuration once, to avoid accidentally overriding
-        // configs with defaults.
-        flywheelMotorL.getConfigurator().apply(getDefaultTalonFXConfiguration(
-                InvertedValue.CounterClockwise_Positive /* default */, NeutralModeValue.Coast));
-        flywheelMotorR.getConfigurator().apply(getDefaultTalonFXConfiguration(
-                InvertedValue.Clockwise_Positive /* inverted */, NeutralModeValue.Coast));
-
         // ---------- Define Loggable Fields ----------
         flywheelLMotorVoltage = flywheelMotorL.getMotorVoltage();
         flywheelRMotorVoltage = flywheelMotorR.getMotorVoltage();
@@ -111,34 +112,57 @@ public class Flywheel extends SubsystemBase {
         flywheelLFaults = flywheelMotorL.getFaultField();
         flywheelRFaults = flywheelMotorR.getFaultField();
 
-        // ---------- Optimize Bus Utilization ----------
-        BaseStatusSignal.setUpdateFrequencyForAll(
-                CONSTANTS.getPathPlannerLogUpdateFrequencyDefault(),
-                flywheelLMotorVoltage, flywheelRMotorVoltage,
-                flywheelLSupplyCurrent, flywheelRSupplyCurrent,
-                flywheelLSupplyVoltage, flywheelRSupplyVoltage,
-                flywheelLVelocity, flywheelRVelocity,
-                flywheelLMotorTemp, flywheelRMotorTemp,
-                flywheelLFaults, flywheelRFaults);
-        flywheelMotorL.optimizeBusUtilization();
-        flywheelMotorR.optimizeBusUtilization();
+        // ---------- Configure Motors ----------
+        // Only set the Motor Configuration once, to avoid accidentally overriding
+        // configs with defaults.
+        configureMotor("Shooter/Flywheel/Left", flywheelMotorL,
+                getDefaultTalonFXConfiguration(InvertedValue.CounterClockwise_Positive /* default */,
+                        NeutralModeValue.Coast),
+                flywheelLMotorVoltage, flywheelLSupplyCurrent, flywheelLSupplyVoltage, flywheelLVelocity,
+                flywheelLMotorTemp, flywheelLFaults);
+        configureMotor("Shooter/Flywheel/Right", flywheelMotorR,
+                getDefaultTalonFXConfiguration(InvertedValue.Clockwise_Positive /* inverted */,
+                        NeutralModeValue.Coast),
+                flywheelRMotorVoltage, flywheelRSupplyCurrent, flywheelRSupplyVoltage, flywheelRVelocity,
+                flywheelRMotorTemp, flywheelRFaults);
+    }
+
+    /**
+     * Applies the configuration and then optimizes bus utilization, on the
+     * {@link DeviceConfigurator}'s threads.
+     */
+    private static void configureMotor(String name, TalonFX motor, TalonFXConfiguration configuration,
+            BaseStatusSignal... signals) {
+        DeviceConfigurator.submit(AbstractConstants.getRioCanBusId(), name,
+                () -> DeviceConfigurator.isOk(motor.getConfigurator().apply(configuration))
+                        // ---------- Optimize Bus Utilization ----------
+                        && DeviceConfigurator.isOk(BaseStatusSignal.setUpdateFrequencyForAll(
+                                CONSTANTS.getPathPlannerLogUpdateFrequencyDefault(), signals))
+                        && DeviceConfigurator.isOk(motor.optimizeBusUtilization()),
+                () -> DeviceConfigurator.verifyTalonFx(motor, configuration));
     }
 
     @Override
     public void periodic() {
 
         // Set Voltages.
+        double voltage = currentVoltage * powerScale * getThermalDerating();
         if (runOneWheelFlag == null || runOneWheelFlag) {
-            flywheelMotorR.setControl(new VoltageOut(currentVoltage));
+            flywheelMotorR.setControl(new VoltageOut(voltage));
         }
         if (runOneWheelFlag == null || !runOneWheelFlag) {
             flywheelMotorL.setControl(
-                    new VoltageOut(currentVoltage * CONSTANTS.flywheelSpinOffset()));
+                    new VoltageOut(voltage * CONSTANTS.flywheelSpinOffset()));
         }
 
         // Log Inputs.
         updateInputs();
         Logger.processInputs("Shooter/Flywheel", inputs);
+
+        leftThermalModel.update(MotorThermalModel.estimateStatorCurrent(inputs.lSupplyCurrent, inputs.lMotorVoltage,
+                inputs.lSupplyVoltage), inputs.lMotorTemp.in(Celsius));
+        rightThermalModel.update(MotorThermalModel.estimateStatorCurrent(inputs.rSupplyCurrent, inputs.rMotorVoltage,
+                inputs.rSupplyVoltage), inputs.rMotorTemp.in(Celsius));
     }
 
     private void updateInputs() {
@@ -179,10 +203,37 @@ public class Flywheel extends SubsystemBase {
         return inputs.rMotorTemp.gt(inputs.lMotorTemp) ? inputs.rMotorTemp : inputs.lMotorTemp;
     }
 
+    /**
+     * @return Current drawn from the battery by both motors, in Amps.
+     */
+    public double getSupplyCurrent() {
+        return inputs.lSupplyCurrent + inputs.rSupplyCurrent;
+    }
+
+    /**
+     * Lowers the voltage to save power, see
+     * {@link frc.robot.subsystems.power.PowerManager PowerManager}.
+     *
+     * @param scale Fraction of the set voltage to run at.
+     */
+    public void setPowerScale(double scale) {
+        powerScale = scale;
+    }
+
+    /**
+     * @return {@code true} while either motor is being derated because it is
+     *         hot.
+     */
     public boolean isTemperatureTooHigh() {
-        // 90% Buffer.
-        return getMaxTemperature()
-                .gt(CONSTANTS.getFalcon500MaxTemperature().times(CONSTANTS.SAFE_MOTOR_TEMPERATURE_BUFFER));
+        return leftThermalModel.isDerating() || rightThermalModel.isDerating();
+    }
+
+    /**
+     * @return Fraction of the voltage both motors are limited to by the hotter
+     *         one, so they keep spinning at the same speed.
+     */
+    public double getThermalDerating() {
+        return Math.min(leftThermalModel.getDerating(), rightThermalModel.getDerating());
     }
 
     /**
@@ -227,6 +278,20 @@ public class Flywheel extends SubsystemBase {
         start(CONSTANTS.getFlywheelReverseVoltage());
     }
 
+    /**
+     * @return Value in Rotations per Second.
+     */
+    public double getLeftVelocity() {
+        return inputs.lVelocity;
+    }
+
+    /**
+     * @return Value in Rotations per Second.
+     */
+    public double getRightVelocity() {
+        return inputs.rVelocity;
+    }
+
     public boolean atSpeed() {
         return flywheelLVelocity.getValueAsDouble() > 75 && flywheelRVelocity.getValueAsDouble() > 75;
     }
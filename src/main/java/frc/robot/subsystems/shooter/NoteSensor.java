@@ -1,12 +1,22 @@
 package frc.robot.subsystems.shooter;
 
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
 import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
 
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
+import frc.robot.constants.AbstractConstants.OperatingMode;
+import frc.robot.util.SampleQueue;
 
 public class NoteSensor extends SubsystemBase {
 
@@ -15,36 +25,183 @@ public class NoteSensor extends SubsystemBase {
         public boolean isObjectDetected;
         public boolean isSwitchLeftPressed;
         public boolean isSwitchRightPressed;
+
+        // FPGA timestamps (Seconds) of the switch edges since the last loop, only
+        // recorded in interrupt mode.
+        public double[] leftPressTimestamps = new double[] {};
+        public double[] leftReleaseTimestamps = new double[] {};
+        public double[] rightPressTimestamps = new double[] {};
+        public double[] rightReleaseTimestamps = new double[] {};
     }
 
+    /** Edges waiting to be logged, per switch, before we start dropping them. */
+    private static final int EDGE_QUEUE_CAPACITY = 32;
+
     private NoteSensorInputsAutoLogged inputs = new NoteSensorInputsAutoLogged();
     private final DigitalInput limitSwitchLeft;
     private final DigitalInput limitSwitchRight;
 
+    // Only used in interrupt mode.
+    private final List<Runnable> stopHooks = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean isStopArmed = new AtomicBoolean(false);
+    private SampleQueue leftEdges, rightEdges;
+    private double[] drainedEdges;
+
+    // Note contact seen by the feeder's motor, kept until the note is seen to
+    // leave (the switches release, the feeder runs free or is reversed), or the
+    // drive team clears it.
+    private BooleanSupplier isFeederContact = () -> false;
+    private BooleanSupplier isFeederFreeRunning = () -> false;
+    private BooleanSupplier isFeederReversing = () -> false;
+    private boolean isContactLatched;
+
     public NoteSensor(int leftChannel, int rightChannel) {
         limitSwitchLeft = new DigitalInput(leftChannel);
         limitSwitchRight = new DigitalInput(rightChannel);
+
+        if (CONSTANTS.isNoteSensorInterruptDriven()
+                && CONSTANTS.getCurrentOperatingMode() == OperatingMode.REAL_WORLD) {
+            leftEdges = new SampleQueue(2, EDGE_QUEUE_CAPACITY);
+            rightEdges = new SampleQueue(2, EDGE_QUEUE_CAPACITY);
+            drainedEdges = new double[2 * EDGE_QUEUE_CAPACITY];
+            startInterrupt(limitSwitchLeft, leftEdges);
+            startInterrupt(limitSwitchRight, rightEdges);
+        }
+    }
+
+    /**
+     * Watches both edges of a switch. Each interrupt calls back on its own thread,
+     * so each has its own queue (one producer per queue).
+     */
+    private void startInterrupt(DigitalInput limitSwitch, SampleQueue edges) {
+        double[] edge = new double[2];
+        AsynchronousInterrupt[] interrupt = new AsynchronousInterrupt[1];
+        interrupt[0] = new AsynchronousInterrupt(limitSwitch, (rising, falling) -> {
+            // The switches are active low, pressing a switch is a falling edge.
+            if (falling) {
+                if (isStopArmed.getAndSet(false)) {
+                    for (Runnable hook : stopHooks) {
+                        hook.run();
+                    }
+                }
+                edge[0] = interrupt[0].getFallingTimestamp();
+                edge[1] = 1;
+                edges.offer(edge);
+            }
+            if (rising) {
+                edge[0] = interrupt[0].getRisingTimestamp();
+                edge[1] = 0;
+                edges.offer(edge);
+            }
+        });
+        interrupt[0].setInterruptEdges(true, true);
+        interrupt[0].enable();
     }
 
     @Override
     public void periodic() {
+        boolean wasSwitchPressed = inputs.isSwitchLeftPressed || inputs.isSwitchRightPressed;
         updateInputs();
         Logger.processInputs("Shooter/NoteSensor", inputs);
+
+        // Cleared as soon as the switches see the note leave, or once the feeder spins
+        // freely (in case the switches are not working).
+        boolean isSwitchReleased = wasSwitchPressed && !inputs.isSwitchLeftPressed && !inputs.isSwitchRightPressed;
+        if (isFeederContact.getAsBoolean()) {
+            isContactLatched = true;
+        } else if (isSwitchReleased || isFeederFreeRunning.getAsBoolean() || isFeederReversing.getAsBoolean()) {
+            isContactLatched = false;
+        }
+        Logger.recordOutput("Shooter/NoteSensor/IsContactLatched", isContactLatched);
     }
 
     private void updateInputs() {
         inputs.isSwitchLeftPressed = !limitSwitchLeft.get();
         inputs.isSwitchRightPressed = !limitSwitchRight.get();
-        inputs.isObjectDetected = inputs.isSwitchLeftPressed || inputs.isSwitchRightPressed;
+
+        if (leftEdges != null) {
+            int count = leftEdges.drainTo(drainedEdges);
+            inputs.leftPressTimestamps = getEdgeTimestamps(count, true);
+            inputs.leftReleaseTimestamps = getEdgeTimestamps(count, false);
+            count = rightEdges.drainTo(drainedEdges);
+            inputs.rightPressTimestamps = getEdgeTimestamps(count, true);
+            inputs.rightReleaseTimestamps = getEdgeTimestamps(count, false);
+        }
+
+        // A press that was released before this loop still counts.
+        inputs.isObjectDetected = inputs.isSwitchLeftPressed || inputs.isSwitchRightPressed
+                || inputs.leftPressTimestamps.length > 0 || inputs.rightPressTimestamps.length > 0;
+    }
+
+    private double[] getEdgeTimestamps(int count, boolean isPress) {
+        int matches = 0;
+        for (int i = 0; i < count; i++) {
+            if ((drainedEdges[i * 2 + 1] == 1) == isPress) {
+                matches++;
+            }
+        }
+        double[] timestamps = new double[matches];
+        matches = 0;
+        for (int i = 0; i < count; i++) {
+            if ((drainedEdges[i * 2 + 1] == 1) == isPress) {
+                timestamps[matches++] = drainedEdges[i * 2];
+            }
+        }
+        return timestamps;
+    }
+
+    // ========================= Functions =========================
+
+    /**
+     * Adds an action that is run from the interrupt, as soon as a switch is
+     * pressed while the stop is {@link #armStop() armed}. Hooks must be thread
+     * safe, they do not run on the main loop.
+     */
+    public void addStopHook(Runnable hook) {
+        stopHooks.add(hook);
+    }
+
+    /**
+     * Runs the stop hooks on the next switch press (once). Does nothing unless
+     * the sensor is interrupt driven.
+     */
+    public void armStop() {
+        isStopArmed.set(true);
+    }
+
+    public void disarmStop() {
+        isStopArmed.set(false);
+    }
+
+    /**
+     * Uses the feeder's note contact detection as a backup for the limit
+     * switches. The feeder must be created before this sensor, so its
+     * {@code periodic()} runs first.
+     *
+     * @param isReversing {@code true} while the feeder is ejecting a note.
+     */
+    public void setContactDetection(BooleanSupplier isContact, BooleanSupplier isFreeRunning,
+            BooleanSupplier isReversing) {
+        isFeederContact = isContact;
+        isFeederFreeRunning = isFreeRunning;
+        isFeederReversing = isReversing;
+    }
+
+    /**
+     * Forgets a note only the feeder's motor has seen, when the drive team knows
+     * there is none.
+     */
+    public void clearContact() {
+        isContactLatched = false;
     }
 
     /**
-     * Check if limit switch is activated
-     * 
+     * Check if limit switch is activated, or the feeder has pulled in a note.
+     *
      * @return limit switch state;
      */
     public boolean isObjectDetected() {
-        return inputs.isObjectDetected;
+        return inputs.isObjectDetected || isContactLatched;
     }
 
     public boolean isObjectNotDetected() {
@@ -0,0 +1,173 @@
+package frc.robot.subsystems.shooter;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.function.Supplier;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation3d;
+import frc.robot.subsystems.base.DriveBase;
+import frc.robot.util.LoopDebouncer;
+
+/**
+ * Decides when a shot can be taken, by checking every mechanism that affects
+ * where the note goes against its tolerance.
+ * <p>
+ * While a shot is waiting, the time each check holds it up is added up and
+ * logged when the note is fired, to show which mechanism is slowing the shot
+ * down.
+ * </p>
+ */
+public class ShotReadinessGate {
+
+    // ========================= Class Level ===================================
+
+    public enum Constraint {
+        AIMER_ANGLE,
+        AIMER_VELOCITY,
+        LEFT_FLYWHEEL_SPEED,
+        RIGHT_FLYWHEEL_SPEED,
+        /** Only checked when the drive base is aiming. */
+        DRIVE_HEADING,
+        /** Only checked when the drive base is aiming. */
+        DRIVE_ANGULAR_VELOCITY
+    }
+
+    private static final Constraint[] CONSTRAINTS = Constraint.values();
+    private static final Rotation2d SHOOTER_FACING = Rotation2d.fromDegrees(180);
+
+    // ========================= Object Level ==================================
+
+    private final Flywheel flywheel;
+    private final Aimer aimer;
+    private final DriveBase driveBase;
+    private final Supplier<Translation3d> target;
+
+    private final double[] errors = new double[CONSTRAINTS.length];
+    private final boolean[] isMet = new boolean[CONSTRAINTS.length];
+    private final double[] blockedSeconds = new double[CONSTRAINTS.length];
+    private final String[] logKeys = new String[CONSTRAINTS.length];
+    private final LoopDebouncer ready = new LoopDebouncer(CONSTANTS.getShotHoldOffLoops() + 1);
+
+    private boolean isDriveAimRequired;
+
+    /**
+     * @param flywheel  May be {@code null}, the gate is then never ready.
+     * @param aimer     May be {@code null}, the aimer is then not checked.
+     * @param driveBase The back of the robot (where the shooter is) should point
+     *                  at the target.
+     */
+    public ShotReadinessGate(Flywheel flywheel, Aimer aimer, DriveBase driveBase, Supplier<Translation3d> target) {
+        this.flywheel = flywheel;
+        this.aimer = aimer;
+        this.driveBase = driveBase;
+        this.target = target;
+        for (Constraint constraint : CONSTRAINTS) {
+            logKeys[constraint.ordinal()] = "Superstructure/Readiness/" + constraint.name();
+        }
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Checks every constraint, called once per loop.
+     *
+     * @param isWaiting {@code true} while a shot is waiting on the gate, the
+     *                  loop is then counted against every constraint that is
+     *                  not met.
+     */
+    public void update(boolean isWaiting) {
+        if (aimer != null) {
+            check(Constraint.AIMER_ANGLE, Math.abs(aimer.getAngleErrorDegrees()),
+                    CONSTANTS.getShotAimerAngleTolerance());
+            check(Constraint.AIMER_VELOCITY, Math.abs(aimer.getVelocityDegreesPerSecond()),
+                    CONSTANTS.getShotAimerVelocityTolerance());
+        } else {
+            check(Constraint.AIMER_ANGLE, 0, 0);
+            check(Constraint.AIMER_VELOCITY, 0, 0);
+        }
+
+        if (flywheel != null) {
+            check(Constraint.LEFT_FLYWHEEL_SPEED, CONSTANTS.getShotFlywheelVelocity() - flywheel.getLeftVelocity(), 0);
+            check(Constraint.RIGHT_FLYWHEEL_SPEED, CONSTANTS.getShotFlywheelVelocity() - flywheel.getRightVelocity(),
+                    0);
+        } else {
+            check(Constraint.LEFT_FLYWHEEL_SPEED, Double.POSITIVE_INFINITY, 0);
+            check(Constraint.RIGHT_FLYWHEEL_SPEED, Double.POSITIVE_INFINITY, 0);
+        }
+
+        if (isDriveAimRequired) {
+            Rotation2d headingError = driveBase.getRotationToTarget(target.get().toTranslation2d())
+                    .plus(SHOOTER_FACING);
+            check(Constraint.DRIVE_HEADING, Math.abs(headingError.getDegrees()), CONSTANTS.getShotHeadingTolerance());
+            check(Constraint.DRIVE_ANGULAR_VELOCITY, Math.abs(driveBase.getYawVelocity()),
+                    CONSTANTS.getShotAngularVelocityTolerance());
+        } else {
+            check(Constraint.DRIVE_HEADING, 0, 0);
+            check(Constraint.DRIVE_ANGULAR_VELOCITY, 0, 0);
+        }
+
+        boolean isAllMet = true;
+        for (Constraint constraint : CONSTRAINTS) {
+            int i = constraint.ordinal();
+            isAllMet &= isMet[i];
+            if (isWaiting && !isMet[i]) {
+                blockedSeconds[i] += 1.0 / CONSTANTS.getLoopFrequency();
+            }
+            Logger.recordOutput(logKeys[i] + "/Error", errors[i]);
+            Logger.recordOutput(logKeys[i] + "/IsMet", isMet[i]);
+        }
+        ready.calculate(isAllMet);
+        Logger.recordOutput("Superstructure/Readiness/IsReady", ready.get());
+    }
+
+    /**
+     * @return {@code true} once every constraint has been met for the hold-off.
+     */
+    public boolean isReady() {
+        return ready.get();
+    }
+
+    /**
+     * @param isDriveAimRequired {@code true} when the drive base is aiming, so its
+     *                           heading & rotation are also checked.
+     */
+    public void setDriveAimRequired(boolean isDriveAimRequired) {
+        this.isDriveAimRequired = isDriveAimRequired;
+    }
+
+    /**
+     * Logs how long each constraint held up the shot that was just fired, and
+     * which one held it up the longest.
+     */
+    public void logShot() {
+        Constraint bottleneck = null;
+        double longest = 0;
+        for (Constraint constraint : CONSTRAINTS) {
+            int i = constraint.ordinal();
+            Logger.recordOutput(logKeys[i] + "/BlockedSeconds", blockedSeconds[i]);
+            if (blockedSeconds[i] > longest) {
+                longest = blockedSeconds[i];
+                bottleneck = constraint;
+            }
+        }
+        Logger.recordOutput("Superstructure/Readiness/Bottleneck", bottleneck == null ? "" : bottleneck.name());
+        resetWaiting();
+    }
+
+    /** Forgets the time waited, for a shot that was given up on. */
+    public void resetWaiting() {
+        for (int i = 0; i < blockedSeconds.length; i++) {
+            blockedSeconds[i] = 0;
+        }
+    }
+
+    // ========================= Helper Methods ================================
+
+    private void check(Constraint constraint, double error, double tolerance) {
+        errors[constraint.ordinal()] = error;
+        isMet[constraint.ordinal()] = error <= tolerance;
+    }
+}
@@ -0,0 +1,318 @@
+package frc.robot.subsystems.shooter;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.subsystems.base.DriveBase;
+
+/**
+ * Coordinates the {@link Intake}, {@link Feeder}, {@link Flywheel},
+ * {@link Aimer} & {@link NoteSensor} through a note's trip from the floor to
+ * the target.
+ * <p>
+ * Moves between states on sensor events & readiness checks instead of fixed
+ * waits:
+ * </p>
+ * <ul>
+ * <li>{@link State#INTAKING} → {@link State#STAGED} when the note sensor sees
+ * the note.</li>
+ * <li>{@link State#SPINNING_UP} ⇄ {@link State#READY} while every
+ * {@link ShotReadinessGate} tolerance is met.</li>
+ * <li>{@link State#READY} → {@link State#FIRING} on the first ready loop of a
+ * shot.</li>
+ * <li>{@link State#FIRING} → {@link State#IDLE} once the note sensor is clear
+ * and the feeder runs free, i.e. the note has left.</li>
+ * </ul>
+ * <p>
+ * The time spent in each state, and the whole intake to shot cycle, is logged
+ * so it can be compared between matches.
+ * </p>
+ */
+public class Superstructure extends SubsystemBase {
+
+    // ========================= Class Level ===================================
+
+    public enum State {
+        /** No note, nothing running. */
+        IDLE,
+        /** Intake & feeder pulling in a note. */
+        INTAKING,
+        /** Holding a note. */
+        STAGED,
+        /** Holding a note, waiting for the flywheels & aimer. */
+        SPINNING_UP,
+        /** Holding a note, every readiness tolerance met. */
+        READY,
+        /** Feeding the note into the flywheels. */
+        FIRING
+    }
+
+    // ========================= Object Level ==================================
+
+    private final Intake intake;
+    private final Feeder feeder;
+    private final NoteSensor noteSensor;
+    private final ShotReadinessGate readinessGate;
+
+    private State state = State.IDLE;
+    private boolean isSpinUpRequested;
+    private double stateStartTime = Timer.getFPGATimestamp();
+    private double cycleStartTime = Double.NaN;
+    private double shotStartTime = Double.NaN;
+    private int shotCount;
+    private int shotTimeoutCount;
+
+    /**
+     * Must be created after the subsystems it uses, so their
+     * {@code periodic()}s run first.
+     *
+     * @param flywheel May be {@code null}, the superstructure is then never ready
+     *                 to shoot.
+     * @param aimer    May be {@code null}, the shot angle is then not checked.
+     */
+    public Superstructure(Intake intake, Feeder feeder, Flywheel flywheel, Aimer aimer, NoteSensor noteSensor,
+            DriveBase driveBase) {
+        this.intake = intake;
+        this.feeder = feeder;
+        this.noteSensor = noteSensor;
+        readinessGate = new ShotReadinessGate(flywheel, aimer, driveBase, CONSTANTS::getSpeakerLocation);
+    }
+
+    @Override
+    public void periodic() {
+        boolean hasNote = noteSensor.isObjectDetected();
+        if (DriverStation.isDisabled()) {
+            isSpinUpRequested = false;
+        }
+        readinessGate.update(state == State.SPINNING_UP);
+
+        switch (state) {
+            case IDLE:
+                if (hasNote) {
+                    setState(State.STAGED);
+                }
+                break;
+            case INTAKING:
+                if (hasNote) {
+                    setState(State.STAGED);
+                    stopIntaking();
+                }
+                break;
+            case STAGED:
+                if (!hasNote) {
+                    setState(State.IDLE);
+                }
+                break;
+            case SPINNING_UP:
+            case READY:
+                if (!hasNote) {
+                    setState(State.IDLE);
+                } else {
+                    setState(isReadyToShoot() ? State.READY : State.SPINNING_UP);
+                }
+                break;
+            case FIRING:
+                if (!hasNote && feeder.isFreeRunning()) {
+                    shotCount++;
+                    Logger.recordOutput("Superstructure/ShotSeconds", Timer.getFPGATimestamp() - shotStartTime);
+                    if (!Double.isNaN(cycleStartTime)) {
+                        Logger.recordOutput("Superstructure/CycleSeconds", Timer.getFPGATimestamp() - cycleStartTime);
+                    }
+                    setState(State.IDLE);
+                } else if (Timer.getFPGATimestamp() - stateStartTime > CONSTANTS.getShotTimeout()) {
+                    shotTimeoutCount++;
+                    Logger.recordOutput("Superstructure/ShotTimeouts", shotTimeoutCount);
+                    setState(hasNote ? State.STAGED : State.IDLE);
+                }
+                break;
+        }
+
+        Logger.recordOutput("Superstructure/State", state.name());
+        Logger.recordOutput("Superstructure/IsReadyToShoot", isReadyToShoot());
+        Logger.recordOutput("Superstructure/IsSpinUpRequested", isSpinUpRequested);
+    }
+
+    // ========================= Functions =====================================
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return {@code true} while every mechanism is within its tolerance for a
+     *         shot.
+     */
+    public boolean isReadyToShoot() {
+        return readinessGate.isReady();
+    }
+
+    /**
+     * @return {@code true} from a shot being asked for until the note has left,
+     *         i.e. the flywheels should be running.
+     */
+    public boolean isShotInProgress() {
+        return state == State.SPINNING_UP || state == State.READY || state == State.FIRING;
+    }
+
+    /**
+     * @return {@code true} while the flywheels should be at speed, i.e. a shot is
+     *         in progress or a spin up was {@link #requestSpinUp() requested}.
+     */
+    public boolean isFlywheelRequested() {
+        return isSpinUpRequested || isShotInProgress();
+    }
+
+    /**
+     * Keeps the flywheels at speed ahead of the next shots, so they do not spin
+     * up from zero, until {@link #cancelSpinUp()} or the robot is disabled.
+     */
+    public void requestSpinUp() {
+        isSpinUpRequested = true;
+    }
+
+    public void cancelSpinUp() {
+        isSpinUpRequested = false;
+    }
+
+    /**
+     * Starts the intake & feeder, unless a note is already held. They are stopped
+     * as soon as the note is detected (from the sensor's interrupt when
+     * available), without needing a command to watch for it.
+     */
+    public void startIntaking() {
+        if (state != State.IDLE && state != State.INTAKING) {
+            return;
+        }
+        noteSensor.armStop();
+        intake.start();
+        feeder.start();
+        if (state == State.IDLE) {
+            cycleStartTime = Timer.getFPGATimestamp();
+            setState(State.INTAKING);
+        }
+    }
+
+    /**
+     * Stops the intake & feeder. Gives up on the note if it was not pulled in
+     * yet.
+     */
+    public void stopIntaking() {
+        noteSensor.disarmStop();
+        intake.stop();
+        feeder.stop();
+        if (state == State.INTAKING) {
+            setState(State.IDLE);
+        }
+    }
+
+    // ========================= Commands ======================================
+
+    /**
+     * Pulls in a note, finishing as soon as it is held.
+     */
+    public Command intakeCommand() {
+        return Commands.startEnd(this::startIntaking, this::stopIntaking, intake, feeder)
+                .until(() -> state != State.INTAKING);
+    }
+
+    /**
+     * Spins up the flywheels ahead of a shot, finishing once they are at speed,
+     * or after {@link frc.robot.constants.AbstractConstants#getFlywheelSpinUpTimeout()}.
+     * They are kept at speed after it finishes, see {@link #requestSpinUp()}.
+     */
+    public Command spinUpCommand(Flywheel flywheel) {
+        return Commands.runOnce(this::requestSpinUp).andThen(
+                Commands.waitUntil(flywheel::atSpeed).withTimeout(CONSTANTS.getFlywheelSpinUpTimeout()));
+    }
+
+    /**
+     * Shoots the held note, firing on the first loop every readiness tolerance
+     * is met. Finishes once the note has left, right away if there is no note
+     * (it requires the intake & feeder, so it also ends an
+     * {@link #intakeCommand()} still pulling one in).
+     * <p>
+     * Does not require the flywheels, so the pilot can keep them spinning while
+     * aiming; otherwise their default command should spin them up while
+     * {@link #isFlywheelRequested()}.
+     * </p>
+     *
+     * @param isDriveAimed {@code true} when the drive base is aiming at the
+     *                     speaker, so the shot also waits for the robot's heading
+     *                     to settle.
+     */
+    public Command shootCommand(boolean isDriveAimed) {
+        Command command = new Command() {
+            private int startShotCount, startShotTimeoutCount;
+
+            @Override
+            public void initialize() {
+                startShotCount = shotCount;
+                startShotTimeoutCount = shotTimeoutCount;
+                readinessGate.setDriveAimRequired(isDriveAimed);
+            }
+
+            @Override
+            public void execute() {
+                switch (state) {
+                    case STAGED:
+                        shotStartTime = Timer.getFPGATimestamp();
+                        setState(State.SPINNING_UP);
+                        break;
+                    case READY:
+                        setState(State.FIRING);
+                        intake.start();
+                        feeder.setVelocity(CONSTANTS.getFeederShootVelocity());
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            @Override
+            public boolean isFinished() {
+                return state == State.IDLE || shotCount != startShotCount || shotTimeoutCount != startShotTimeoutCount;
+            }
+
+            @Override
+            public void end(boolean interrupted) {
+                if (state == State.INTAKING) {
+                    stopIntaking();
+                }
+                intake.stop();
+                feeder.stop();
+                if (isShotInProgress()) {
+                    setState(noteSensor.isObjectDetected() ? State.STAGED : State.IDLE);
+                }
+                readinessGate.setDriveAimRequired(false);
+            }
+        };
+        command.addRequirements(intake, feeder);
+        return command;
+    }
+
+    // ========================= Helper Methods ================================
+
+    private void setState(State newState) {
+        if (newState == state) {
+            return;
+        }
+        double now = Timer.getFPGATimestamp();
+        Logger.recordOutput("Superstructure/StateSeconds/" + state.name(), now - stateStartTime);
+        if (newState == State.IDLE) {
+            cycleStartTime = Double.NaN;
+        }
+        if (newState == State.FIRING) {
+            readinessGate.logShot();
+        } else if (newState != State.SPINNING_UP && newState != State.READY) {
+            readinessGate.resetWaiting();
+        }
+        state = newState;
+        stateStartTime = now;
+    }
+}
@@ -0,0 +1,99 @@
+package frc.robot.subsystems.single_motor;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import frc.robot.util.LoopDebouncer;
+import frc.robot.util.MovingAverageFilter;
+
+/**
+ * Detects a note being pulled through a roller from its motor alone: the
+ * current rises above its free running level while the velocity drops below
+ * what was commanded.
+ * <p>
+ * Only uses logged inputs, so it gives the same results in log replay.
+ * </p>
+ */
+public class NoteContactDetector {
+
+    // ========================= Class Level ===================================
+
+    /** Loops averaged for the current and velocity signals. */
+    private static final int FAST_TAPS = 3;
+    /** Loops averaged for the free running current. */
+    private static final int BASELINE_TAPS = 25;
+
+    // ========================= Object Level ==================================
+
+    private final MovingAverageFilter current = new MovingAverageFilter(FAST_TAPS);
+    private final MovingAverageFilter velocity = new MovingAverageFilter(FAST_TAPS);
+    private final MovingAverageFilter baselineCurrent = new MovingAverageFilter(BASELINE_TAPS);
+    private final LoopDebouncer contact = new LoopDebouncer(CONSTANTS.getNoteContactDebounceLoops());
+    private final LoopDebouncer freeRunning = new LoopDebouncer(CONSTANTS.getNoteContactDebounceLoops());
+
+    private double lastRequestedVelocity;
+    private int settleLoopsRemaining;
+
+    // ========================= Functions =====================================
+
+    /**
+     * Called once per loop.
+     *
+     * @param requestedVelocity Velocity the subsystem was asked to run at, before
+     *                          any limits. Only a change of it restarts the settle
+     *                          time, so limits that adjust the commanded velocity
+     *                          every loop do not stop the detection.
+     * @param commandedVelocity Velocity the motor was told to run at.
+     * @param outputCurrent     Measured current, in Amps.
+     * @param measuredVelocity  Measured velocity, in the same units as the
+     *                          commanded velocity.
+     */
+    public void update(double requestedVelocity, double commandedVelocity, double outputCurrent,
+            double measuredVelocity) {
+
+        // Starting, stopping or changing speed draws current on its own; wait for the
+        // motor to settle.
+        if (requestedVelocity != lastRequestedVelocity) {
+            lastRequestedVelocity = requestedVelocity;
+            settleLoopsRemaining = CONSTANTS.getNoteContactSettleLoops();
+            current.reset();
+            velocity.reset();
+        }
+        double averageCurrent = current.calculate(outputCurrent);
+        double averageVelocity = Math.abs(velocity.calculate(measuredVelocity));
+        double commandedSpeed = Math.abs(commandedVelocity);
+
+        if (commandedSpeed == 0 || settleLoopsRemaining > 0) {
+            settleLoopsRemaining = Math.max(0, settleLoopsRemaining - 1);
+            contact.reset();
+            freeRunning.reset();
+            return;
+        }
+
+        boolean isCurrentRaised = baselineCurrent.isFull()
+                && averageCurrent > baselineCurrent.get() + CONSTANTS.getNoteContactCurrentRiseAmps();
+        boolean isVelocityDropped = averageVelocity < commandedSpeed * CONSTANTS.getNoteContactVelocityRatio();
+
+        contact.calculate(isCurrentRaised && isVelocityDropped);
+        freeRunning.calculate(!isCurrentRaised && !isVelocityDropped);
+
+        // Learn the free running current, without the note in it.
+        if (!isCurrentRaised && !isVelocityDropped) {
+            baselineCurrent.calculate(averageCurrent);
+        }
+    }
+
+    /**
+     * @return {@code true} while a note is being pulled through.
+     */
+    public boolean isContact() {
+        return contact.get();
+    }
+
+    /**
+     * @return {@code true} while the motor runs at speed without a load, i.e.
+     *         there is no note in the roller.
+     */
+    public boolean isFreeRunning() {
+        return freeRunning.get();
+    }
+}
@@ -1,9 +1,10 @@
 package frc.robot.subsystems.single_motor;
 
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Temperature;
-import edu.wpi.first.units.Units;
 
 public class SingleMotorIoNeo550Brushless extends SingleMotorIoSparkMax {
 
@@ -23,7 +24,6 @@ public class SingleMotorIoNeo550Brushless extends SingleMotorIoSparkMax {
     }
 
     public Measure<Temperature> getMaxSafeTemperature() {
-        // https://www.revrobotics.com/neo-550-brushless-motor-locked-rotor-testing
-        return Units.Celsius.of(40);
+        return CONSTANTS.getNeo550MaxTemperature();
     }
 }
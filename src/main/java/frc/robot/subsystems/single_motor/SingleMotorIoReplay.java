@@ -1,5 +1,7 @@
 package frc.robot.subsystems.single_motor;
 
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Temperature;
 import edu.wpi.first.units.Units;
@@ -12,7 +14,7 @@ public class SingleMotorIoReplay implements SingleMotorIo {
     }
 
     public Measure<Temperature> getMaxSafeTemperature() {
-        return Units.Celsius.of(Double.MAX_VALUE);
+        return CONSTANTS.getNeo550MaxTemperature();
     }
 
     public Measure<Temperature> getTemperature() {
@@ -2,13 +2,15 @@ package frc.robot.subsystems.single_motor;
 
 import static frc.robot.constants.AbstractConstants.CONSTANTS;
 
-import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkLowLevel.MotorType;
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
 import com.revrobotics.CANSparkMax;
 
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Temperature;
 import edu.wpi.first.units.Units;
+import frc.robot.constants.AbstractConstants;
+import frc.robot.util.DeviceConfigurator;
 
 public abstract class SingleMotorIoSparkMax implements SingleMotorIo {
 
@@ -24,15 +26,22 @@ public abstract class SingleMotorIoSparkMax implements SingleMotorIo {
      */
     public SingleMotorIoSparkMax(int motorId, boolean inverted, double kp, double ki, double kd, double ff) {
         motor = new CANSparkMax(motorId, MotorType.kBrushless);
-        motor.setInverted(false); // TODO - randomly flips back
         this.inverted = inverted;
-        motor.setIdleMode(IdleMode.kBrake);
-        motor.setSmartCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentLimit());
-        motor.setSecondaryCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentSecondaryLimit());
-        motor.getPIDController().setP(kp);
-        motor.getPIDController().setI(ki);
-        motor.getPIDController().setD(kd);
-        motor.getPIDController().setFF(ff);
+        DeviceConfigurator.submit(AbstractConstants.getRioCanBusId(), "SparkMax/" + motorId,
+                // Motor is never inverted, see setVelocity. TODO - randomly flips back
+                () -> DeviceConfigurator.applySparkMaxDefaults(motor, false)
+                        // Velocity & current, used for note contact detection.
+                        && DeviceConfigurator.isOk(motor.setPeriodicFramePeriod(PeriodicFrame.kStatus1,
+                                CONSTANTS.getNeo550StatusFramePeriodMs()))
+                        && DeviceConfigurator.isOk(motor.getPIDController().setP(kp))
+                        && DeviceConfigurator.isOk(motor.getPIDController().setI(ki))
+                        && DeviceConfigurator.isOk(motor.getPIDController().setD(kd))
+                        && DeviceConfigurator.isOk(motor.getPIDController().setFF(ff)),
+                () -> DeviceConfigurator.verifySparkMaxDefaults(motor, false)
+                        && DeviceConfigurator.isClose(motor.getPIDController().getP(), kp)
+                        && DeviceConfigurator.isClose(motor.getPIDController().getI(), ki)
+                        && DeviceConfigurator.isClose(motor.getPIDController().getD(), kd)
+                        && DeviceConfigurator.isClose(motor.getPIDController().getFF(), ff));
     }
 
     public void updateInputs(SingleMotorIoInputs inputs) {
@@ -7,6 +7,7 @@ import org.littletonrobotics.junction.Logger;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.MotorThermalModel;
 
 public class SingleMotorSubsystem extends SubsystemBase {
 
@@ -15,8 +16,11 @@ public class SingleMotorSubsystem extends SubsystemBase {
 
     private final SingleMotorIo io;
     private final SingleMotorIoInputsAutoLogged inputs = new SingleMotorIoInputsAutoLogged();
+    private final NoteContactDetector noteContactDetector = new NoteContactDetector();
+    private final MotorThermalModel thermalModel;
 
-    private double appliedVelocity;
+    private volatile double appliedVelocity;
+    private double powerScale = 1;
 
     /**
      * Create a new subsystem for a single motor in velocity mode
@@ -37,23 +41,85 @@ public class SingleMotorSubsystem extends SubsystemBase {
         this.DEFAULT_FORWARDS_VELOCITY = forwardsVelocity;
         this.DEFAULT_REVERSE_VELOCITY = reverseVelocity;
         this.appliedVelocity = 0;
+        // Every single motor subsystem is a NEO 550. From the constants, not the IO,
+        // so replay derates like the robot did.
+        this.thermalModel = new MotorThermalModel(name, CONSTANTS.getNeo550ThermalParameters(),
+                CONSTANTS.getNeo550MaxTemperature());
     }
 
     @Override
     public void periodic() {
 
         // Set Velocitys.
-        io.setVelocity(appliedVelocity);
+        double commandedVelocity = appliedVelocity * powerScale * thermalModel.getDerating();
+        io.setVelocity(commandedVelocity);
 
         // Log Inputs.
         io.updateInputs(inputs);
         Logger.processInputs(getName(), inputs);
+
+        // The SparkMax reports the current through the motor.
+        thermalModel.update(inputs.outputCurrent, inputs.motorTemp);
+
+        noteContactDetector.update(appliedVelocity, commandedVelocity, inputs.outputCurrent, inputs.velocity);
+        Logger.recordOutput(getName() + "/NoteContact", noteContactDetector.isContact());
+        Logger.recordOutput(getName() + "/FreeRunning", noteContactDetector.isFreeRunning());
     }
 
     // ========================= Functions =========================
+    /**
+     * @return {@code true} while the motor is being derated because it is hot.
+     */
     public boolean isTemperatureTooHigh() {
-        // 90% Buffer.
-        return io.getTemperature().gt(io.getMaxSafeTemperature().times(CONSTANTS.SAFE_MOTOR_TEMPERATURE_BUFFER));
+        return thermalModel.isDerating();
+    }
+
+    /**
+     * @return {@code true} while the motor's current & velocity show a note being
+     *         pulled through.
+     */
+    public boolean isNoteContactDetected() {
+        return noteContactDetector.isContact();
+    }
+
+    /**
+     * @return {@code true} while the motor runs at speed without a note.
+     */
+    public boolean isFreeRunning() {
+        return noteContactDetector.isFreeRunning();
+    }
+
+    /**
+     * @return {@code true} while the motor is commanded to run in reverse, e.g.
+     *         to eject a note.
+     */
+    public boolean isReversing() {
+        return appliedVelocity < 0;
+    }
+
+    /**
+     * @return Value in Amps.
+     */
+    public double getOutputCurrent() {
+        return inputs.outputCurrent;
+    }
+
+    /**
+     * @return Current drawn from the battery, the motor's current scaled by its
+     *         duty cycle. Value in Amps.
+     */
+    public double getSupplyCurrent() {
+        return Math.abs(inputs.outputCurrent * inputs.appliedOutput);
+    }
+
+    /**
+     * Slows the motor to save power, see
+     * {@link frc.robot.subsystems.power.PowerManager PowerManager}.
+     *
+     * @param scale Fraction of the set velocity to run at.
+     */
+    public void setPowerScale(double scale) {
+        powerScale = scale;
     }
 
     public void reverse() {
@@ -72,6 +138,15 @@ public class SingleMotorSubsystem extends SubsystemBase {
         setVelocity(0.0);
     }
 
+    /**
+     * Stops the motor now, instead of in the next {@link #periodic()}. Safe to
+     * call from other threads (e.g. an interrupt).
+     */
+    public void stopImmediately() {
+        appliedVelocity = 0.0;
+        io.setVelocity(0.0);
+    }
+
     // ========================= Commands =========================
 
     public Command startCommand() {
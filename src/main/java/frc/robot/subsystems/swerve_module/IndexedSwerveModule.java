@@ -1,5 +1,6 @@
 package frc.robot.subsystems.swerve_module;
 
+import static edu.wpi.first.units.Units.Celsius;
 import static edu.wpi.first.units.Units.Meters;
 import static frc.robot.constants.AbstractConstants.CONSTANTS;
 
@@ -12,6 +13,7 @@ import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Temperature;
+import frc.robot.util.MotorThermalModel;
 
 public class IndexedSwerveModule {
 
@@ -22,10 +24,12 @@ public class IndexedSwerveModule {
     private final SimpleMotorFeedforward driveFeedforward;
     private final PIDController driveFeedback;
     private final PIDController turnFeedback;
+    private final MotorThermalModel driveThermalModel, steerThermalModel;
     private Rotation2d angleSetpoint; // Setpoint for closed loop control, null for open loop.
     private Double speedSetpoint; // Setpoint for closed loop control, null for open loop.
     private Rotation2d turnRelativeOffset; // Relative + Offset = Absolute.
     private double lastPositionMeters; // Used for delta calculation.
+    private double powerScale = 1;
 
     public IndexedSwerveModule(SwerveModuleIo io, int index) {
 
@@ -52,6 +56,13 @@ public class IndexedSwerveModule {
         }
 
         turnFeedback.enableContinuousInput(-Math.PI, Math.PI);
+
+        // From the constants, not the IO, so replay derates like the robot did.
+        String name = "Drive/Module" + Integer.toString(index);
+        driveThermalModel = new MotorThermalModel(name + "/DriveMotor", CONSTANTS.getFalcon500ThermalParameters(),
+                CONSTANTS.getFalcon500MaxTemperature());
+        steerThermalModel = new MotorThermalModel(name + "/SteerMotor", CONSTANTS.getFalcon500ThermalParameters(),
+                CONSTANTS.getFalcon500MaxTemperature());
     }
 
     public void periodic() {
@@ -59,6 +70,13 @@ public class IndexedSwerveModule {
         io.updateInputs(inputs);
         Logger.processInputs("Drive/Module" + Integer.toString(index), inputs);
 
+        // The motors report supply current. Their supply voltage isn't logged, so a
+        // full battery is assumed, which can only overestimate the heating.
+        driveThermalModel.update(MotorThermalModel.estimateStatorCurrent(inputs.driveMotorCurrentAmps,
+                inputs.driveMotorAppliedVolts, 12), inputs.driveMotorTemp.in(Celsius));
+        steerThermalModel.update(MotorThermalModel.estimateStatorCurrent(inputs.steerMotorCurrentAmps,
+                inputs.steerMotorAppliedVolts, 12), inputs.steerMotorTemp.in(Celsius));
+
         // On first cycle, reset relative turn encoder.
         // Wait until absolute angle is nonzero in case it wasn't initialized yet.
         if (turnRelativeOffset == null && inputs.cancoderOffsetPosition.getRadians() != 0.0) {
@@ -68,7 +86,8 @@ public class IndexedSwerveModule {
         // Run closed loop turn control.
         if (angleSetpoint != null) {
 
-            io.setTurnVoltage(turnFeedback.calculate(getAngle().getRadians(), angleSetpoint.getRadians()));
+            io.setTurnVoltage(steerThermalModel.getDerating()
+                    * turnFeedback.calculate(getAngle().getRadians(), angleSetpoint.getRadians()));
 
             // Run closed loop drive control.
             // Only allowed if closed loop turn control is running.
@@ -82,8 +101,9 @@ public class IndexedSwerveModule {
 
                 // Run drive controller/
                 double velocityRadPerSec = adjustSpeedSetpoint / CONSTANTS.getWheelRadius().in(Meters);
-                io.setDriveVoltage(driveFeedforward.calculate(velocityRadPerSec)
-                        + driveFeedback.calculate(inputs.driveMotorVelocityRadPerSec, velocityRadPerSec));
+                io.setDriveVoltage(powerScale * driveThermalModel.getDerating()
+                        * (driveFeedforward.calculate(velocityRadPerSec)
+                                + driveFeedback.calculate(inputs.driveMotorVelocityRadPerSec, velocityRadPerSec)));
             }
         }
     }
@@ -105,6 +125,16 @@ public class IndexedSwerveModule {
         return optimizedState;
     }
 
+    /**
+     * Runs the module with a setpoint that was already optimized (by the
+     * {@link frc.robot.subsystems.base.SwerveSetpointGenerator
+     * SwerveSetpointGenerator}), without flipping it again.
+     */
+    public void runLimitedSetpoint(SwerveModuleState state) {
+        angleSetpoint = state.angle;
+        speedSetpoint = -state.speedMetersPerSecond;
+    }
+
     /**
      * Runs the module with the specified voltage while controlling to zero degrees.
      */
@@ -143,6 +173,20 @@ public class IndexedSwerveModule {
         return inputs.driveMotorTemp.gt(inputs.steerMotorTemp) ? inputs.driveMotorTemp : inputs.steerMotorTemp;
     }
 
+    /**
+     * @return Current drawn from the battery by both motors, in Amps.
+     */
+    public double getSupplyCurrent() {
+        return inputs.driveMotorCurrentAmps + inputs.steerMotorCurrentAmps;
+    }
+
+    /**
+     * @param scale Fraction of the closed loop drive voltage to apply.
+     */
+    public void setPowerScale(double scale) {
+        powerScale = scale;
+    }
+
     /** Returns the current drive position of the module in meters. */
     public double getPositionMeters() {
         return inputs.driveMotorPositionRad * CONSTANTS.getWheelRadius().in(Meters);
@@ -165,6 +209,28 @@ public class IndexedSwerveModule {
         return delta;
     }
 
+    /**
+     * @return The module positions sampled since the last loop, see
+     *         {@link #getOdometryTimestamps()}.
+     */
+    public SwerveModulePosition[] getOdometryPositions() {
+        SwerveModulePosition[] positions = new SwerveModulePosition[inputs.odometryTimestamps.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new SwerveModulePosition(
+                    inputs.odometryDrivePositionsRad[i] * CONSTANTS.getWheelRadius().in(Meters),
+                    turnRelativeOffset == null ? new Rotation2d()
+                            : inputs.odometrySteerPositions[i].plus(turnRelativeOffset));
+        }
+        return positions;
+    }
+
+    /**
+     * @return Timestamps, in Seconds, of the samples taken since the last loop.
+     */
+    public double[] getOdometryTimestamps() {
+        return inputs.odometryTimestamps;
+    }
+
     /** Returns the module state (turn angle and drive velocity). */
     public SwerveModuleState getState() {
         return new SwerveModuleState(getVelocityMetersPerSec(), getAngle());
@@ -175,8 +241,19 @@ public class IndexedSwerveModule {
         return inputs.driveMotorVelocityRadPerSec;
     }
 
+    /**
+     * @return {@code true} while either motor is being derated because it is
+     *         hot.
+     */
     public boolean isTemperatureTooHigh() {
-        // 90% Buffer.
-        return getMaxTemperature().gt(io.getMaxSafeMotorTemperature().times(CONSTANTS.SAFE_MOTOR_TEMPERATURE_BUFFER));
+        return driveThermalModel.isDerating() || steerThermalModel.isDerating();
+    }
+
+    /**
+     * @return Time until the first motor reaches its temperature limit at the
+     *         present current, in Seconds.
+     */
+    public double getTimeToThermalLimit() {
+        return Math.min(driveThermalModel.getTimeToLimit(), steerThermalModel.getTimeToLimit());
     }
 }
\ No newline at end of file
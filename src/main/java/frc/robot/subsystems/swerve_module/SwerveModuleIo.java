@@ -29,6 +29,11 @@ public interface SwerveModuleIo {
         public double steerMotorCurrentAmps;
         public int steerMotorFaults;
         public Measure<Temperature> steerMotorTemp = Celsius.zero();
+
+        // Samples taken since the last loop, see OdometryThread.
+        public double[] odometryTimestamps = new double[] {};
+        public double[] odometryDrivePositionsRad = new double[] {};
+        public Rotation2d[] odometrySteerPositions = new Rotation2d[] {};
     }
 
     /**
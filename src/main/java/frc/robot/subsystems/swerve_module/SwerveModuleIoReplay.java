@@ -1,6 +1,6 @@
 package frc.robot.subsystems.swerve_module;
 
-import static edu.wpi.first.units.Units.Celsius;
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
 
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Temperature;
@@ -12,7 +12,7 @@ public class SwerveModuleIoReplay implements SwerveModuleIo {
 
     @Override
     public Measure<Temperature> getMaxSafeMotorTemperature() {
-        return Celsius.of(Double.MAX_VALUE);
+        return CONSTANTS.getFalcon500MaxTemperature();
     }
 
     @Override
@@ -1,12 +1,13 @@
 package frc.robot.subsystems.swerve_module;
 
-import static edu.wpi.first.units.Units.Celsius;
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Temperature;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
 
 /**
@@ -32,7 +33,7 @@ public class SwerveModuleIoSim implements SwerveModuleIo {
 
     @Override
     public Measure<Temperature> getMaxSafeMotorTemperature() {
-        return Celsius.of(Double.MAX_VALUE);
+        return CONSTANTS.getFalcon500MaxTemperature();
     }
 
     @Override
@@ -65,5 +66,10 @@ public class SwerveModuleIoSim implements SwerveModuleIo {
         inputs.steerMotorVelocityRadPerSec = turnSim.getAngularVelocityRadPerSec();
         inputs.steerMotorAppliedVolts = turnAppliedVolts;
         inputs.steerMotorCurrentAmps = Math.abs(turnSim.getCurrentDrawAmps());
+
+        // One sample per loop, there is no odometry thread in simulation.
+        inputs.odometryTimestamps = new double[] { Timer.getFPGATimestamp() };
+        inputs.odometryDrivePositionsRad = new double[] { inputs.driveMotorPositionRad };
+        inputs.odometrySteerPositions = new Rotation2d[] { inputs.steerMotorPosition };
     }
 }
\ No newline at end of file
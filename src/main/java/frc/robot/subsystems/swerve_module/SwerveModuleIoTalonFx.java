@@ -3,6 +3,8 @@ package frc.robot.subsystems.swerve_module;
 import static edu.wpi.first.units.Units.Celsius;
 import static frc.robot.constants.AbstractConstants.CONSTANTS;
 
+import java.util.Arrays;
+
 import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.CANcoderConfiguration;
@@ -20,6 +22,8 @@ import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Temperature;
 import frc.robot.subsystems.base.DriveBase.WheelModuleIndex;
+import frc.robot.util.DeviceConfigurator;
+import frc.robot.util.OdometryThread;
 
 /**
  * Module IO implementation for Talon FX drive motor controller, Talon FX turn
@@ -70,6 +74,8 @@ public class SwerveModuleIoTalonFx implements SwerveModuleIo {
     private final StatusSignal<Integer> driveMotorFaults, steerMotorFaults;
     private final StatusSignal<Double> driveMotorTemp, steerMotorTemp;
 
+    private final int odometryDrivePositionIndex, odometrySteerPositionIndex;
+
     private final Rotation2d absoluteEncoderOffset;
 
     public SwerveModuleIoTalonFx(WheelModuleIndex index) {
@@ -84,20 +90,6 @@ public class SwerveModuleIoTalonFx implements SwerveModuleIo {
         steerMotor = new TalonFX(CONSTANTS.getSwerveModuleHardwareIds().get(index).STEER_MOTOR_ID,
                 CONSTANTS.getCanivoreId());
 
-        // ---------- Configure Hardware ----------
-        // ----- Cancoder -----
-        // Set CAN Coder configs to defaults.
-        cancoder.getConfigurator().apply(new CANcoderConfiguration());
-
-        // ----- Motors -----
-        // Only set the Motor Configuration once, to avoid accidentally overriding
-        // configs with defaults.
-        driveMotor.getConfigurator()
-                // Inverted to match our Swerve Drive Module Gear Box & Motors.
-                .apply(getDefaultTalonFXConfiguration(InvertedValue.Clockwise_Positive, NeutralModeValue.Brake));
-        steerMotor.getConfigurator()
-                .apply(getDefaultTalonFXConfiguration(InvertedValue.CounterClockwise_Positive, NeutralModeValue.Brake));
-
         // ---------- Get StatusSignals ----------
         cancoderAbsolutePosition = cancoder.getAbsolutePosition();
 
@@ -115,21 +107,65 @@ public class SwerveModuleIoTalonFx implements SwerveModuleIo {
         steerMotorFaults = steerMotor.getFaultField();
         steerMotorTemp = steerMotor.getDeviceTemp();
 
-        // Set Update frequency.
-        BaseStatusSignal.setUpdateFrequencyForAll( // Required for odometry, use faster rate
-                CONSTANTS.getPathPlannerLogFrequencyForOdometry(), driveMotorPosition, steerMotorPosition);
-        BaseStatusSignal.setUpdateFrequencyForAll(
-                CONSTANTS.getPathPlannerLogUpdateFrequencyDefault(),
-                driveMotorVelocity,
-                driveMotorAppliedVolts,
-                driveMotorCurrent,
-                cancoderAbsolutePosition,
-                steerMotorVelocity,
-                steerMotorAppliedVolts,
-                steerMotorCurrent);
+        // Separate copies of the position signals are sampled faster, by the
+        // OdometryThread.
+        odometryDrivePositionIndex = OdometryThread.getInstance().register(driveMotorPosition.clone(),
+                CONSTANTS.getCanivoreId());
+        odometrySteerPositionIndex = OdometryThread.getInstance().register(steerMotorPosition.clone(),
+                CONSTANTS.getCanivoreId());
 
-        driveMotor.optimizeBusUtilization();
-        steerMotor.optimizeBusUtilization();
+        // ---------- Configure Hardware ----------
+        // Configuration is applied in parallel with the other devices on the bus, see
+        // DeviceConfigurator.
+        String devicePrefix = "Swerve/" + index.name() + "/";
+
+        // ----- Cancoder -----
+        // Set CAN Coder configs to defaults.
+        CANcoderConfiguration cancoderConfiguration = new CANcoderConfiguration();
+        DeviceConfigurator.submit(CONSTANTS.getCanivoreId(), devicePrefix + "Cancoder",
+                () -> DeviceConfigurator.isOk(cancoder.getConfigurator().apply(cancoderConfiguration))
+                        && DeviceConfigurator.isOk(cancoderAbsolutePosition
+                                .setUpdateFrequency(CONSTANTS.getPathPlannerLogUpdateFrequencyDefault())),
+                () -> {
+                    CANcoderConfiguration actual = new CANcoderConfiguration();
+                    return DeviceConfigurator.isOk(cancoder.getConfigurator().refresh(actual))
+                            && actual.MagnetSensor.MagnetOffset == cancoderConfiguration.MagnetSensor.MagnetOffset
+                            && actual.MagnetSensor.SensorDirection == cancoderConfiguration.MagnetSensor.SensorDirection;
+                });
+
+        // ----- Motors -----
+        // Only set the Motor Configuration once, to avoid accidentally overriding
+        // configs with defaults.
+        // Inverted to match our Swerve Drive Module Gear Box & Motors.
+        TalonFXConfiguration driveMotorConfiguration = getDefaultTalonFXConfiguration(
+                InvertedValue.Clockwise_Positive, NeutralModeValue.Brake);
+        DeviceConfigurator.submit(CONSTANTS.getCanivoreId(), devicePrefix + "DriveMotor",
+                () -> DeviceConfigurator.isOk(driveMotor.getConfigurator().apply(driveMotorConfiguration))
+                        // Required for odometry, use faster rate
+                        && DeviceConfigurator.isOk(driveMotorPosition
+                                .setUpdateFrequency(CONSTANTS.getOdometryFrequency()))
+                        && DeviceConfigurator.isOk(BaseStatusSignal.setUpdateFrequencyForAll(
+                                CONSTANTS.getPathPlannerLogUpdateFrequencyDefault(),
+                                driveMotorVelocity,
+                                driveMotorAppliedVolts,
+                                driveMotorCurrent))
+                        && DeviceConfigurator.isOk(driveMotor.optimizeBusUtilization()),
+                () -> DeviceConfigurator.verifyTalonFx(driveMotor, driveMotorConfiguration));
+
+        TalonFXConfiguration steerMotorConfiguration = getDefaultTalonFXConfiguration(
+                InvertedValue.CounterClockwise_Positive, NeutralModeValue.Brake);
+        DeviceConfigurator.submit(CONSTANTS.getCanivoreId(), devicePrefix + "SteerMotor",
+                () -> DeviceConfigurator.isOk(steerMotor.getConfigurator().apply(steerMotorConfiguration))
+                        // Required for odometry, use faster rate
+                        && DeviceConfigurator.isOk(steerMotorPosition
+                                .setUpdateFrequency(CONSTANTS.getOdometryFrequency()))
+                        && DeviceConfigurator.isOk(BaseStatusSignal.setUpdateFrequencyForAll(
+                                CONSTANTS.getPathPlannerLogUpdateFrequencyDefault(),
+                                steerMotorVelocity,
+                                steerMotorAppliedVolts,
+                                steerMotorCurrent))
+                        && DeviceConfigurator.isOk(steerMotor.optimizeBusUtilization()),
+                () -> DeviceConfigurator.verifyTalonFx(steerMotor, steerMotorConfiguration));
     }
 
     @Override
@@ -191,5 +227,19 @@ public class SwerveModuleIoTalonFx implements SwerveModuleIo {
         inputs.steerMotorCurrentAmps = steerMotorCurrent.getValueAsDouble();
         inputs.steerMotorFaults = steerMotorFaults.getValue();
         inputs.steerMotorTemp = Celsius.of(steerMotorTemp.getValueAsDouble());
+
+        OdometryThread odometry = OdometryThread.getInstance();
+        double[] driveSamples = odometry.getValues(odometryDrivePositionIndex);
+        double[] steerSamples = odometry.getValues(odometrySteerPositionIndex);
+        int sampleCount = odometry.getSampleCount();
+        inputs.odometryTimestamps = Arrays.copyOf(odometry.getTimestamps(), sampleCount);
+        inputs.odometryDrivePositionsRad = new double[sampleCount];
+        inputs.odometrySteerPositions = new Rotation2d[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            inputs.odometryDrivePositionsRad[i] = Units.rotationsToRadians(-driveSamples[i])
+                    / CONSTANTS.getGearRatioOfDriveWheel();
+            inputs.odometrySteerPositions[i] = Rotation2d
+                    .fromRotations(steerSamples[i] / CONSTANTS.getGearRatioOfTurnWheel());
+        }
     }
 }
\ No newline at end of file
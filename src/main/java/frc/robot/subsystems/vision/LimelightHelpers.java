@@ -393,6 +393,36 @@ public class LimelightHelpers {
                         Units.degreesToRadians(inData[5])));
     }
 
+    /**
+     * A robot pose from one of the botpose arrays, with the tags it was solved
+     * from.
+     */
+    public static class PoseEstimate {
+        public Pose2d pose;
+        /** When the image was taken, in Seconds (FPGA time). */
+        public double timestampSeconds;
+        /** Pipeline & capture latency, in Milliseconds. */
+        public double latency;
+        public int tagCount;
+        /** Distance between the furthest apart tags, in Meters. */
+        public double tagSpan;
+        /** Meters. */
+        public double avgTagDist;
+        /** Percent of the image. */
+        public double avgTagArea;
+
+        public PoseEstimate(Pose2d pose, double timestampSeconds, double latency, int tagCount, double tagSpan,
+                double avgTagDist, double avgTagArea) {
+            this.pose = pose;
+            this.timestampSeconds = timestampSeconds;
+            this.latency = latency;
+            this.tagCount = tagCount;
+            this.tagSpan = tagSpan;
+            this.avgTagDist = avgTagDist;
+            this.avgTagArea = avgTagArea;
+        }
+    }
+
     private static Pose2d toPose2D(double[] inData) {
         if (inData.length < 6) {
             System.err.println("Bad LL 2D Pose Data!");
@@ -518,6 +548,14 @@ public class LimelightHelpers {
         return getLimelightNTDoubleArray(limelightName, "botpose_wpiblue");
     }
 
+    /**
+     * MegaTag2's pose, solved with the robot's heading from
+     * {@link #setRobotOrientation}.
+     */
+    public static double[] getBotPose_orb_wpiBlue(String limelightName) {
+        return getLimelightNTDoubleArray(limelightName, "botpose_orb_wpiblue");
+    }
+
     public static double[] getBotPose_TargetSpace(String limelightName) {
         return getLimelightNTDoubleArray(limelightName, "botpose_targetspace");
     }
@@ -630,6 +668,42 @@ public class LimelightHelpers {
 
     }
 
+    /**
+     * MegaTag1's pose, solved from the tags alone.
+     *
+     * @return {@code null} if there is no pose.
+     */
+    public static PoseEstimate getBotPoseEstimate_wpiBlue(String limelightName) {
+        return getBotPoseEstimate(limelightName, "botpose_wpiblue");
+    }
+
+    /**
+     * MegaTag2's pose, solved with the robot's heading from
+     * {@link #setRobotOrientation}, which must be set every loop.
+     *
+     * @return {@code null} if there is no pose.
+     */
+    public static PoseEstimate getBotPoseEstimate_wpiBlue_MegaTag2(String limelightName) {
+        return getBotPoseEstimate(limelightName, "botpose_orb_wpiblue");
+    }
+
+    /**
+     * Reads a botpose array: [x, y, z, roll, pitch, yaw, latency, tag count, tag
+     * span, average tag distance, average tag area, ...]. The timestamp is from
+     * when the array was received, less the latency.
+     */
+    private static PoseEstimate getBotPoseEstimate(String limelightName, String entryName) {
+        NetworkTableEntry poseEntry = getLimelightNTTableEntry(limelightName, entryName);
+        double[] poseArray = poseEntry.getDoubleArray(new double[0]);
+        if (poseArray.length < 11 || (poseArray[0] == 0 && poseArray[1] == 0)) {
+            return null;
+        }
+        double latency = poseArray[6];
+        double timestamp = (poseEntry.getLastChange() / 1000000.0) - (latency / 1000.0);
+        return new PoseEstimate(toPose2D(poseArray), timestamp, latency, (int) poseArray[7], poseArray[8],
+                poseArray[9], poseArray[10]);
+    }
+
     public static boolean getTV(String limelightName) {
         return 1.0 == getLimelightNTDouble(limelightName, "tv");
     }
@@ -707,6 +781,25 @@ public class LimelightHelpers {
         setLimelightNTDoubleArray(limelightName, "camerapose_robotspace_set", entries);
     }
 
+    /**
+     * Gives MegaTag2 the robot's heading. Set every loop, before reading
+     * {@link #getBotPoseEstimate_wpiBlue_MegaTag2}.
+     *
+     * @param yaw     Field relative, blue alliance, in Degrees.
+     * @param yawRate Degrees per Second.
+     */
+    public static void setRobotOrientation(String limelightName, double yaw, double yawRate, double pitch,
+            double pitchRate, double roll, double rollRate) {
+        double[] entries = new double[6];
+        entries[0] = yaw;
+        entries[1] = yawRate;
+        entries[2] = pitch;
+        entries[3] = pitchRate;
+        entries[4] = roll;
+        entries[5] = rollRate;
+        setLimelightNTDoubleArray(limelightName, "robot_orientation_set", entries);
+    }
+
     /////
     /////
 
@@ -0,0 +1,96 @@
+package frc.robot.subsystems.vision;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+
+/**
+ * Reads one Limelight's poses through subscribers created once, instead of
+ * {@link LimelightHelpers}' table lookups by name on every call.
+ * <p>
+ * The subscribers queue every frame the camera sends, so frames that arrive
+ * between robot loops are read too, each with the time it was received, rather
+ * than only the latest.
+ * </p>
+ */
+class LimelightReader {
+
+    // ========================= Class Level ===================================
+
+    /** Frames kept between reads, the cameras run at up to 90 per Second. */
+    static final int QUEUE_SIZE = 10;
+
+    // ========================= Object Level ==================================
+
+    private final DoubleArraySubscriber botPose, botPoseMegaTag2;
+    private final DoubleSubscriber heartbeat, pipelineLatency, captureLatency;
+    private final DoubleArrayPublisher robotOrientation;
+    private final double[] orientation = new double[6];
+
+    LimelightReader(String cameraName) {
+        NetworkTable table = LimelightHelpers.getLimelightNTTable(cameraName);
+        PubSubOption[] options = { PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(QUEUE_SIZE),
+                PubSubOption.sendAll(true) };
+        double[] empty = new double[0];
+        botPose = table.getDoubleArrayTopic("botpose_wpiblue").subscribe(empty, options);
+        botPoseMegaTag2 = table.getDoubleArrayTopic("botpose_orb_wpiblue").subscribe(empty, options);
+        heartbeat = table.getDoubleTopic("hb").subscribe(0);
+        pipelineLatency = table.getDoubleTopic("tl").subscribe(0);
+        captureLatency = table.getDoubleTopic("cl").subscribe(0);
+        robotOrientation = table.getDoubleArrayTopic("robot_orientation_set").publish();
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * @return MegaTag1's frames since the last call, oldest first. The arrays
+     *         are laid out as {@link LimelightHelpers#getBotPose_wpiBlue}'s.
+     */
+    TimestampedDoubleArray[] readBotPoses() {
+        return botPose.readQueue();
+    }
+
+    /**
+     * @return MegaTag2's frames since the last call, oldest first.
+     */
+    TimestampedDoubleArray[] readBotPosesMegaTag2() {
+        return botPoseMegaTag2.readQueue();
+    }
+
+    /**
+     * @return The camera's frame counter.
+     */
+    double getHeartbeat() {
+        return heartbeat.get();
+    }
+
+    /**
+     * @return Latest frame's, in Milliseconds.
+     */
+    double getPipelineLatency() {
+        return pipelineLatency.get();
+    }
+
+    /**
+     * @return Latest frame's, in Milliseconds.
+     */
+    double getCaptureLatency() {
+        return captureLatency.get();
+    }
+
+    /**
+     * Gives MegaTag2 the robot's heading, see
+     * {@link LimelightHelpers#setRobotOrientation}.
+     *
+     * @param yaw     Field relative, blue alliance, in Degrees.
+     * @param yawRate Degrees per Second.
+     */
+    void setRobotOrientation(double yaw, double yawRate) {
+        orientation[0] = yaw;
+        orientation[1] = yawRate;
+        robotOrientation.set(orientation);
+    }
+}
@@ -0,0 +1,34 @@
+package frc.robot.subsystems.vision;
+
+import org.littletonrobotics.junction.AutoLog;
+
+/**
+ * A neural detector's raw detections. Where the notes are, and which note each
+ * one is, is worked out by the {@link NoteTracker} from these logged inputs, so
+ * a replay with a changed tracker does exactly what the new tracker would have.
+ */
+public interface NoteDetectorIo {
+
+    /**
+     * Frames received since the last loop, oldest first. Each is a Limelight
+     * rawdetections array: [class id, tx, ty, area, then the 4 corners' x & y]
+     * for each detection, with tx & ty from the center of the image, in
+     * Degrees. The arrays are logged one after another, split by their lengths.
+     */
+    @AutoLog
+    public static class NoteDetectorIoInputs {
+        public double[] detections = new double[0];
+        public int[] detectionLengths = new int[0];
+        /** When each frame was received, in Seconds (NT server time). */
+        public double[] detectionTimestamps = new double[0];
+
+        /** Latest frame's, in Milliseconds. */
+        public double pipelineLatency;
+        /** Latest frame's, in Milliseconds. */
+        public double captureLatency;
+    }
+
+    public void updateInputs(NoteDetectorIoInputs inputs);
+
+    public String name();
+}
@@ -0,0 +1,63 @@
+package frc.robot.subsystems.vision;
+
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+
+/**
+ * A Limelight running a neural detector pipeline, read through the
+ * rawdetections array, every frame received since the last loop.
+ * <p>
+ * This avoids parsing the JSON results (see
+ * {@link LimelightHelpers.LimelightTarget_Detector}), which takes longer than
+ * the rest of the loop when there are several detections, and only has the
+ * latest frame.
+ * </p>
+ */
+public class NoteDetectorIoLimelight implements NoteDetectorIo {
+
+    private final String cameraName;
+    private final DoubleArraySubscriber rawDetections;
+    private final DoubleSubscriber pipelineLatency, captureLatency;
+
+    /**
+     * @param pipeline The detector's pipeline index, selected here once.
+     */
+    public NoteDetectorIoLimelight(String cameraName, int pipeline) {
+        this.cameraName = cameraName;
+        NetworkTable table = LimelightHelpers.getLimelightNTTable(cameraName);
+        rawDetections = table.getDoubleArrayTopic("rawdetections").subscribe(new double[0],
+                PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(LimelightReader.QUEUE_SIZE),
+                PubSubOption.sendAll(true));
+        pipelineLatency = table.getDoubleTopic("tl").subscribe(0);
+        captureLatency = table.getDoubleTopic("cl").subscribe(0);
+        LimelightHelpers.setPipelineIndex(cameraName, pipeline);
+    }
+
+    public String name() {
+        return this.cameraName;
+    }
+
+    public void updateInputs(NoteDetectorIoInputs inputs) {
+        TimestampedDoubleArray[] frames = rawDetections.readQueue();
+        int length = 0;
+        for (TimestampedDoubleArray frame : frames) {
+            length += frame.value.length;
+        }
+        inputs.detections = new double[length];
+        inputs.detectionLengths = new int[frames.length];
+        inputs.detectionTimestamps = new double[frames.length];
+        int offset = 0;
+        for (int i = 0; i < frames.length; i++) {
+            System.arraycopy(frames[i].value, 0, inputs.detections, offset, frames[i].value.length);
+            offset += frames[i].value.length;
+            inputs.detectionLengths[i] = frames[i].value.length;
+            inputs.detectionTimestamps[i] = frames[i].serverTime / 1000000.0;
+        }
+
+        inputs.pipelineLatency = pipelineLatency.get();
+        inputs.captureLatency = captureLatency.get();
+    }
+}
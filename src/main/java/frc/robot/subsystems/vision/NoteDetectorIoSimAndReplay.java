@@ -0,0 +1,21 @@
+package frc.robot.subsystems.vision;
+
+public class NoteDetectorIoSimAndReplay implements NoteDetectorIo {
+    private final String cameraName;
+
+    /**
+     * @param cameraName The same as the real camera's, so a replay reads its
+     *                   logged inputs.
+     */
+    public NoteDetectorIoSimAndReplay(String cameraName) {
+        this.cameraName = cameraName;
+    }
+
+    public void updateInputs(NoteDetectorIoInputs inputs) {
+        // Don't need to do anything here.
+    }
+
+    public String name() {
+        return cameraName;
+    }
+}
@@ -0,0 +1,158 @@
+package frc.robot.subsystems.vision;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.subsystems.base.PoseHistory;
+
+/**
+ * Where the notes on the field are, from a neural detector's detections.
+ * <p>
+ * Each detection's angles give a ray from the camera (see
+ * {@link frc.robot.constants.AbstractConstants#getNoteCameraTransform()}),
+ * which hits the floor where the note is, relative to the robot. That is made
+ * field relative with the pose the robot was at when the image was taken, so
+ * the note stays put as the robot drives, and then given to the
+ * {@link NoteTracks}.
+ * </p>
+ * <p>
+ * Only uses the logged {@link NoteDetectorIo.NoteDetectorIoInputs} and the pose
+ * history, so log replay runs it again, with any changes made to it.
+ * </p>
+ */
+public class NoteTracker extends SubsystemBase {
+
+    // ========================= Class Level ===================================
+
+    // [class id, tx, ty, area, then the 4 corners' x & y].
+    private static final int DETECTION_LENGTH = 12;
+    private static final double NOTE_HEIGHT = 0.0254; // Center of the note, Meters.
+    private static final double MAX_RANGE = 6; // Meters.
+    // The floor is hit at a shallower angle further away, Meters per Meter² of range.
+    private static final double STD_DEV_RATIO = 0.02;
+    private static final double MIN_STD_DEV = 0.05; // Meters.
+
+    // ========================= Object Level ==================================
+
+    private final NoteDetectorIo io;
+    private final NoteDetectorIoInputsAutoLogged inputs = new NoteDetectorIoInputsAutoLogged();
+    private final PoseHistory poseHistory;
+    private final NoteTracks tracks = new NoteTracks();
+    private final Translation3d cameraPosition;
+    private final Rotation3d cameraRotation;
+    private final double[] robotPose = new double[3];
+
+    /**
+     * @param poseHistory Where the robot was when each image was taken.
+     */
+    public NoteTracker(PoseHistory poseHistory, NoteDetectorIo io) {
+        this.poseHistory = poseHistory;
+        this.io = io;
+        Transform3d cameraTransform = CONSTANTS.getNoteCameraTransform();
+        cameraPosition = cameraTransform.getTranslation();
+        cameraRotation = cameraTransform.getRotation();
+    }
+
+    // ========================= Functions =====================================
+
+    @Override
+    public void periodic() {
+        io.updateInputs(inputs);
+        Logger.processInputs("NoteTracker/" + io.name(), inputs);
+
+        tracks.predict();
+        double latency = (inputs.pipelineLatency + inputs.captureLatency) / 1000.0;
+        Translation2d[] detections = new Translation2d[inputs.detections.length / DETECTION_LENGTH];
+        int detectionCount = 0;
+        for (int frame = 0, offset = 0; frame < inputs.detectionLengths.length;
+                offset += inputs.detectionLengths[frame], frame++) {
+            if (!poseHistory.getPoseAt(inputs.detectionTimestamps[frame] - latency, robotPose)) {
+                continue;
+            }
+            double cos = Math.cos(robotPose[2]);
+            double sin = Math.sin(robotPose[2]);
+            tracks.startFrame();
+            for (int start = offset; start + DETECTION_LENGTH <= offset + inputs.detectionLengths[frame];
+                    start += DETECTION_LENGTH) {
+                Translation3d ray = new Translation3d(1, -Math.tan(Math.toRadians(inputs.detections[start + 1])),
+                        Math.tan(Math.toRadians(inputs.detections[start + 2]))).rotateBy(cameraRotation);
+                if (ray.getZ() >= 0) {
+                    // At or above the horizon, never reaches the floor.
+                    continue;
+                }
+                double distance = (NOTE_HEIGHT - cameraPosition.getZ()) / ray.getZ();
+                double range = distance * Math.hypot(ray.getX(), ray.getY());
+                if (distance <= 0 || range > MAX_RANGE) {
+                    continue;
+                }
+                double x = cameraPosition.getX() + distance * ray.getX(); // Robot relative.
+                double y = cameraPosition.getY() + distance * ray.getY();
+                double fieldX = robotPose[0] + x * cos - y * sin;
+                double fieldY = robotPose[1] + x * sin + y * cos;
+                double stdDev = MIN_STD_DEV + STD_DEV_RATIO * range * range;
+                tracks.update(fieldX, fieldY, stdDev * stdDev);
+                detections[detectionCount++] = new Translation2d(fieldX, fieldY);
+            }
+        }
+
+        log(detections, detectionCount);
+    }
+
+    /**
+     * @return The confirmed note closest to the point, field relative, blue
+     *         alliance, if there is one.
+     */
+    public Optional<Translation2d> getClosestNote(Translation2d from) {
+        int closest = -1;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < tracks.getCount(); i++) {
+            double distance = Math.hypot(tracks.getX(i) - from.getX(), tracks.getY(i) - from.getY());
+            if (tracks.isConfirmed(i) && distance < closestDistance) {
+                closest = i;
+                closestDistance = distance;
+            }
+        }
+        if (closest < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Translation2d(tracks.getX(closest), tracks.getY(closest)));
+    }
+
+    // ========================= Helper Methods ================================
+
+    private void log(Translation2d[] detections, int detectionCount) {
+        int confirmedCount = 0;
+        for (int i = 0; i < tracks.getCount(); i++) {
+            if (tracks.isConfirmed(i)) {
+                confirmedCount++;
+            }
+        }
+        Translation2d[] notes = new Translation2d[confirmedCount];
+        int[] ids = new int[confirmedCount];
+        double[] stdDevs = new double[confirmedCount];
+        for (int i = 0, note = 0; i < tracks.getCount(); i++) {
+            if (!tracks.isConfirmed(i)) {
+                continue;
+            }
+            notes[note] = new Translation2d(tracks.getX(i), tracks.getY(i));
+            ids[note] = tracks.getId(i);
+            stdDevs[note] = tracks.getStdDev(i);
+            note++;
+        }
+
+        Logger.recordOutput("NoteTracker/Detections", Arrays.copyOf(detections, detectionCount));
+        Logger.recordOutput("NoteTracker/Notes", notes);
+        Logger.recordOutput("NoteTracker/NoteIds", ids);
+        Logger.recordOutput("NoteTracker/NoteStdDevs", stdDevs);
+        Logger.recordOutput("NoteTracker/TrackCount", tracks.getCount());
+    }
+}
@@ -0,0 +1,169 @@
+package frc.robot.subsystems.vision;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+/**
+ * The notes seen recently, each with an id that stays the same while it is
+ * tracked, and a Kalman filtered position.
+ * <p>
+ * Notes don't move unless pushed, so each track's position is only a mean and
+ * a variance (the same in X & Y), which grows a little every loop and shrinks
+ * with each detection. A detection goes to the closest track within
+ * {@link frc.robot.constants.AbstractConstants#getNoteTrackGate()} (squared
+ * Mahalanobis distance), or starts a new track. A track is only confirmed
+ * after {@link frc.robot.constants.AbstractConstants#getNoteTrackConfirmHits()}
+ * detections, so a single false detection isn't reported, and is dropped after
+ * {@link frc.robot.constants.AbstractConstants#getNoteTrackTimeToLive()} loops
+ * without one, e.g. once the note is picked up.
+ * </p>
+ * <p>
+ * Everything is counted in loops, not time, so replay gives the same tracks.
+ * </p>
+ */
+class NoteTracks {
+
+    // ========================= Class Level ===================================
+
+    static final int MAX_TRACKS = 8;
+    // A note may be nudged by robots, Meters² per loop.
+    private static final double PROCESS_VARIANCE = 0.0001;
+
+    // ========================= Object Level ==================================
+
+    private final int[] ids = new int[MAX_TRACKS];
+    private final double[] xs = new double[MAX_TRACKS];
+    private final double[] ys = new double[MAX_TRACKS];
+    private final double[] variances = new double[MAX_TRACKS];
+    private final int[] hits = new int[MAX_TRACKS];
+    private final int[] missedLoops = new int[MAX_TRACKS];
+    // Whether the track was already given a detection from this frame.
+    private final boolean[] isMatched = new boolean[MAX_TRACKS];
+    private int count;
+    private int nextId;
+
+    // ========================= Functions =====================================
+
+    /**
+     * Grows every track's variance, and drops the ones not seen for too long.
+     * Called once per loop, before the loop's frames.
+     */
+    void predict() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (++missedLoops[i] > CONSTANTS.getNoteTrackTimeToLive()) {
+                continue;
+            }
+            ids[kept] = ids[i];
+            xs[kept] = xs[i];
+            ys[kept] = ys[i];
+            variances[kept] = variances[i] + PROCESS_VARIANCE;
+            hits[kept] = hits[i];
+            missedLoops[kept] = missedLoops[i];
+            kept++;
+        }
+        count = kept;
+    }
+
+    /**
+     * Starts a frame, a track can only be given one of its detections.
+     */
+    void startFrame() {
+        for (int i = 0; i < count; i++) {
+            isMatched[i] = false;
+        }
+    }
+
+    /**
+     * Gives a detection to the closest track it could be, or a new track.
+     *
+     * @param x        Field relative, blue alliance, in Meters.
+     * @param y        Field relative, blue alliance, in Meters.
+     * @param variance The detection's, in Meters².
+     */
+    void update(double x, double y, double variance) {
+        int closest = -1;
+        double closestDistanceSquared = CONSTANTS.getNoteTrackGate();
+        for (int i = 0; i < count; i++) {
+            if (isMatched[i]) {
+                continue;
+            }
+            double dx = x - xs[i];
+            double dy = y - ys[i];
+            double distanceSquared = (dx * dx + dy * dy) / (variances[i] + variance);
+            if (distanceSquared <= closestDistanceSquared) {
+                closest = i;
+                closestDistanceSquared = distanceSquared;
+            }
+        }
+
+        if (closest >= 0) {
+            double gain = variances[closest] / (variances[closest] + variance);
+            xs[closest] += gain * (x - xs[closest]);
+            ys[closest] += gain * (y - ys[closest]);
+            variances[closest] *= 1 - gain;
+            hits[closest]++;
+            missedLoops[closest] = 0;
+            isMatched[closest] = true;
+            return;
+        }
+
+        int track = count;
+        if (count == MAX_TRACKS) {
+            // Replace the track seen longest ago, unless all were seen this loop.
+            track = 0;
+            for (int i = 1; i < count; i++) {
+                if (missedLoops[i] > missedLoops[track]) {
+                    track = i;
+                }
+            }
+            if (missedLoops[track] == 0) {
+                return;
+            }
+        } else {
+            count++;
+        }
+        ids[track] = nextId++;
+        xs[track] = x;
+        ys[track] = y;
+        variances[track] = variance;
+        hits[track] = 1;
+        missedLoops[track] = 0;
+        isMatched[track] = true;
+    }
+
+    /**
+     * @return How many tracks there are, confirmed or not.
+     */
+    int getCount() {
+        return count;
+    }
+
+    boolean isConfirmed(int index) {
+        return hits[index] >= CONSTANTS.getNoteTrackConfirmHits();
+    }
+
+    int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @return Field relative, blue alliance, in Meters.
+     */
+    double getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * @return Field relative, blue alliance, in Meters.
+     */
+    double getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * @return In X & Y, in Meters.
+     */
+    double getStdDev(int index) {
+        return Math.sqrt(variances[index]);
+    }
+}
@@ -1,49 +1,128 @@
 package frc.robot.subsystems.vision;
 
-import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
 
-import edu.wpi.first.math.VecBuilder;
-import edu.wpi.first.math.Vector;
-import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
 import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.subsystems.base.PoseHistory;
+import frc.robot.subsystems.base.SwervePoseEstimator;
+import frc.robot.util.WorkerPool;
 
 public class Vision extends SubsystemBase {
     private final VisionIo[] ios;
-    private final SwerveDrivePoseEstimator poseEstimator;
-    private final VisionInputsAutoLogged inputs = new VisionInputsAutoLogged();
-
-    @AutoLog
-    public static class VisionInputs {
-        public VisionInputs() {
-            estimateStdDevs = new double[3];
-        }
+    private final SwervePoseEstimator poseEstimator;
+    private final DoubleSupplier odometryStdDevScale;
+    private final VisionPoseFilter[] filters;
+    private final VisionGate gate;
 
-        public boolean havePose = false;
-        public Pose2d pose = new Pose2d();
-        public double distanceToTarget;
-        public double timestamp;
-        public double[] estimateStdDevs = new double[3];
-        // public int[] fIds = new int[0];
-    }
+    // This loop's measurements, added together.
+    private Pose2d[] poses;
+    private double[] timestamps;
+    private double[][] stdDevs;
+    // One per camera.
+    private final VisionIoInputsAutoLogged[] inputs;
+    private final Runnable[] updateTasks, processTasks;
 
-    public Vision(SwerveDrivePoseEstimator poseEstimator, VisionIo... ios) {
+    /**
+     * @param poseHistory               The estimate when each image was taken, to
+     *                                  filter & gate the measurements against
+     *                                  (see {@link VisionGate}).
+     * @param odometryStdDevScale       How many times more uncertain the odometry
+     *                                  is than usual, e.g. after a collision.
+     * @param isRecoveringFromCollision While {@code true}, poses further than the
+     *                                  robot could have driven are accepted, as
+     *                                  the odometry was knocked off.
+     */
+    public Vision(SwervePoseEstimator poseEstimator, PoseHistory poseHistory, DoubleSupplier odometryStdDevScale,
+            BooleanSupplier isRecoveringFromCollision, VisionIo... ios) {
         this.poseEstimator = poseEstimator;
+        this.odometryStdDevScale = odometryStdDevScale;
         this.ios = ios;
+        String[] names = new String[ios.length];
+        filters = new VisionPoseFilter[ios.length];
+        inputs = new VisionIoInputsAutoLogged[ios.length];
+        updateTasks = new Runnable[ios.length];
+        processTasks = new Runnable[ios.length];
+        for (int i = 0; i < ios.length; i++) {
+            names[i] = ios[i].name();
+            filters[i] = new VisionPoseFilter(names[i], poseHistory, isRecoveringFromCollision);
+            inputs[i] = new VisionIoInputsAutoLogged();
+            VisionIo io = ios[i];
+            VisionPoseFilter filter = filters[i];
+            VisionIoInputsAutoLogged cameraInputs = inputs[i];
+            updateTasks[i] = () -> io.updateInputs(cameraInputs);
+            processTasks[i] = () -> filter.process(cameraInputs);
+        }
+        gate = new VisionGate(poseHistory, names);
+        poses = new Pose2d[ios.length];
+        timestamps = new double[ios.length];
+        stdDevs = new double[ios.length][3];
     }
 
+    /**
+     * The cameras are read, and their frames filtered, at the same time on the
+     * {@link WorkerPool}. Everything else (logging, gating, adding to the
+     * estimator) is done here, camera by camera, so the results don't depend on
+     * which camera finished first.
+     */
     @Override
     public void periodic() {
-        for (VisionIo io : ios) {
-            io.updateInputs(inputs);
-            Logger.processInputs("Vision/" + io.name(), inputs);
-            if (inputs.havePose) {
-                double[] sd = inputs.estimateStdDevs;
-                Vector<N3> sdVector = VecBuilder.fill(sd[0], sd[1], sd[2]);
-                poseEstimator.addVisionMeasurement(inputs.pose, inputs.timestamp, sdVector);
+        double scale = odometryStdDevScale.getAsDouble();
+        gate.predict(scale);
+        for (int camera = 0; camera < ios.length; camera++) {
+            if (filters[camera].prepare()) {
+                ios[camera].setRobotOrientation(filters[camera].getYaw(), filters[camera].getYawRate());
             }
         }
+
+        WorkerPool.runAll(updateTasks);
+        for (int camera = 0; camera < ios.length; camera++) {
+            Logger.processInputs("Vision/" + ios[camera].name(), inputs[camera]);
+        }
+        // After processInputs(), so replay filters the logged frames.
+        WorkerPool.runAll(processTasks);
+
+        int count = 0;
+        for (int camera = 0; camera < ios.length; camera++) {
+            VisionPoseFilter filter = filters[camera];
+            filter.log();
+            ensureCapacity(count + filter.getCount());
+            for (int frame = 0; frame < filter.getCount(); frame++) {
+                System.arraycopy(filter.getStdDevs(frame), 0, stdDevs[count], 0, 3);
+                if (!gate.check(camera, filter.getPose(frame), filter.getTimestamp(frame), stdDevs[count])) {
+                    continue;
+                }
+                // The estimator's odometry std devs are fixed, trusting vision more
+                // has the same effect as trusting odometry less.
+                poses[count] = filter.getPose(frame);
+                timestamps[count] = filter.getTimestamp(frame);
+                for (int i = 0; i < 3; i++) {
+                    stdDevs[count][i] /= scale;
+                }
+                count++;
+            }
+        }
+        if (count > 0) {
+            poseEstimator.addVisionMeasurements(poses, timestamps, stdDevs, count);
+        }
+    }
+
+    /** Grows the measurement arrays, e.g. when a camera sends several frames a loop. */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= poses.length) {
+            return;
+        }
+        int length = Math.max(capacity, 2 * poses.length);
+        poses = Arrays.copyOf(poses, length);
+        timestamps = Arrays.copyOf(timestamps, length);
+        int oldLength = stdDevs.length;
+        stdDevs = Arrays.copyOf(stdDevs, length);
+        for (int i = oldLength; i < length; i++) {
+            stdDevs[i] = new double[3];
+        }
     }
 }
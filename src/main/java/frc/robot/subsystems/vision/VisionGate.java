@@ -0,0 +1,243 @@
+package frc.robot.subsystems.vision;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.Arrays;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import frc.robot.subsystems.base.PoseHistory;
+
+/**
+ * Rejects vision measurements that disagree with the pose estimate by more than
+ * their uncertainty allows, so a bad tag solve can't yank the pose.
+ * <p>
+ * Neither pose estimator exposes its covariance, so one is kept here: each
+ * axis' variance grows with the distance driven (faster after a collision, see
+ * the odometry std dev scale), and shrinks, as a Kalman filter's would, with
+ * each measurement used. A measurement's innovation (how far it is from the
+ * estimate when the image was taken) is compared with that variance plus the
+ * measurement's, giving its squared Mahalanobis distance. Only the axes the
+ * measurement actually has are counted (MegaTag2's heading is not measured,
+ * see {@link #UNMEASURED_STD_DEV}), so for a consistent measurement it is
+ * chi-squared with that many degrees of freedom, and:
+ * </p>
+ * <ul>
+ * <li>Up to
+ * {@link frc.robot.constants.AbstractConstants#getVisionGateAcceptThreshold(int)}
+ * it is used as is.</li>
+ * <li>Up to
+ * {@link frc.robot.constants.AbstractConstants#getVisionGateRejectThreshold(int)}
+ * its std devs are raised until it would have been accepted.</li>
+ * <li>Further away it is rejected.</li>
+ * </ul>
+ * <p>
+ * Each camera's std devs are also scaled online, so that its accepted
+ * measurements average the distance expected of them: the chi-squared mean
+ * below the accept threshold, as the further ones are left out. A camera whose
+ * std devs are too optimistic is trusted less over time, and the other way
+ * round.
+ * </p>
+ * <p>
+ * If the estimate itself is wrong (e.g. after an impact that wasn't detected),
+ * every camera would be rejected forever, so after
+ * {@link frc.robot.constants.AbstractConstants#getVisionGateMaxConsecutiveRejections()}
+ * rejections in a row the estimate's variance is reset and the next
+ * measurement is accepted.
+ * </p>
+ */
+class VisionGate {
+
+    // ========================= Class Level ===================================
+
+    /** Std devs from this up mean the axis is not measured, e.g. 9999999. */
+    private static final double UNMEASURED_STD_DEV = 1e3;
+    private static final double INITIAL_VARIANCE = 1e6; // Pose unknown until vision sees it.
+    private static final double MIN_STD_DEV_SCALE = 0.5;
+    private static final double MAX_STD_DEV_SCALE = 4;
+    private static final double MIN_VARIANCE = 1e-9; // Avoids dividing by 0.
+
+    // ========================= Object Level ==================================
+
+    private final PoseHistory poseHistory;
+    private final String[] cameraNames;
+    private final double[] variances = { INITIAL_VARIANCE, INITIAL_VARIANCE, INITIAL_VARIANCE };
+    private final double[] estimatedPose = new double[3];
+    private final double[] innovation = new double[3];
+    private int consecutiveRejections;
+
+    // Indexed by degrees of freedom, 1 to 3.
+    private final double[] acceptThresholds = new double[4];
+    private final double[] rejectThresholds = new double[4];
+    private final double[] expectedAcceptedDistances = new double[4];
+
+    // Per camera.
+    private final double[] stdDevScales;
+    private final double[] acceptanceRates;
+    private final int[] acceptedCounts, downWeightedCounts, rejectedCounts;
+
+    /**
+     * @param poseHistory The estimate when each image was taken.
+     * @param cameraNames For logging, in the order of the camera indexes.
+     */
+    VisionGate(PoseHistory poseHistory, String... cameraNames) {
+        this.poseHistory = poseHistory;
+        this.cameraNames = cameraNames;
+        int count = cameraNames.length;
+        stdDevScales = new double[count];
+        Arrays.fill(stdDevScales, 1);
+        acceptanceRates = new double[count];
+        Arrays.fill(acceptanceRates, 1);
+        acceptedCounts = new int[count];
+        downWeightedCounts = new int[count];
+        rejectedCounts = new int[count];
+        for (int degreesOfFreedom = 1; degreesOfFreedom <= 3; degreesOfFreedom++) {
+            acceptThresholds[degreesOfFreedom] = CONSTANTS.getVisionGateAcceptThreshold(degreesOfFreedom);
+            rejectThresholds[degreesOfFreedom] = CONSTANTS.getVisionGateRejectThreshold(degreesOfFreedom);
+            expectedAcceptedDistances[degreesOfFreedom] = getTruncatedChiSquaredMean(degreesOfFreedom,
+                    acceptThresholds[degreesOfFreedom]);
+        }
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Grows the estimate's variance by this loop's driving. Called once per
+     * loop, before {@link #check}.
+     *
+     * @param odometryStdDevScale How many times more uncertain the odometry is
+     *                            than usual, e.g. after a collision.
+     */
+    void predict(double odometryStdDevScale) {
+        double distance = poseHistory.getLatestSpeed() / CONSTANTS.getLoopFrequency();
+        double scale = odometryStdDevScale * odometryStdDevScale;
+        variances[0] += CONSTANTS.getOdometryLinearVariancePerMeter() * distance * scale;
+        variances[1] += CONSTANTS.getOdometryLinearVariancePerMeter() * distance * scale;
+        variances[2] += CONSTANTS.getOdometryAngularVariancePerMeter() * distance * scale;
+        Logger.recordOutput("Vision/Gate/EstimateStdDevs",
+                new double[] { Math.sqrt(variances[0]), Math.sqrt(variances[1]), Math.sqrt(variances[2]) });
+    }
+
+    /**
+     * Gates a measurement, and scales its std devs by the camera's learned scale
+     * (and more, if it is down-weighted).
+     *
+     * @param camera    Index of the camera that took it.
+     * @param timestamp When the image was taken, in Seconds.
+     * @param stdDevs   X & Y in Meters, rotation in Radians, changed in place.
+     * @return {@code false} if the measurement must not be used.
+     */
+    boolean check(int camera, Pose2d pose, double timestamp, double[] stdDevs) {
+        for (int i = 0; i < 3; i++) {
+            stdDevs[i] *= stdDevScales[camera];
+        }
+        if (!poseHistory.getPoseAt(timestamp, estimatedPose)) {
+            return true; // Nothing to compare with yet.
+        }
+        innovation[0] = pose.getX() - estimatedPose[0];
+        innovation[1] = pose.getY() - estimatedPose[1];
+        innovation[2] = MathUtil.angleModulus(pose.getRotation().getRadians() - estimatedPose[2]);
+        double distanceSquared = 0;
+        int degreesOfFreedom = 0;
+        for (int i = 0; i < 3; i++) {
+            if (stdDevs[i] >= UNMEASURED_STD_DEV * stdDevScales[camera]) {
+                continue;
+            }
+            degreesOfFreedom++;
+            distanceSquared += innovation[i] * innovation[i]
+                    / Math.max(variances[i] + stdDevs[i] * stdDevs[i], MIN_VARIANCE);
+        }
+        if (degreesOfFreedom == 0) {
+            return true; // Nothing to compare.
+        }
+
+        boolean isAccepted;
+        double rate = CONSTANTS.getVisionStdDevAdaptationRate();
+        String prefix = "Vision/" + cameraNames[camera] + "/Gate/";
+        if (distanceSquared <= acceptThresholds[degreesOfFreedom]) {
+            acceptedCounts[camera]++;
+            isAccepted = true;
+            // Only accepted measurements tune the camera's std devs, so they are
+            // compared with the mean of the accepted part of the distribution.
+            stdDevScales[camera] = MathUtil.clamp(stdDevScales[camera] * Math.sqrt(
+                    1 + rate * (distanceSquared / expectedAcceptedDistances[degreesOfFreedom] - 1)),
+                    MIN_STD_DEV_SCALE, MAX_STD_DEV_SCALE);
+        } else if (distanceSquared <= rejectThresholds[degreesOfFreedom]) {
+            downWeightedCounts[camera]++;
+            isAccepted = true;
+            double inflation = Math.sqrt(distanceSquared / acceptThresholds[degreesOfFreedom]);
+            for (int i = 0; i < 3; i++) {
+                stdDevs[i] *= inflation;
+            }
+        } else {
+            rejectedCounts[camera]++;
+            isAccepted = false;
+        }
+        acceptanceRates[camera] += rate * ((isAccepted ? 1 : 0) - acceptanceRates[camera]);
+
+        if (isAccepted) {
+            consecutiveRejections = 0;
+            // Scalar Kalman update of each axis.
+            for (int i = 0; i < 3; i++) {
+                double measurementVariance = stdDevs[i] * stdDevs[i];
+                variances[i] = variances[i] * measurementVariance
+                        / Math.max(variances[i] + measurementVariance, MIN_VARIANCE);
+            }
+        } else if (++consecutiveRejections >= CONSTANTS.getVisionGateMaxConsecutiveRejections()) {
+            consecutiveRejections = 0;
+            Arrays.fill(variances, INITIAL_VARIANCE);
+        }
+
+        Logger.recordOutput(prefix + "MahalanobisDistanceSquared", distanceSquared);
+        Logger.recordOutput(prefix + "DegreesOfFreedom", degreesOfFreedom);
+        Logger.recordOutput(prefix + "IsAccepted", isAccepted);
+        Logger.recordOutput(prefix + "AcceptanceRate", acceptanceRates[camera]);
+        Logger.recordOutput(prefix + "StdDevScale", stdDevScales[camera]);
+        Logger.recordOutput(prefix + "Accepted", acceptedCounts[camera]);
+        Logger.recordOutput(prefix + "DownWeighted", downWeightedCounts[camera]);
+        Logger.recordOutput(prefix + "Rejected", rejectedCounts[camera]);
+        return isAccepted;
+    }
+
+    // ========================= Helper Methods ================================
+
+    /**
+     * @return The mean of a chi-squared distribution below a threshold, i.e. the
+     *         expected squared distance of a consistent measurement that is
+     *         accepted.
+     */
+    private static double getTruncatedChiSquaredMean(int degreesOfFreedom, double threshold) {
+        // E[X; X <= t] = k * F(k + 2, t), with
+        // F(k + 2, t) = F(k, t) - (t / 2)^(k / 2) * e^(-t / 2) / Gamma(k / 2 + 1).
+        double halfThreshold = threshold / 2;
+        double gamma;
+        double cdf;
+        switch (degreesOfFreedom) {
+            case 1:
+                gamma = Math.sqrt(Math.PI) / 2;
+                cdf = erf(Math.sqrt(halfThreshold));
+                break;
+            case 2:
+                gamma = 1;
+                cdf = 1 - Math.exp(-halfThreshold);
+                break;
+            default:
+                gamma = 3 * Math.sqrt(Math.PI) / 4;
+                cdf = erf(Math.sqrt(halfThreshold))
+                        - Math.sqrt(2 * threshold / Math.PI) * Math.exp(-halfThreshold);
+                break;
+        }
+        double tail = Math.pow(halfThreshold, degreesOfFreedom / 2.0) * Math.exp(-halfThreshold) / gamma;
+        return degreesOfFreedom * (1 - tail / cdf);
+    }
+
+    /** Abramowitz & Stegun 7.1.26, accurate to 1.5e-7. */
+    private static double erf(double x) {
+        double t = 1 / (1 + 0.3275911 * Math.abs(x));
+        double y = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+                + t * (-1.453152027 + t * 1.061405429)))) * Math.exp(-x * x);
+        return Math.copySign(y, x);
+    }
+}
@@ -1,9 +1,53 @@
 package frc.robot.subsystems.vision;
 
-import frc.robot.subsystems.vision.Vision.VisionInputs;
+import org.littletonrobotics.junction.AutoLog;
 
+/**
+ * A camera's raw data. Everything made from it (poses, std devs, which frames
+ * are used) is done by {@link VisionPoseFilter} from these logged inputs, so a
+ * replay with a changed filter does exactly what the new filter would have.
+ */
 public interface VisionIo {
-    public void updateInputs(VisionInputs inputs);
+
+    /**
+     * Frames received since the last loop, oldest first. Each is a Limelight
+     * botpose array: [x, y, z, roll, pitch, yaw, latency, tag count, tag span,
+     * average tag distance, average tag area], then [id, tx, ty, area, distance
+     * to camera, distance to robot, ambiguity] for each fiducial. The arrays are
+     * logged one after another, split by their lengths.
+     */
+    @AutoLog
+    public static class VisionIoInputs {
+        // MegaTag1, solved from the tags alone.
+        public double[] botPoses = new double[0];
+        public int[] botPoseLengths = new int[0];
+        /** When each frame was received, in Seconds (NT server time). */
+        public double[] botPoseTimestamps = new double[0];
+
+        // MegaTag2, solved with the robot's heading.
+        public double[] botPosesMegaTag2 = new double[0];
+        public int[] botPoseMegaTag2Lengths = new int[0];
+        /** When each frame was received, in Seconds (NT server time). */
+        public double[] botPoseMegaTag2Timestamps = new double[0];
+
+        /** Counts up once per frame the camera processes. */
+        public double heartbeat;
+        /** Latest frame's, in Milliseconds. */
+        public double pipelineLatency;
+        /** Latest frame's, in Milliseconds. */
+        public double captureLatency;
+    }
+
+    public void updateInputs(VisionIoInputs inputs);
+
+    /**
+     * Gives MegaTag2 the robot's heading, for the next frames.
+     *
+     * @param yaw     Field relative, blue alliance, in Degrees.
+     * @param yawRate Degrees per Second.
+     */
+    public default void setRobotOrientation(double yaw, double yawRate) {
+    }
 
     public String name();
 }
@@ -14,7 +14,6 @@ import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.apriltag.AprilTagFields;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Transform3d;
-import frc.robot.subsystems.vision.Vision.VisionInputs;
 
 public class VisionIoPhoton implements VisionIo {
     private final AprilTagFieldLayout aprilTagFieldLayout;
@@ -41,10 +40,18 @@ public class VisionIoPhoton implements VisionIo {
         return this.camera.getName();
     }
 
-    public void updateInputs(VisionInputs inputs) {
-        inputs.havePose = false;
-        inputs.pose = new Pose2d();
-        inputs.timestamp = 0;
+    /**
+     * Photon solves the pose on its own, so the filtering done here (ambiguity &
+     * distance) is not replayable. The pose is given as a Limelight botpose, as
+     * both MegaTag1's and MegaTag2's, so it gets the same std devs.
+     */
+    public void updateInputs(VisionIoInputs inputs) {
+        inputs.botPoses = new double[0];
+        inputs.botPoseLengths = new int[0];
+        inputs.botPoseTimestamps = new double[0];
+        inputs.botPosesMegaTag2 = inputs.botPoses;
+        inputs.botPoseMegaTag2Lengths = inputs.botPoseLengths;
+        inputs.botPoseMegaTag2Timestamps = inputs.botPoseTimestamps;
 
         Optional<EstimatedRobotPose> optionalPoseEstimate = poseEstimator.update();
         if (!optionalPoseEstimate.isPresent()) {
@@ -75,13 +82,14 @@ public class VisionIoPhoton implements VisionIo {
         if (distanceToTarget > MAX_DISTANCE) {
             return;
         }
-        // This strategy is from 2023: trust more distant targets less.
-        // (maybe this should be a function of distance instead of the distance?)
-        double[] stdevs = { distanceToTarget, distanceToTarget, distanceToTarget };
-
-        inputs.havePose = true;
-        inputs.pose = poseEstimate.estimatedPose.toPose2d();
-        inputs.estimateStdDevs = stdevs;
-        inputs.timestamp = poseEstimate.timestampSeconds;
+        // Already the time the image was taken, so no latency.
+        Pose2d pose = poseEstimate.estimatedPose.toPose2d();
+        inputs.botPoses = new double[] { pose.getX(), pose.getY(), 0, 0, 0, pose.getRotation().getDegrees(), 0,
+                poseEstimate.targetsUsed.size(), 0, distanceToTarget, target.getArea() };
+        inputs.botPoseLengths = new int[] { inputs.botPoses.length };
+        inputs.botPoseTimestamps = new double[] { poseEstimate.timestampSeconds };
+        inputs.botPosesMegaTag2 = inputs.botPoses;
+        inputs.botPoseMegaTag2Lengths = inputs.botPoseLengths;
+        inputs.botPoseMegaTag2Timestamps = inputs.botPoseTimestamps;
     }
 }
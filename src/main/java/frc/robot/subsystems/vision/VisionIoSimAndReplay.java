@@ -1,13 +1,21 @@
 package frc.robot.subsystems.vision;
 
-import frc.robot.subsystems.vision.Vision.VisionInputs;
-
 public class VisionIoSimAndReplay implements VisionIo {
-    public void updateInputs(VisionInputs inputs) {
+    private final String cameraName;
+
+    /**
+     * @param cameraName The same as the real camera's, so a replay reads its
+     *                   logged inputs.
+     */
+    public VisionIoSimAndReplay(String cameraName) {
+        this.cameraName = cameraName;
+    }
+
+    public void updateInputs(VisionIoInputs inputs) {
         // Don't need to do anything here.
     }
 
     public String name() {
-        return "sim";
+        return cameraName;
     }
 }
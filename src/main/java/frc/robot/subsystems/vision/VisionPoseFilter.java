@@ -0,0 +1,284 @@
+package frc.robot.subsystems.vision;
+
+import static edu.wpi.first.units.Units.MetersPerSecond;
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.subsystems.base.PoseHistory;
+import frc.robot.subsystems.vision.VisionIo.VisionIoInputs;
+
+/**
+ * Turns a camera's raw frames into pose measurements: picks MegaTag1 or
+ * MegaTag2 (see {@link frc.robot.constants.AbstractConstants#useMegaTag2()}),
+ * drops implausible poses, and gives each a std dev.
+ * <p>
+ * Only uses the logged {@link VisionIoInputs} and the pose history, so log
+ * replay runs it again, with any changes made to it.
+ * </p>
+ * <p>
+ * {@link #process} may run on a {@link frc.robot.util.WorkerPool WorkerPool}
+ * thread, everything else runs on the main thread.
+ * </p>
+ * <p>
+ * MegaTag2 is given the robot's heading every loop, so it only solves for the
+ * position, which is far less noisy with a single or distant tag. Its heading
+ * is the one it was given, so it isn't used.
+ * </p>
+ */
+class VisionPoseFilter {
+
+    // ========================= Class Level ===================================
+
+    private static final double LINEAR_STD_DEV_RATIO = 0.5;
+    private static final double ROTATION_STD_DEV = 1;
+    // MegaTag2, Meters per Meter² of average tag distance.
+    private static final double MEGA_TAG_2_STD_DEV_RATIO = 0.05;
+    private static final double MEGA_TAG_2_MIN_STD_DEV = 0.02;
+    private static final double MEGA_TAG_2_ROTATION_STD_DEV = 9999999;
+    // MegaTag2's heading is from before the image, spinning faster is unreliable.
+    private static final double MEGA_TAG_2_MAX_YAW_RATE = 720; // Degrees per Second.
+
+    private static final double FIELD_X_SIZE = 16.54;
+    private static final double FIELD_Y_SIZE = 8.21;
+    private static final double MAX_SPEED_FACTOR = 1.50;
+
+    // [x, y, z, roll, pitch, yaw, latency, tag count, tag span, average tag
+    // distance, average tag area], then FIDUCIAL_LENGTH per fiducial.
+    private static final int BOT_POSE_LENGTH = 11;
+    private static final int FIDUCIAL_LENGTH = 7;
+
+    // ========================= Object Level ==================================
+
+    private final String name;
+    private final PoseHistory poseHistory;
+    private final BooleanSupplier isRecoveringFromCollision;
+    private Pose2d lastPose;
+    private double lastPoseTime;
+    private final double[] estimatedPose = new double[3];
+    private final double[] velocity = new double[3];
+    private double yaw, yawRate; // Degrees, Degrees per Second.
+    private double speed; // Meters per Second.
+    private boolean isRecovering;
+
+    // This loop's poses, and the frames they are from.
+    private boolean isMegaTag2;
+    private double[] values = new double[0];
+    private int[] lengths = new int[0];
+    private int count;
+    private Pose2d[] poses = new Pose2d[0];
+    private double[] timestamps = new double[0];
+    private double[][] stdDevs = new double[0][];
+    private int[] tagCounts = new int[0];
+    private double[] tagDistances = new double[0];
+
+    /**
+     * @param name                      For logging.
+     * @param poseHistory               The robot's heading & speed, for MegaTag2
+     *                                  and the std devs.
+     * @param isRecoveringFromCollision While {@code true}, poses further than the
+     *                                  robot could have driven are accepted, as
+     *                                  the odometry was knocked off.
+     */
+    VisionPoseFilter(String name, PoseHistory poseHistory, BooleanSupplier isRecoveringFromCollision) {
+        this.name = name;
+        this.poseHistory = poseHistory;
+        this.isRecoveringFromCollision = isRecoveringFromCollision;
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Reads what {@link #process} needs from the rest of the robot, and updates
+     * the heading to give MegaTag2, from the latest pose. Called once per loop,
+     * on the main thread, before {@link #process}.
+     *
+     * @return {@code false} if there is no pose yet.
+     */
+    boolean prepare() {
+        speed = poseHistory.getLatestSpeed();
+        isRecovering = isRecoveringFromCollision.getAsBoolean();
+        yawRate = 0;
+        if (!poseHistory.getPoseAt(poseHistory.getLatestTimestamp(), estimatedPose)) {
+            return false;
+        }
+        if (poseHistory.getVelocityAt(poseHistory.getLatestTimestamp(), velocity)) {
+            yawRate = Math.toDegrees(velocity[2]);
+        }
+        yaw = Math.toDegrees(estimatedPose[2]);
+        return true;
+    }
+
+    /**
+     * @return Value in Degrees, field relative, blue alliance.
+     */
+    double getYaw() {
+        return yaw;
+    }
+
+    /**
+     * @return Value in Degrees per Second.
+     */
+    double getYawRate() {
+        return yawRate;
+    }
+
+    /**
+     * Makes this loop's poses from the camera's frames. Doesn't log, so it can
+     * run on a worker thread, see {@link #log()}.
+     */
+    void process(VisionIoInputs inputs) {
+        isMegaTag2 = CONSTANTS.useMegaTag2();
+        values = isMegaTag2 ? inputs.botPosesMegaTag2 : inputs.botPoses;
+        lengths = isMegaTag2 ? inputs.botPoseMegaTag2Lengths : inputs.botPoseLengths;
+        double[] received = isMegaTag2 ? inputs.botPoseMegaTag2Timestamps : inputs.botPoseTimestamps;
+        ensureCapacity(lengths.length);
+
+        count = 0;
+        for (int frame = 0, offset = 0; frame < lengths.length; offset += lengths[frame], frame++) {
+            if (lengths[frame] < BOT_POSE_LENGTH || (values[offset] == 0 && values[offset + 1] == 0)) {
+                continue;
+            }
+            int tagCount = (int) values[offset + 7];
+            double tagDistance = values[offset + 9];
+            if (isMegaTag2 && (tagCount == 0 || Math.abs(yawRate) > MEGA_TAG_2_MAX_YAW_RATE)) {
+                continue;
+            }
+            // https://docs.limelightvision.io/docs/docs-limelight/pipeline-apriltag/apriltag-robot-localization#using-wpilibs-pose-estimator
+            Pose2d pose = new Pose2d(values[offset], values[offset + 1],
+                    Rotation2d.fromDegrees(values[offset + 5]));
+            // Received, less the pipeline & capture latency.
+            double timestamp = received[frame] - values[offset + 6] / 1000.0;
+            if (!isPlausiblePose(pose, timestamp)) {
+                continue;
+            }
+            lastPose = pose;
+            lastPoseTime = timestamp;
+
+            poses[count] = pose;
+            timestamps[count] = timestamp;
+            tagCounts[count] = tagCount;
+            tagDistances[count] = tagDistance;
+            if (isMegaTag2) {
+                // The solve doesn't degrade with speed, only with distance & fewer tags.
+                double translationStdDev = Math.max(MEGA_TAG_2_MIN_STD_DEV,
+                        MEGA_TAG_2_STD_DEV_RATIO * tagDistance * tagDistance / tagCount);
+                stdDevs[count][0] = translationStdDev;
+                stdDevs[count][1] = translationStdDev;
+                stdDevs[count][2] = MEGA_TAG_2_ROTATION_STD_DEV;
+            } else {
+                double translationStdDev = (tagDistance * LINEAR_STD_DEV_RATIO / Math.max(1, tagCount))
+                        / Math.max(.5, speed) / 2;
+                stdDevs[count][0] = translationStdDev;
+                stdDevs[count][1] = translationStdDev;
+                stdDevs[count][2] = ROTATION_STD_DEV;
+            }
+            count++;
+        }
+    }
+
+    /**
+     * @return How many poses were made this loop.
+     */
+    int getCount() {
+        return count;
+    }
+
+    Pose2d getPose(int index) {
+        return poses[index];
+    }
+
+    /**
+     * @return When the image was taken, in Seconds.
+     */
+    double getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * @return X & Y in Meters, rotation in Radians. Reused each loop.
+     */
+    double[] getStdDevs(int index) {
+        return stdDevs[index];
+    }
+
+    /**
+     * Logs the poses made, and the fiducials seen in every frame. Called on the
+     * main thread, after {@link #process}.
+     */
+    void log() {
+        int fiducialCount = 0;
+        for (int length : lengths) {
+            fiducialCount += Math.max(length - BOT_POSE_LENGTH, 0) / FIDUCIAL_LENGTH;
+        }
+        int[] fiducialIds = new int[fiducialCount];
+        double[] fiducialDistances = new double[fiducialCount];
+        int fiducial = 0;
+        for (int frame = 0, offset = 0; frame < lengths.length; offset += lengths[frame], frame++) {
+            for (int start = offset + BOT_POSE_LENGTH; start + FIDUCIAL_LENGTH <= offset + lengths[frame];
+                    start += FIDUCIAL_LENGTH) {
+                fiducialIds[fiducial] = (int) values[start];
+                fiducialDistances[fiducial] = values[start + 5]; // To the robot.
+                fiducial++;
+            }
+        }
+        double[] flatStdDevs = new double[3 * count];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(stdDevs[i], 0, flatStdDevs, 3 * i, 3);
+        }
+
+        String prefix = "Vision/" + name + "/Filter/";
+        Logger.recordOutput(prefix + "IsMegaTag2", isMegaTag2);
+        Logger.recordOutput(prefix + "Poses", Arrays.copyOf(poses, count));
+        Logger.recordOutput(prefix + "Timestamps", Arrays.copyOf(timestamps, count));
+        Logger.recordOutput(prefix + "StdDevs", flatStdDevs);
+        Logger.recordOutput(prefix + "TagCounts", Arrays.copyOf(tagCounts, count));
+        Logger.recordOutput(prefix + "AverageTagDistances", Arrays.copyOf(tagDistances, count));
+        Logger.recordOutput(prefix + "FiducialIds", fiducialIds);
+        Logger.recordOutput(prefix + "FiducialDistances", fiducialDistances);
+    }
+
+    // ========================= Helper Methods ================================
+
+    private boolean isPlausiblePose(Pose2d pose, double timestamp) {
+        if (pose.getX() < 0 || pose.getX() > FIELD_X_SIZE) {
+            return false;
+        }
+        if (pose.getY() < 0 || pose.getY() > FIELD_Y_SIZE) {
+            return false;
+        }
+        // Compared with this camera's last pose, not with the estimate, whose error
+        // is not limited by how fast the robot drives (e.g. before the first pose).
+        // Agreement with the estimate is checked by the VisionGate.
+        if (lastPose != null && !isRecovering) {
+            double distance = pose.getTranslation().getDistance(lastPose.getTranslation());
+            double maxDistance = CONSTANTS.getMaxLinearSpeed().in(MetersPerSecond) * MAX_SPEED_FACTOR
+                    * (timestamp - lastPoseTime);
+            if (distance > maxDistance) {
+                // Not possible for the robot to have moved that far that fast
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= poses.length) {
+            return;
+        }
+        int oldLength = stdDevs.length;
+        poses = Arrays.copyOf(poses, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        stdDevs = Arrays.copyOf(stdDevs, capacity);
+        for (int i = oldLength; i < capacity; i++) {
+            stdDevs[i] = new double[3];
+        }
+        tagCounts = Arrays.copyOf(tagCounts, capacity);
+        tagDistances = Arrays.copyOf(tagDistances, capacity);
+    }
+}
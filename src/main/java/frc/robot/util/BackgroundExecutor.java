@@ -0,0 +1,70 @@
+package frc.robot.util;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Runs slow work (parsing, diagnostics, writing files) on a single low
+ * priority thread, so it can never delay the main robot loop.
+ * <p>
+ * The queue is bounded: when it is full new tasks are dropped and counted,
+ * instead of piling up. Results must be handed back to the main loop through a
+ * {@link Snapshot}, and should be logged as inputs there so log replay still
+ * sees them.
+ * </p>
+ */
+public class BackgroundExecutor {
+
+    // ========================= Class Level ===================================
+
+    private static volatile long droppedCount;
+    private static volatile long failedCount;
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(CONSTANTS.getBackgroundQueueSize()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "Background");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            },
+            (runnable, rejectedBy) -> droppedCount++);
+
+    /** Makes this class non-instantiable. */
+    private BackgroundExecutor() {
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Queues a task, unless the queue is full.
+     *
+     * @return {@code false} if the task was dropped.
+     */
+    public static boolean submit(Runnable task) {
+        // Rejected tasks are counted by the executor, on this thread.
+        long dropped = droppedCount;
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                failedCount++;
+            }
+        });
+        return droppedCount == dropped;
+    }
+
+    /**
+     * Logs how busy the background thread is. Called from the main loop.
+     */
+    public static void logStatus() {
+        Logger.recordOutput("Threads/Background/Queued", executor.getQueue().size());
+        Logger.recordOutput("Threads/Background/Dropped", droppedCount);
+        Logger.recordOutput("Threads/Background/Failed", failedCount);
+    }
+}
@@ -0,0 +1,209 @@
+package frc.robot.util;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.hardware.TalonFX;
+import com.revrobotics.CANSparkBase.IdleMode;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Applies hardware configurations in parallel while the robot boots.
+ * <p>
+ * Device constructors {@link #submit} their blocking configuration calls
+ * instead of running them inline. Each CAN bus gets its own small pool of
+ * threads, so the CANivore and the roboRIO bus are configured at the same time.
+ * Every step is retried and then verified by reading the configuration back
+ * from the device. {@link #awaitAll()} must be called once all devices have
+ * been created.
+ * </p>
+ */
+public class DeviceConfigurator {
+
+    // ========================= Class Level ===================================
+
+    /** A blocking configuration (or verification) step for one device. */
+    @FunctionalInterface
+    public interface ConfigStep {
+        /**
+         * @return {@code true} if the step succeeded.
+         */
+        public boolean run();
+    }
+
+    private static class Result {
+        final String bus, device;
+        volatile Future<?> future;
+        volatile double seconds;
+        volatile int attempts;
+        volatile boolean verified;
+
+        Result(String bus, String device) {
+            this.bus = bus;
+            this.device = device;
+        }
+    }
+
+    private static final Map<String, ExecutorService> executors = new HashMap<>();
+    private static final List<Result> results = new ArrayList<>();
+    private static long bootStartNanos = System.nanoTime();
+
+    /** Makes this class non-instantiable. */
+    private DeviceConfigurator() {
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Queues a device configuration on the given CAN bus.
+     *
+     * @param bus    The CAN bus the device is on (the Canivore Id, or the
+     *               roboRIO's CAN Bus Id).
+     * @param device Name used when logging the configuration time.
+     * @param apply  Applies the configuration, retried until it can be
+     *               verified or we run out of attempts.
+     * @param verify Reads the configuration back and compares it to what was
+     *               applied.
+     */
+    public static synchronized void submit(String bus, String device, ConfigStep apply, ConfigStep verify) {
+
+        if (results.isEmpty()) {
+            bootStartNanos = System.nanoTime();
+        }
+
+        ExecutorService executor = executors.computeIfAbsent(bus, DeviceConfigurator::createExecutor);
+        Result result = new Result(bus, device);
+        results.add(result);
+        result.future = executor.submit(() -> {
+            long start = System.nanoTime();
+            boolean verified = false;
+            while (!verified && result.attempts < CONSTANTS.getDeviceConfigAttempts()) {
+                result.attempts++;
+                try {
+                    verified = apply.run() && verify.run();
+                } catch (RuntimeException e) {
+                    verified = false;
+                }
+            }
+            result.seconds = (System.nanoTime() - start) / 1e9;
+            result.verified = verified;
+        });
+    }
+
+    /**
+     * Blocks until every submitted configuration has finished (or the
+     * configuration timeout has passed), then logs the time spent on each device.
+     */
+    public static synchronized void awaitAll() {
+
+        long deadline = System.nanoTime() + (long) (CONSTANTS.getDeviceConfigTimeoutSeconds() * 1e9);
+
+        for (Result result : results) {
+            try {
+                result.future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                result.future.cancel(true);
+            } catch (Exception e) {
+                // Failure is reported below, as an unverified device.
+            }
+
+            String key = "Boot/DeviceConfig/" + result.device;
+            Logger.recordOutput(key + "/Bus", result.bus);
+            Logger.recordOutput(key + "/Seconds", result.seconds);
+            Logger.recordOutput(key + "/Attempts", result.attempts);
+            Logger.recordOutput(key + "/Verified", result.verified);
+
+            if (!result.verified) {
+                DriverStation.reportWarning("Unable to verify configuration of " + result.device + " on the "
+                        + result.bus + " CAN Bus!", false);
+            }
+        }
+
+        double totalSeconds = (System.nanoTime() - bootStartNanos) / 1e9;
+        Logger.recordOutput("Boot/DeviceConfig/TotalSeconds", totalSeconds);
+
+        for (ExecutorService executor : executors.values()) {
+            executor.shutdownNow();
+        }
+        executors.clear();
+        results.clear();
+    }
+
+    // ========================= Helper Methods ================================
+
+    public static boolean isOk(StatusCode statusCode) {
+        return statusCode != null && statusCode.isOK();
+    }
+
+    public static boolean isOk(REVLibError error) {
+        return error == REVLibError.kOk;
+    }
+
+    /**
+     * Compares a value read back from a device, which may have been stored with
+     * less precision than it was sent with.
+     */
+    public static boolean isClose(double actual, double expected) {
+        return Math.abs(actual - expected) <= 1e-4 * Math.max(1e-3, Math.abs(expected));
+    }
+
+    /**
+     * Reads back the configuration of a TalonFX and compares the fields we set.
+     */
+    public static boolean verifyTalonFx(TalonFX motor, TalonFXConfiguration expected) {
+        TalonFXConfiguration actual = new TalonFXConfiguration();
+        if (!isOk(motor.getConfigurator().refresh(actual))) {
+            return false;
+        }
+        return actual.CurrentLimits.SupplyCurrentLimitEnable == expected.CurrentLimits.SupplyCurrentLimitEnable
+                && Math.abs(actual.CurrentLimits.SupplyCurrentLimit - expected.CurrentLimits.SupplyCurrentLimit) < 0.5
+                && actual.MotorOutput.Inverted == expected.MotorOutput.Inverted
+                && actual.MotorOutput.NeutralMode == expected.MotorOutput.NeutralMode;
+    }
+
+    /**
+     * Applies the settings shared by all of our SparkMax motor controllers
+     * (brake mode and NEO 550 current limits).
+     */
+    public static boolean applySparkMaxDefaults(CANSparkMax motor, boolean inverted) {
+        motor.setInverted(inverted);
+        return isOk(motor.getLastError())
+                && isOk(motor.setIdleMode(IdleMode.kBrake))
+                && isOk(motor.setSmartCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentLimit()))
+                && isOk(motor.setSecondaryCurrentLimit(CONSTANTS.getNeo550BrushlessCurrentSecondaryLimit()));
+    }
+
+    /**
+     * Reads back the settings applied by {@link #applySparkMaxDefaults}.
+     */
+    public static boolean verifySparkMaxDefaults(CANSparkMax motor, boolean inverted) {
+        return motor.getInverted() == inverted && motor.getIdleMode() == IdleMode.kBrake
+                && isOk(motor.getLastError());
+    }
+
+    private static ExecutorService createExecutor(String bus) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(CONSTANTS.getDeviceConfigThreadsPerBus(), runnable -> {
+            Thread thread = new Thread(runnable, "DeviceConfig-" + bus + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package frc.robot.util;
+
+/**
+ * Debounces a boolean by counting loops instead of time (compare to
+ * {@link edu.wpi.first.math.filter.Debouncer}), so log replay gets the same
+ * result as the robot did.
+ */
+public class LoopDebouncer {
+
+    // ========================= Object Level ==================================
+
+    private final int loops;
+    private int count;
+    private boolean value;
+
+    /**
+     * @param loops Number of loops in a row the input must be {@code true} before
+     *              the output turns {@code true}. The output turns
+     *              {@code false} as soon as the input does.
+     */
+    public LoopDebouncer(int loops) {
+        this.loops = loops;
+    }
+
+    // ========================= Functions =====================================
+
+    public boolean calculate(boolean input) {
+        count = input ? Math.min(count + 1, loops) : 0;
+        value = count >= loops;
+        return value;
+    }
+
+    public boolean get() {
+        return value;
+    }
+
+    public void reset() {
+        count = 0;
+        value = false;
+    }
+}
@@ -0,0 +1,149 @@
+package frc.robot.util;
+
+import static edu.wpi.first.units.Units.Celsius;
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.units.Measure;
+import edu.wpi.first.units.Temperature;
+
+/**
+ * Estimates a motor's winding temperature, which the motor's own sensor only
+ * reports after a delay, and derates the motor as it approaches its limit.
+ * <p>
+ * The winding is modeled as one thermal mass heated by I²R and cooled into the
+ * motor's case, whose temperature is the sensor's reading:
+ * {@code C * dRise/dt = I²R - Rise / Rth}. Only uses logged inputs, so it gives
+ * the same results in log replay.
+ * </p>
+ */
+public class MotorThermalModel {
+
+    // ========================= Class Level ===================================
+
+    /** Thermal properties of a type of motor. */
+    public static class Parameters {
+        public final double windingResistance, thermalResistance, thermalCapacitance;
+
+        /**
+         * @param windingResistance  Value in Ohms.
+         * @param thermalResistance  Winding to case. Value in Degrees Celsius per
+         *                           Watt.
+         * @param thermalCapacitance Winding. Value in Joules per Degree Celsius.
+         */
+        public Parameters(double windingResistance, double thermalResistance, double thermalCapacitance) {
+            this.windingResistance = windingResistance;
+            this.thermalResistance = thermalResistance;
+            this.thermalCapacitance = thermalCapacitance;
+        }
+    }
+
+    // ========================= Object Level ==================================
+
+    private final Parameters parameters;
+    private final double maxTemperature;
+    private final String logKey;
+
+    private double rise; // Winding above the sensor, Degrees Celsius.
+    private double windingTemperature;
+    private double timeToLimit = Double.POSITIVE_INFINITY;
+    private double derating = 1;
+
+    /**
+     * @param name           Used as the log key.
+     * @param maxTemperature Winding temperature at which the motor is fully
+     *                       derated.
+     */
+    public MotorThermalModel(String name, Parameters parameters, Measure<Temperature> maxTemperature) {
+        this.parameters = parameters;
+        this.maxTemperature = maxTemperature.in(Celsius);
+        logKey = name + "/Thermal";
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Estimates the current through the windings from a supply current, which is
+     * lower whenever the motor is not at full output.
+     *
+     * @param supplyCurrent Value in Amps.
+     * @param appliedVolts  Value in Volts.
+     * @param supplyVolts   Value in Volts.
+     * @return Value in Amps.
+     */
+    public static double estimateStatorCurrent(double supplyCurrent, double appliedVolts, double supplyVolts) {
+        double dutyCycle = supplyVolts > 0 ? Math.abs(appliedVolts) / supplyVolts : 1;
+        // Limited, so a small duty cycle can't blow up sensor noise.
+        return Math.abs(supplyCurrent) / MathUtil.clamp(dutyCycle, 0.2, 1);
+    }
+
+    /**
+     * Called once per loop.
+     *
+     * @param statorCurrent     Current through the windings, in Amps.
+     * @param sensorTemperature The motor's reported temperature, in Degrees
+     *                          Celsius.
+     */
+    public void update(double statorCurrent, double sensorTemperature) {
+        double dt = 1.0 / CONSTANTS.getLoopFrequency();
+        double heating = statorCurrent * statorCurrent * parameters.windingResistance;
+        rise += (heating - rise / parameters.thermalResistance) / parameters.thermalCapacitance * dt;
+        rise = Math.max(0, rise);
+
+        windingTemperature = sensorTemperature + rise;
+
+        // Time until the limit at this current: the rise approaches
+        // heating * Rth exponentially, with time constant Rth * C.
+        double steadyStateTemperature = sensorTemperature + heating * parameters.thermalResistance;
+        if (windingTemperature >= maxTemperature) {
+            timeToLimit = 0;
+        } else if (steadyStateTemperature <= maxTemperature) {
+            timeToLimit = Double.POSITIVE_INFINITY;
+        } else {
+            timeToLimit = parameters.thermalResistance * parameters.thermalCapacitance
+                    * Math.log((steadyStateTemperature - windingTemperature)
+                            / (steadyStateTemperature - maxTemperature));
+        }
+
+        // Full output up to where the motors used to be stopped, falling linearly to
+        // the minimum at the limit.
+        double derateStart = maxTemperature * CONSTANTS.SAFE_MOTOR_TEMPERATURE_BUFFER;
+        double fraction = MathUtil.clamp((windingTemperature - derateStart) / (maxTemperature - derateStart), 0, 1);
+        derating = 1 - fraction * (1 - CONSTANTS.getThermalMinDerating());
+
+        Logger.recordOutput(logKey + "/WindingTemperature", windingTemperature);
+        Logger.recordOutput(logKey + "/TimeToLimit", timeToLimit);
+        Logger.recordOutput(logKey + "/Derating", derating);
+    }
+
+    /**
+     * @return Value in Degrees Celsius.
+     */
+    public double getWindingTemperature() {
+        return windingTemperature;
+    }
+
+    /**
+     * @return Time until the winding reaches its limit at the present current,
+     *         infinite if it never will. Value in Seconds.
+     */
+    public double getTimeToLimit() {
+        return timeToLimit;
+    }
+
+    /**
+     * @return Fraction of its output the motor should be limited to.
+     */
+    public double getDerating() {
+        return derating;
+    }
+
+    /**
+     * @return {@code true} while the motor is being derated.
+     */
+    public boolean isDerating() {
+        return derating < 1;
+    }
+}
@@ -0,0 +1,73 @@
+package frc.robot.util;
+
+/**
+ * The average of the last few values, like
+ * {@link edu.wpi.first.math.filter.LinearFilter#movingAverage(int)}, but
+ * backed by a primitive ring buffer so nothing is allocated per sample.
+ */
+public class MovingAverageFilter {
+
+    // ========================= Object Level ==================================
+
+    private final double[] values;
+    private int next;
+    private int count;
+    private double sum;
+
+    /**
+     * @param taps Number of values averaged.
+     */
+    public MovingAverageFilter(int taps) {
+        if (taps <= 0) {
+            throw new RuntimeException("Number of taps must be positive");
+        }
+        values = new double[taps];
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Adds a value.
+     *
+     * @return The average including the new value.
+     */
+    public double calculate(double value) {
+        if (count == values.length) {
+            sum -= values[next];
+        } else {
+            count++;
+        }
+        values[next] = value;
+        sum += value;
+        next = (next + 1) % values.length;
+
+        // Recalculate once per pass, so rounding errors don't build up.
+        if (next == 0) {
+            sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += values[i];
+            }
+        }
+        return sum / count;
+    }
+
+    /**
+     * @return The current average, or 0 if there are no values.
+     */
+    public double get() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @return {@code true} once the filter has as many values as taps.
+     */
+    public boolean isFull() {
+        return count == values.length;
+    }
+
+    public void reset() {
+        next = 0;
+        count = 0;
+        sum = 0;
+    }
+}
@@ -0,0 +1,180 @@
+package frc.robot.util;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+
+import edu.wpi.first.wpilibj.Threads;
+import frc.robot.constants.AbstractConstants;
+
+/**
+ * Samples the odometry signals (drive & steer positions, gyro yaw) faster than
+ * the main robot loop, on a real-time priority thread.
+ * <p>
+ * IO implementations {@link #register} their signals while they are
+ * constructed, then the thread is started once all devices are configured.
+ * Samples are passed to the main loop through a lock-free {@link SampleQueue},
+ * and {@link #poll()} makes every sample taken since the last loop available
+ * to the IO implementations, which log them as inputs (so log replay sees the
+ * same samples). Motors are still only controlled from the main loop.
+ * </p>
+ */
+public class OdometryThread extends Thread {
+
+    // ========================= Class Level ===================================
+
+    /** Enough samples for several slow loops. */
+    private static final int QUEUE_CAPACITY = 64;
+
+    private static OdometryThread instance;
+
+    public static synchronized OdometryThread getInstance() {
+        if (instance == null) {
+            instance = new OdometryThread();
+        }
+        return instance;
+    }
+
+    // ========================= Object Level ==================================
+
+    private final List<BaseStatusSignal> signals = new ArrayList<>();
+    private boolean isAllOnCanivore = true;
+    private SampleQueue queue;
+    private volatile long failedCount;
+
+    // Filled by poll(), read by the IO implementations on the main thread.
+    private double[] drained;
+    private double[] timestamps = new double[0];
+    private double[][] values = new double[0][];
+    private int sampleCount;
+
+    private OdometryThread() {
+        setName("Odometry");
+        setDaemon(true);
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Adds a signal to be sampled. Must be called before the thread is started.
+     *
+     * @param signal A signal for this thread only; use {@code clone()} so the
+     *               main loop can keep refreshing its own copy.
+     * @param bus    The CAN bus the device is on.
+     * @return The index used to get the samples, see {@link #getValues(int)}.
+     */
+    public synchronized int register(BaseStatusSignal signal, String bus) {
+        if (queue != null) {
+            throw new RuntimeException("Odometry signals must be registered before the thread is started");
+        }
+        signals.add(signal);
+        isAllOnCanivore &= AbstractConstants.getCanivoreId().equals(bus);
+        return signals.size() - 1;
+    }
+
+    /**
+     * Starts sampling, if any signals were registered (there are none in
+     * simulation and log replay).
+     */
+    @Override
+    public synchronized void start() {
+        if (signals.isEmpty() || queue != null) {
+            return;
+        }
+        queue = new SampleQueue(signals.size() + 1, QUEUE_CAPACITY);
+        drained = new double[(signals.size() + 1) * QUEUE_CAPACITY];
+        timestamps = new double[QUEUE_CAPACITY];
+        values = new double[signals.size()][QUEUE_CAPACITY];
+        super.start();
+    }
+
+    @Override
+    public void run() {
+        Threads.setCurrentThreadPriority(true, CONSTANTS.getOdometryThreadPriority());
+
+        BaseStatusSignal[] signalArray = signals.toArray(new BaseStatusSignal[0]);
+        double[] record = new double[signalArray.length + 1];
+        double period = 1.0 / CONSTANTS.getOdometryFrequency();
+
+        while (true) {
+            StatusCode status;
+            if (isAllOnCanivore) {
+                // Timesynced CAN FD, wakes up as soon as all the signals arrive.
+                status = BaseStatusSignal.waitForAll(2.0 * period, signalArray);
+            } else {
+                try {
+                    Thread.sleep((long) (period * 1000.0));
+                } catch (InterruptedException e) {
+                    return;
+                }
+                status = BaseStatusSignal.refreshAll(signalArray);
+            }
+            if (!status.isOK()) {
+                failedCount++;
+                continue;
+            }
+
+            // Use the average time the signals were measured, not when they arrived.
+            double latency = 0.0;
+            for (int i = 0; i < signalArray.length; i++) {
+                latency += signalArray[i].getTimestamp().getLatency();
+                record[i + 1] = signalArray[i].getValueAsDouble();
+            }
+            record[0] = Logger.getRealTimestamp() / 1e6 - latency / signalArray.length;
+            queue.offer(record);
+        }
+    }
+
+    /**
+     * Collects the samples taken since the last call. Called once per loop, on
+     * the main thread, before the odometry IO implementations are updated.
+     */
+    public void poll() {
+        if (queue == null) {
+            sampleCount = 0;
+            return;
+        }
+        sampleCount = queue.drainTo(drained);
+        int width = queue.getRecordWidth();
+        for (int sample = 0; sample < sampleCount; sample++) {
+            timestamps[sample] = drained[sample * width];
+            for (int signal = 0; signal < values.length; signal++) {
+                values[signal][sample] = drained[sample * width + signal + 1];
+            }
+        }
+
+        Logger.recordOutput("Threads/Odometry/SamplesPerLoop", sampleCount);
+        Logger.recordOutput("Threads/Odometry/Dropped", queue.getDroppedCount());
+        Logger.recordOutput("Threads/Odometry/Failed", failedCount);
+    }
+
+    /**
+     * @return Number of samples collected by the last {@link #poll()}.
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return FPGA timestamps, in Seconds, of the samples. Only the first
+     *         {@link #getSampleCount()} are valid.
+     */
+    public double[] getTimestamps() {
+        return timestamps;
+    }
+
+    /**
+     * @param index Returned by {@link #register}.
+     * @return The raw signal values. Only the first {@link #getSampleCount()} are
+     *         valid.
+     */
+    public double[] getValues(int index) {
+        return values[index];
+    }
+}
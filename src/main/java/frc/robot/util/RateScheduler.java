@@ -0,0 +1,141 @@
+package frc.robot.util;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj.event.EventLoop;
+
+/**
+ * Runs work that does not need to happen every robot loop at a lower rate.
+ * <p>
+ * Each task declares how often it should run, which is rounded to a whole
+ * number of loops. Tasks with the same rate are spread over different loops
+ * (e.g. two 10 Hz tasks run on different loops), so every loop has about the
+ * same amount of work. Work that needs to run every loop (drive, aimer) stays
+ * in its subsystem's {@code periodic()}; anything faster than the loop belongs
+ * on the {@link OdometryThread}.
+ * </p>
+ * <p>
+ * Rates are counted in loops, not time, so log replay runs the tasks on the
+ * same loops as the robot did.
+ * </p>
+ */
+public class RateScheduler {
+
+    // ========================= Class Level ===================================
+
+    /** How far ahead the work is planned when picking a loop for a new task. */
+    private static final int PLANNING_LOOPS = 100;
+
+    private static class Task {
+        final int divisor, phase;
+        final Runnable runnable;
+
+        Task(int divisor, int phase, Runnable runnable) {
+            this.divisor = divisor;
+            this.phase = phase;
+            this.runnable = runnable;
+        }
+    }
+
+    private static class RateGroup {
+        final int divisor;
+        final String logKey;
+        final List<Task> tasks = new ArrayList<>();
+
+        RateGroup(int divisor) {
+            this.divisor = divisor;
+            logKey = "Scheduler/" + Math.round(CONSTANTS.getLoopFrequency() / divisor) + "Hz/Seconds";
+        }
+    }
+
+    private static final List<RateGroup> groups = new ArrayList<>();
+    private static final int[] plannedTasks = new int[PLANNING_LOOPS];
+    private static long loopCount;
+
+    /** Makes this class non-instantiable. */
+    private RateScheduler() {
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Adds a task that runs, on the main loop, at about the given rate.
+     *
+     * @param frequency Value in Times per Second. Rates at or above the loop rate
+     *                  run every loop.
+     */
+    public static synchronized void schedule(double frequency, Runnable task) {
+
+        int divisor = Math.max(1, (int) Math.round(CONSTANTS.getLoopFrequency() / frequency));
+
+        // Run on the loops that have the least work planned.
+        int bestPhase = 0;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int phase = 0; phase < divisor; phase++) {
+            int load = 0;
+            for (int loop = phase; loop < PLANNING_LOOPS; loop += divisor) {
+                load += plannedTasks[loop];
+            }
+            if (load < bestLoad) {
+                bestLoad = load;
+                bestPhase = phase;
+            }
+        }
+        for (int loop = bestPhase; loop < PLANNING_LOOPS; loop += divisor) {
+            plannedTasks[loop]++;
+        }
+
+        getGroup(divisor).tasks.add(new Task(divisor, bestPhase, task));
+    }
+
+    /**
+     * Creates an {@link EventLoop} for {@link edu.wpi.first.wpilibj2.command.button.Trigger
+     * Trigger}s that only need to be checked at the given rate.
+     *
+     * @param frequency Value in Times per Second.
+     */
+    public static EventLoop createEventLoop(double frequency) {
+        EventLoop eventLoop = new EventLoop();
+        schedule(frequency, eventLoop::poll);
+        return eventLoop;
+    }
+
+    /**
+     * Runs the tasks that are due this loop, and logs the time spent on each rate.
+     * Called once per loop, after the command scheduler.
+     */
+    public static void run() {
+        for (RateGroup group : groups) {
+            long start = System.nanoTime();
+            boolean hasRun = false;
+            for (Task task : group.tasks) {
+                if (loopCount % task.divisor == task.phase) {
+                    task.runnable.run();
+                    hasRun = true;
+                }
+            }
+            if (hasRun) {
+                Logger.recordOutput(group.logKey, (System.nanoTime() - start) / 1e9);
+            }
+        }
+        loopCount++;
+    }
+
+    // ========================= Helper Methods ================================
+
+    private static RateGroup getGroup(int divisor) {
+        for (RateGroup group : groups) {
+            if (group.divisor == divisor) {
+                return group;
+            }
+        }
+        RateGroup group = new RateGroup(divisor);
+        groups.add(group);
+        return group;
+    }
+}
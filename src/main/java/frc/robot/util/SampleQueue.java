@@ -0,0 +1,92 @@
+package frc.robot.util;
+
+/**
+ * A lock-free, fixed size queue of {@code double} records, for exactly one
+ * producer thread and one consumer thread.
+ * <p>
+ * Every record has the same number of fields. Nothing is allocated after
+ * construction, and neither thread ever waits on the other: when the queue is
+ * full, new records are dropped (and counted) instead of blocking the producer.
+ * </p>
+ */
+public class SampleQueue {
+
+    // ========================= Object Level ==================================
+
+    private final int recordWidth;
+    private final int capacity;
+    private final double[] buffer;
+
+    /** Number of records written. Only changed by the producer. */
+    private volatile long writeCount;
+    /** Number of records read. Only changed by the consumer. */
+    private volatile long readCount;
+    /** Number of records dropped because the queue was full. */
+    private volatile long droppedCount;
+
+    /**
+     * @param recordWidth Number of fields in each record.
+     * @param capacity    Maximum number of records waiting to be read.
+     */
+    public SampleQueue(int recordWidth, int capacity) {
+        if (recordWidth <= 0 || capacity <= 0) {
+            throw new RuntimeException("Record width and capacity must be positive");
+        }
+        this.recordWidth = recordWidth;
+        this.capacity = capacity;
+        buffer = new double[recordWidth * capacity];
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Adds a record to the queue. Must only be called from the producer thread.
+     *
+     * @param record The fields to add, only the first {@link #getRecordWidth()}
+     *               are used.
+     * @return {@code false} if the queue was full and the record was dropped.
+     */
+    public boolean offer(double[] record) {
+        long write = writeCount;
+        if (write - readCount >= capacity) {
+            droppedCount++;
+            return false;
+        }
+        System.arraycopy(record, 0, buffer, (int) (write % capacity) * recordWidth, recordWidth);
+        // Publishes the record to the consumer.
+        writeCount = write + 1;
+        return true;
+    }
+
+    /**
+     * Moves all waiting records into the destination, oldest first. Must only be
+     * called from the consumer thread.
+     *
+     * @param destination Array of at least {@code capacity * recordWidth}
+     *                    elements.
+     * @return The number of records copied.
+     */
+    public int drainTo(double[] destination) {
+        long read = readCount;
+        int count = (int) Math.min(writeCount - read, destination.length / recordWidth);
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(buffer, (int) ((read + i) % capacity) * recordWidth, destination, i * recordWidth,
+                    recordWidth);
+        }
+        // Hands the space back to the producer.
+        readCount = read + count;
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public int getRecordWidth() {
+        return recordWidth;
+    }
+}
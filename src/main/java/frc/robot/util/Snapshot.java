@@ -0,0 +1,63 @@
+package frc.robot.util;
+
+/**
+ * Shares the latest value produced by one thread with any number of readers,
+ * without locks.
+ * <p>
+ * Only one thread may {@link #publish} values. Readers always see a complete
+ * value, never one that is half written, and never wait for the writer. The
+ * published values must not be changed after they are published.
+ * </p>
+ *
+ * @param <T> Type of the published values.
+ */
+public class Snapshot<T> {
+
+    // ========================= Class Level ===================================
+
+    private static class Entry<T> {
+        final T value;
+        final long sequence;
+
+        Entry(T value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
+        }
+    }
+
+    // ========================= Object Level ==================================
+
+    private volatile Entry<T> latest;
+
+    /**
+     * @param initialValue Returned by {@link #get()} until the first value is
+     *                     published.
+     */
+    public Snapshot(T initialValue) {
+        latest = new Entry<>(initialValue, 0);
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Replaces the current value. Must only be called from the writer thread.
+     */
+    public void publish(T value) {
+        latest = new Entry<>(value, latest.sequence + 1);
+    }
+
+    /**
+     * @return The most recently published value.
+     */
+    public T get() {
+        return latest.value;
+    }
+
+    /**
+     * @return The number of values published so far, used to tell if the value
+     *         has changed since it was last read.
+     */
+    public long getSequence() {
+        return latest.sequence;
+    }
+}
@@ -0,0 +1,78 @@
+package frc.robot.util;
+
+import static frc.robot.constants.AbstractConstants.CONSTANTS;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent pieces of the main loop's work (e.g. one per camera) at the
+ * same time, and waits for all of them, so the loop takes as long as the
+ * slowest piece instead of their sum.
+ * <p>
+ * Unlike {@link BackgroundExecutor}, the caller waits, so the results can be
+ * used, logged and merged on the main thread in a fixed order, and log replay
+ * still gives the same results. The tasks must not log, or touch anything
+ * another task or the main thread changes while they run.
+ * </p>
+ */
+public class WorkerPool {
+
+    // ========================= Class Level ===================================
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            CONSTANTS.getWorkerThreadCount(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "Worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /** Makes this class non-instantiable. */
+    private WorkerPool() {
+    }
+
+    // ========================= Functions =====================================
+
+    /**
+     * Runs the tasks, the first on this thread and the rest on the workers, and
+     * returns once all of them have finished.
+     *
+     * @throws RuntimeException The first task's that threw, once all finished.
+     */
+    public static void runAll(Runnable... tasks) {
+        if (tasks.length == 0) {
+            return;
+        }
+        Future<?>[] futures = new Future<?>[tasks.length];
+        for (int i = 1; i < tasks.length; i++) {
+            futures[i] = executor.submit(tasks[i]);
+        }
+        RuntimeException failure = null;
+        try {
+            tasks[0].run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (int i = 1; i < tasks.length; i++) {
+            try {
+                futures[i].get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                            : new RuntimeException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new RuntimeException(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}